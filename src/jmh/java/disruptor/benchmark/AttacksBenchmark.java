@@ -0,0 +1,59 @@
+package disruptor.benchmark;
+
+import disruptor.attacks.Attack;
+import org.openjdk.jmh.annotations.*;
+import weka.core.Instances;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of every attack under disruptor.attacks on synthetic datasets.
+ * <p/>
+ * The default parameters keep a complete run short. Use the JMH -p option to benchmark bigger datasets,
+ * es: -p rows=10000000 -p features=10 or -p rows=1000 -p features=10000.
+ * Use -prof gc to report the allocation rate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class AttacksBenchmark {
+
+    @Param({"1000", "100000"})
+    private int rows;
+
+    @Param({"10", "100"})
+    private int features;
+
+    @Param({"2", "5"})
+    private int classes;
+
+    @Param({"1.0"})
+    private double capacity;
+
+    @Param({"1.0"})
+    private double featuresCapacity;
+
+    @Param({
+            "LabelFlipping", "RandomLabelFlipping", "OppositeAttack",
+            "NullAttack", "MeanAttack", "MeanPerClassAttack", "MiddlePoint", "MiddlePointByClass",
+            "OutOfRanging", "RandomValueFromOtherClass",
+            "OverlayCentroids", "SideBySide", "SideBySideOnTop", "SideBySideDuplicate"
+    })
+    private String attackName;
+
+    private Attack attack;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Instances dataset = SyntheticDataset.generate(rows, features, classes, 1);
+        attack = BenchmarkAttacks.create(attackName, dataset, capacity, featuresCapacity);
+    }
+
+    @Benchmark
+    public Instances attack() {
+        return attack.attack();
+    }
+}
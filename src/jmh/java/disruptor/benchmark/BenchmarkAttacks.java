@@ -0,0 +1,90 @@
+package disruptor.benchmark;
+
+import disruptor.attacks.Attack;
+import disruptor.attacks.AttackContext;
+import disruptor.attacks.custom.OverlayCentroids;
+import disruptor.attacks.custom.SideBySide;
+import disruptor.attacks.custom.SideBySideDuplicate;
+import disruptor.attacks.custom.SideBySideOnTop;
+import disruptor.attacks.horizontal.OppositeAttack;
+import disruptor.attacks.horizontal.labelflipping.LabelFlipping;
+import disruptor.attacks.horizontal.labelflipping.RandomLabelFlipping;
+import disruptor.attacks.vertical.*;
+import weka.core.Instances;
+
+/**
+ * Creation of the attacks benchmarked, configured as in {@link disruptor.core.Disruptor}
+ */
+public class BenchmarkAttacks {
+
+    private BenchmarkAttacks() {}
+
+    /**
+     * @param attackName simple name of a class under disruptor.attacks
+     * @param dataset target of the attack
+     * @param capacity capacity of the attack
+     * @param featuresCapacity features capacity of the attack
+     * @return the attack ready to be performed
+     * @throws IllegalArgumentException if there is no attack with that name
+     */
+    public static Attack create(String attackName, Instances dataset, double capacity, double featuresCapacity) {
+        Attack attack;
+        switch (attackName) {
+            case "LabelFlipping":
+                attack = new LabelFlipping(dataset);
+                break;
+            case "RandomLabelFlipping":
+                attack = new RandomLabelFlipping(dataset);
+                break;
+            case "OppositeAttack":
+                attack = new OppositeAttack(dataset);
+                break;
+            case "NullAttack":
+                attack = new NullAttack(dataset);
+                break;
+            case "MeanAttack":
+                attack = new MeanAttack(dataset);
+                break;
+            case "MeanPerClassAttack":
+                attack = new MeanPerClassAttack(dataset);
+                break;
+            case "MiddlePoint":
+                attack = new MiddlePoint(dataset);
+                break;
+            case "MiddlePointByClass":
+                attack = new MiddlePointByClass(dataset);
+                break;
+            case "OutOfRanging":
+                attack = new OutOfRanging(dataset);
+                break;
+            case "RandomValueFromOtherClass":
+                attack = new RandomValueFromOtherClass(dataset);
+                break;
+            case "OverlayCentroids":
+                attack = new OverlayCentroids(dataset);
+                break;
+            case "SideBySide":
+                attack = new SideBySide(dataset, featuresCapacity);
+                break;
+            case "SideBySideOnTop":
+                attack = new SideBySideOnTop(dataset, featuresCapacity);
+                break;
+            case "SideBySideDuplicate":
+                attack = new SideBySideDuplicate(dataset);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown attack " + attackName);
+        }
+        attack.setCapacity(capacity);
+        attack.setFeaturesCapacity(featuresCapacity);
+        attack.setFeatureSelected(SyntheticDataset.ranking(dataset));
+        // As in the Disruptor the analysis of the dataset is computed once and shared between the attacks
+        AttackContext attackContext = new AttackContext(dataset);
+        attackContext.getFeatureStatistics();
+        if( dataset.classAttribute().isNominal() ){
+            attackContext.getClassIndex();
+        }
+        attack.setAttackContext(attackContext);
+        return attack;
+    }
+}
@@ -0,0 +1,70 @@
+package disruptor.benchmark;
+
+import disruptor.attacks.Attack;
+import disruptor.attacks.ColumnarAttack;
+import disruptor.columnar.ColumnarDataset;
+import org.openjdk.jmh.annotations.*;
+import weka.core.Instances;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the attacks performed on the columnar representation of synthetic datasets.
+ * <p/>
+ * The conversion of the target is done once, as in the Disruptor, while the conversion of the result to instances
+ * is measured separately by {@link #attackToInstances()}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ColumnarAttacksBenchmark {
+
+    @Param({"1000", "100000"})
+    private int rows;
+
+    @Param({"10", "100"})
+    private int features;
+
+    @Param({"2", "5"})
+    private int classes;
+
+    @Param({"1.0"})
+    private double capacity;
+
+    @Param({"1.0"})
+    private double featuresCapacity;
+
+    @Param({
+            "LabelFlipping", "RandomLabelFlipping", "OppositeAttack",
+            "NullAttack", "MeanAttack", "MeanPerClassAttack", "MiddlePoint", "MiddlePointByClass"
+    })
+    private String attackName;
+
+    private ColumnarAttack attack;
+
+    private ColumnarDataset columnarDataset;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Instances dataset = SyntheticDataset.generate(rows, features, classes, 1);
+        Attack instancesAttack = BenchmarkAttacks.create(attackName, dataset, capacity, featuresCapacity);
+        if (!(instancesAttack instanceof ColumnarAttack) || !((ColumnarAttack) instancesAttack).supportsColumnar()) {
+            throw new IllegalArgumentException(attackName + " cannot be performed on a columnar dataset");
+        }
+        attack = (ColumnarAttack) instancesAttack;
+        columnarDataset = ColumnarDataset.fromInstances(dataset);
+    }
+
+    @Benchmark
+    public ColumnarDataset attack() {
+        return attack.attack(columnarDataset);
+    }
+
+    @Benchmark
+    public Instances attackToInstances() {
+        return attack.attack(columnarDataset).toInstances();
+    }
+}
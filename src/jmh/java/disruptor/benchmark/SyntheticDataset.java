@@ -0,0 +1,66 @@
+package disruptor.benchmark;
+
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Generator of random datasets used by the benchmarks
+ */
+public class SyntheticDataset {
+
+    private SyntheticDataset() {}
+
+    /**
+     * Generate a dataset with numeric features and a nominal class. The values of the features are drawn from a
+     * gaussian distribution whose mean depends on the class, so that the classes can be told apart.
+     * @param rows number of instances
+     * @param features number of numeric features
+     * @param classes number of class values
+     * @param seed seed of the random generator. The same seed always generates the same dataset
+     * @return the generated dataset, with the class as last attribute
+     */
+    public static Instances generate(int rows, int features, int classes, long seed) {
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        for (int f = 0; f < features; f++) {
+            attributes.add(new Attribute("feature" + f));
+        }
+        ArrayList<String> classValues = new ArrayList<>();
+        for (int c = 0; c < classes; c++) {
+            classValues.add("class" + c);
+        }
+        attributes.add(new Attribute("class", classValues));
+
+        Instances dataset = new Instances("synthetic_R" + rows + "_F" + features + "_C" + classes, attributes, rows);
+        dataset.setClassIndex(features);
+
+        Random random = new Random(seed);
+        for (int i = 0; i < rows; i++) {
+            double[] values = new double[features + 1];
+            int classValue = random.nextInt(classes);
+            for (int f = 0; f < features; f++) {
+                values[f] = classValue + random.nextGaussian();
+            }
+            values[features] = classValue;
+            dataset.add(new DenseInstance(1, values));
+        }
+        return dataset;
+    }
+
+    /**
+     * @param dataset dataset generated by {@link #generate(int, int, int, long)}
+     * @return a ranking of the features in the format of the feature selection algorithms, in the order of the dataset
+     */
+    public static double[][] ranking(Instances dataset) {
+        int features = dataset.numAttributes() - 1;
+        double[][] ranking = new double[features][2];
+        for (int f = 0; f < features; f++) {
+            ranking[f][0] = f;
+            ranking[f][1] = features - f;
+        }
+        return ranking;
+    }
+}
@@ -1,5 +1,8 @@
 package disruptor.attacks;
 
+import disruptor.perturbeddataset.PerturbedView;
+import disruptor.statistics.ClassIndex;
+import disruptor.statistics.FeatureStatistics;
 import lombok.Getter;
 import lombok.Setter;
 import org.w3c.dom.Attr;
@@ -10,7 +13,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 
-public abstract class Attack {
+public abstract class Attack implements Cloneable {
 
     /**
      * Percentage of the Instances the attacker can EDIT
@@ -34,7 +37,8 @@ public abstract class Attack {
     private double featuresCapacity = 0;
 
     /**
-     * instances target of the attack
+     * instances target of the attack.
+     * The target is shared with the caller and with the copies of the attack, thus it is never modified by the attack
      * @return instances target of the attack
      */
     @Getter @Setter
@@ -43,6 +47,11 @@ public abstract class Attack {
     @Getter
     private List<Attribute> featureSelected = new ArrayList<>();
 
+    /**
+     * Precomputed analysis of the target, shared with the copies of the attack and with the other attacks with the same target
+     */
+    private volatile AttackContext attackContext;
+
 
 
     // --------------------------------------------------------------------------------------------------------
@@ -54,8 +63,7 @@ public abstract class Attack {
     }
 
     protected Attack(Instances target, double capacity, double featuresCapacity, double knowledge){
-        Instances targetCopy = new Instances(target);
-        setTarget(targetCopy);
+        setTarget(target);
         setCapacity(capacity);
         setFeaturesCapacity(featuresCapacity);
         setKnowledge(knowledge);
@@ -68,7 +76,10 @@ public abstract class Attack {
     // --------------------------------------------------------------------------------------------------------
 
     /**
-     * Perform the attack
+     * Perform the attack.
+     * <p/>
+     * The target must not be modified: perform the attack on a {@link PerturbedView} of the target
+     * created with {@link #newPerturbedView()}
      * @return the target instances after the attack
      */
     public abstract Instances attack();
@@ -79,6 +90,62 @@ public abstract class Attack {
     // -- Methods ----------------------------------------------------------------------------------
     // --------------------------------------------------------------------------------------------------------
 
+    /**
+     * Create a copy of this attack that can be configured and performed independently of the original one.
+     * <p/>
+     * The copy shares the target and the selected features with the original attack, thus
+     * override this method if the attack contains other mutable fields.
+     * @return a copy of this attack
+     */
+    public Attack copy() {
+        try {
+            Attack attackCopy = (Attack) super.clone();
+            attackCopy.featureSelected = new ArrayList<>(featureSelected);
+            return attackCopy;
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("Cannot copy the attack " + getClass().getSimpleName(), e);
+        }
+    }
+
+    /**
+     * @return a copy-on-write view of the target, where the attack can change the instances without modifying the target
+     */
+    protected PerturbedView newPerturbedView() {
+        return new PerturbedView(getTarget());
+    }
+
+    /**
+     * An attack is capacity incremental if it perturbs exactly the first {@link #attackSize()} instances of the target
+     * and the perturbation of an instance does not depend on the capacity.
+     * <p/>
+     * In this case the result of a lower capacity is a prefix of the result of a bigger capacity, and it can be derived
+     * from it instead of performing the attack again.
+     * The attack must return a {@link PerturbedView} of the target.
+     * @return true if the attack is capacity incremental
+     */
+    public boolean isCapacityIncremental() {
+        return false;
+    }
+
+    /**
+     * An attack is features capacity incremental if it changes only the {@link #perturbedAttributes()} of an instance
+     * and the new value of an attribute does not depend on the other perturbed attributes.
+     * <p/>
+     * In this case the result of a lower features capacity can be assembled from the columns of the result of a bigger
+     * features capacity, instead of performing the attack again.
+     * @return true if the attack is features capacity incremental
+     */
+    public boolean isFeaturesCapacityIncremental() {
+        return false;
+    }
+
+    /**
+     * @return the attributes changed by the attack
+     */
+    public List<Attribute> perturbedAttributes() {
+        return getReducedFeatureSelected();
+    }
+
     /**
      * Number of instances attacked
      * @return Number of target instances specified by the capacity
@@ -145,6 +212,43 @@ public abstract class Attack {
         }
     }
 
+    /**
+     * Return the precomputed analysis of the target. If it has not been set or it describes another dataset, a new
+     * context of the target is created, with the ranking cache of the previous context.
+     * @return the context of the target
+     */
+    public AttackContext getAttackContext() {
+        AttackContext context = attackContext;
+        if (context == null || !context.describes(getTarget())) {
+            context = new AttackContext(getTarget(), context != null ? context.getRankingCache() : null);
+            attackContext = context;
+        }
+        return context;
+    }
+
+    /**
+     * Share a context with the attack, to avoid analysing the target again
+     * @param attackContext context of the target
+     */
+    public void setAttackContext(AttackContext attackContext) {
+        this.attackContext = attackContext;
+    }
+
+    /**
+     * @return the statistics of the target, from the context of the attack
+     */
+    public FeatureStatistics getFeatureStatistics() {
+        return getAttackContext().getFeatureStatistics();
+    }
+
+    /**
+     * @return the instances of the target grouped by class, from the context of the attack
+     * @throws IllegalArgumentException if the class of the target is not nominal
+     */
+    public ClassIndex getClassIndex() {
+        return getAttackContext().getClassIndex();
+    }
+
     /**
      * Set the selected feature list in the rank corresponding order
      * @param selectedFeaturesRanks the array of attributes in the order defined by the ranks
@@ -0,0 +1,149 @@
+package disruptor.attacks;
+
+import disruptor.attributeselection.InfoGainEval;
+import disruptor.attributeselection.RankingCache;
+import disruptor.statistics.ClassIndex;
+import disruptor.statistics.FeatureStatistics;
+import lombok.Getter;
+import weka.core.Attribute;
+import weka.core.Instances;
+
+/**
+ * Lazy cache of the analysis of a target, shared by all the attacks with that target, es: all the attacks and all the
+ * cells of the grid of a run, so that no attack repeats an expensive analysis inside the grid loop:
+ * <ul>
+ *     <li>the statistics of the features, see {@link FeatureStatistics}</li>
+ *     <li>the instances grouped by class and the biggest class, see {@link ClassIndex}</li>
+ *     <li>the ranking of the features by information gain, with the best and the worst feature</li>
+ * </ul>
+ * Every artifact is computed the first time it is requested, only once even if it is requested by different threads
+ * at the same time, and then it is read only.
+ */
+public class AttackContext {
+
+    /**
+     * @return target described by the context
+     */
+    @Getter
+    private final Instances target;
+
+    /**
+     * @return cache of the rankings of the features, null if the ranking of the target is always computed
+     */
+    @Getter
+    private final RankingCache rankingCache;
+
+    private volatile FeatureStatistics featureStatistics;
+
+    private volatile ClassIndex classIndex;
+
+    /**
+     * Attributes ranked by information gain, as {@link InfoGainEval#getRankedAttributes()}
+     */
+    private volatile double[][] ranking;
+
+    /**
+     * @param target target of the attacks. It must not be modified while the context is used
+     */
+    public AttackContext(Instances target) {
+        this(target, null);
+    }
+
+    /**
+     * @param target target of the attacks. It must not be modified while the context is used
+     * @param rankingCache cache of the rankings of the features, es: the one of the execution, null to always compute
+     * the ranking of the target
+     */
+    public AttackContext(Instances target, RankingCache rankingCache) {
+        this.target = target;
+        this.rankingCache = rankingCache;
+    }
+
+    /**
+     * @param instances instances to check
+     * @return true if this context describes exactly those instances
+     */
+    public boolean describes(Instances instances) {
+        return instances == target;
+    }
+
+    /**
+     * @return the statistics of the features of the target
+     */
+    public FeatureStatistics getFeatureStatistics() {
+        FeatureStatistics statistics = featureStatistics;
+        if (statistics == null) {
+            synchronized (this) {
+                statistics = featureStatistics;
+                if (statistics == null) {
+                    statistics = new FeatureStatistics(target);
+                    featureStatistics = statistics;
+                }
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * @return the instances of the target grouped by class
+     * @throws IllegalArgumentException if the class of the target is not nominal
+     */
+    public ClassIndex getClassIndex() {
+        ClassIndex index = classIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = classIndex;
+                if (index == null) {
+                    index = new ClassIndex(target);
+                    classIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @return the index of the class value with the most instances in the target
+     * @throws IllegalArgumentException if the class of the target is not nominal
+     */
+    public int getBiggestClass() {
+        return getClassIndex().getBiggestClass();
+    }
+
+    /**
+     * @return the attributes of the target ranked by information gain, from the best one. Each row contains the index
+     * of the attribute and its merit. The array is shared, thus it must not be modified
+     */
+    public double[][] getRanking() {
+        double[][] ranks = ranking;
+        if (ranks == null) {
+            synchronized (this) {
+                ranks = ranking;
+                if (ranks == null) {
+                    InfoGainEval infoGainEval = new InfoGainEval(target);
+                    infoGainEval.setRankingCache(rankingCache);
+                    infoGainEval.eval();
+                    ranks = infoGainEval.getRankedAttributes();
+                    ranking = ranks;
+                }
+            }
+        }
+        return ranks;
+    }
+
+    /**
+     * @return the attribute of the target with the highest information gain
+     */
+    public Attribute getBestAttribute() {
+        double[][] ranks = getRanking();
+        return target.attribute( (int) ranks[0][0] );
+    }
+
+    /**
+     * @return the attribute of the target with the lowest information gain
+     */
+    public Attribute getWorstAttribute() {
+        double[][] ranks = getRanking();
+        return target.attribute( (int) ranks[ranks.length-1][0] );
+    }
+}
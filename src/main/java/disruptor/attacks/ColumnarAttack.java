@@ -0,0 +1,26 @@
+package disruptor.attacks;
+
+import disruptor.columnar.ColumnarDataset;
+
+/**
+ * Attack that can be performed directly on the columnar representation of its target, without creating any
+ * {@link weka.core.Instance} object.
+ * <p/>
+ * The result of the columnar attack must be the same of {@link Attack#attack()}.
+ */
+public interface ColumnarAttack {
+
+    /**
+     * @return true if the attack can be performed on the columnar representation with its current configuration
+     */
+    boolean supportsColumnar();
+
+    /**
+     * Perform the attack on the columnar representation of the target.
+     * <p/>
+     * The target must not be modified: perform the attack on a {@link ColumnarDataset#copy()} of the target
+     * @param target columnar representation of the target of the attack
+     * @return the target after the attack
+     */
+    ColumnarDataset attack(ColumnarDataset target);
+}
@@ -1,11 +1,14 @@
 package disruptor.attacks.custom;
 
 import disruptor.attacks.Attack;
+import disruptor.clustering.Clustering;
+import disruptor.clustering.ClusteringCache;
+import disruptor.clustering.MiniBatchKMeans;
+import disruptor.perturbeddataset.PerturbedView;
 import disruptor.util.ExceptionUtil;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
-import weka.clusterers.SimpleKMeans;
 import weka.core.Attribute;
 import weka.core.DenseInstance;
 import weka.core.Instance;
@@ -14,12 +17,17 @@ import weka.core.Instances;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.stream.IntStream;
 
 @Slf4j
 public class OverlayCentroids extends Attack {
 
-    private final SimpleKMeans simpleKMeans = new SimpleKMeans();
+    /**
+     * Clusterings of the targets, shared with the copies of the attack, thus every cell of the grid reuses the
+     * clustering of its target
+     */
+    private ClusteringCache clusteringCache = new ClusteringCache();
 
     /**
      * @param clustersNumber number of clusters in wich the instances are divided
@@ -28,6 +36,14 @@ public class OverlayCentroids extends Attack {
     @Getter @Setter
     private int clustersNumber = 4;
 
+    /**
+     * @param miniBatchMinInstances targets with at least this number of instances are clustered by the
+     *                              {@link MiniBatchKMeans}, the smaller ones by the Weka SimpleKMeans
+     * @return the number of instances from which the targets are clustered by the {@link MiniBatchKMeans}
+     */
+    @Getter @Setter
+    private int miniBatchMinInstances = 100_000;
+
     public OverlayCentroids(Instances target) {
         super(target);
     }
@@ -37,13 +53,26 @@ public class OverlayCentroids extends Attack {
         setClustersNumber(clustersNumber);
     }
 
+    /**
+     * Share a cache of the clusterings with the attack, es: with other OverlayCentroids attacks with the same target
+     * @param clusteringCache cache of the clusterings of the targets
+     */
+    public void setClusteringCache(ClusteringCache clusteringCache) {
+        this.clusteringCache = clusteringCache;
+    }
+
+    @Override
+    public boolean isCapacityIncremental() {
+        return true;
+    }
+
     @Override
     public Instances attack() {
-        Instances instances = getTarget();
+        PerturbedView instances = newPerturbedView();
         try {
             // Cluster the instances and fetch the centroids of each cluster
-            initSimpleKMeans();
-            Instances clustersCentroids = centroids();
+            Clustering clustering = clustering();
+            Instances clustersCentroids = clustering.getCentroids();
 
             // Build the mean centroid
             Instance meanCentroid = new DenseInstance( clustersCentroids.firstInstance() );
@@ -58,12 +87,14 @@ public class OverlayCentroids extends Attack {
             log.debug("\tclustersCentroids: {}", clustersCentroids);
             log.debug("\tmeanCentroid: {}", meanCentroid);
 
-            // Translate the instances towards the mean centroid
-            IntStream.range( 0, attackSize() ).forEach( i -> {
+            // Translate the instances towards the mean centroid. Each instance is translated independently of the others
+            ArrayList<Attribute> attributesList = Collections.list( getTarget().enumerateAttributes() );
+            IntStream.range( 0, attackSize() ).parallel().forEach( i -> {
                 Instance currentInstance = instances.instance(i);
                 Instance translatedInstance = null;
                 try {
-                    translatedInstance = translateInstance( currentInstance, clustersCentroids, meanCentroid );
+                    Instance clusterCentroid = clustersCentroids.get( clustering.cluster(i) );
+                    translatedInstance = translateInstance( currentInstance, attributesList, clusterCentroid, meanCentroid );
                     instances.set( i, translatedInstance );
                 } catch (Exception e) {
                     log.error("Problem during translation of the instance");
@@ -83,40 +114,36 @@ public class OverlayCentroids extends Attack {
     }
 
     /**
-     * Start the clustering of the instances
+     * Cluster the instances of the target, the class attribute included, or fetch their clustering from the cache
+     * @return the clustering of the target
      * @throws Exception if it cannot build the clustering
      */
-    private void initSimpleKMeans() throws Exception {
+    private Clustering clustering() throws Exception {
         Instances instances = getTarget();
-        // Remove the class attribute
-        Instances instancesWithoutClass = new Instances(instances);
-        instancesWithoutClass.setClassIndex(-1);
-
-        simpleKMeans.setNumClusters(getClustersNumber());
-        simpleKMeans.buildClusterer(instancesWithoutClass);
-    }
-
-    /**
-     * @return Centroids of the simple K-Means cluster
-     */
-    private Instances centroids() {
-        return simpleKMeans.getClusterCentroids();
+        int clusters = getClustersNumber();
+        return clusteringCache.get( instances, clusters, () -> {
+            if (instances.numInstances() < getMiniBatchMinInstances()) {
+                // The clusters of the instances are the assignments of the last iteration of the SimpleKMeans, no longer
+                // its clusterInstance on the final centroids: they differ if maxIterations is reached before convergence
+                return Clustering.simpleKMeans(instances, clusters);
+            }
+            MiniBatchKMeans miniBatchKMeans = new MiniBatchKMeans();
+            miniBatchKMeans.setNumClusters(clusters);
+            return miniBatchKMeans.cluster(instances);
+        });
     }
 
     /**
      * Translate the instance toward the mean centroid
      * @param instance instance to translate
-     * @param clusterCentroids centroids of the difference clusters
+     * @param attributesList attributes of the instance to translate, the class excluded
+     * @param clusterCentroid centroid of the cluster of the instance
      * @param meanCentroid mean centroids toward which the instance is translated
      */
-    private Instance translateInstance(Instance instance, Instances clusterCentroids, Instance meanCentroid) throws Exception {
+    private Instance translateInstance(Instance instance, List<Attribute> attributesList, Instance clusterCentroid, Instance meanCentroid) {
         Instance result = new DenseInstance( instance );
-        // Fetch the instance cluster
-        int clusterIndex = simpleKMeans.clusterInstance(instance);
-        Instance clusterCentroid = clusterCentroids.get(clusterIndex);
 
         // For each attribute replace the instance value with the translated one
-        ArrayList<Attribute> attributesList = Collections.list( instance.enumerateAttributes() );
         attributesList.forEach( attribute -> {
 
             double instanceValue = instance.value(attribute);
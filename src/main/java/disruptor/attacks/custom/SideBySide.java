@@ -1,9 +1,10 @@
 package disruptor.attacks.custom;
 
 import disruptor.attacks.Attack;
-import disruptor.attributeselection.InfoGainEval;
+import disruptor.attacks.AttackContext;
+import disruptor.perturbeddataset.PerturbedView;
+import disruptor.statistics.ClassIndex;
 import disruptor.util.InstanceUtil;
-import disruptor.util.InstancesUtil;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -38,64 +39,71 @@ public class SideBySide extends Attack {
 
     @Override
     public Instances attack() {
-        Instances perturbedInstances = new Instances(getTarget());
-
-        // set the biggest class as the reference class
-        double biggestClass =  InstancesUtil.getBiggestClass(perturbedInstances);
-        setReferenceClass(biggestClass);
+        PerturbedView perturbedInstances = newPerturbedView();
 
+        // The analysis of the target is shared by all the cells of the grid
+        AttackContext attackContext = getAttackContext();
 
-        // create buckets of instances grouped by class value
-        HashMap<Object, ArrayList<Instance>> bucketsMap = InstancesUtil.bucketsByClass(perturbedInstances);
+        // set the biggest class as the reference class
+        ClassIndex classIndex = attackContext.getClassIndex();
+        int referenceClassIndex = attackContext.getBiggestClass();
+        setReferenceClass(referenceClassIndex);
 
 
-        // Use as reference feature the feature selected by the feature selection algorithm
-        InfoGainEval infoGainEval = new InfoGainEval(perturbedInstances);
-        infoGainEval.eval();
-        int worstAttributeIndex = (int) infoGainEval.getWorstFeatureIndex();
-        Attribute worstAttribute = perturbedInstances.attribute( worstAttributeIndex );
+        // Use as reference feature the worst feature ranked by information gain
+        Attribute worstAttribute = attackContext.getWorstAttribute();
 
 
         // get the bucket corresponding to the reference class
-        ArrayList<Instance> referenceBucketList = bucketsMap.get(getReferenceClassObject());
-        ArrayList<Instance> perturbedList = new ArrayList<>();
+        int[] referenceBucket = classIndex.rows(referenceClassIndex);
+        int[] perturbedOrder = new int[perturbedInstances.size()];
+        int perturbedOrderSize = 0;
 
 
-        // Cycle the buckets
-        for (Map.Entry<Object,ArrayList<Instance>> bucketsMapEntry : bucketsMap.entrySet()){
+        // Cycle the buckets, in the order of the class values in a HashMap as the perturbed datasets of the previous versions
+        for (int classValueIndex : bucketsOrder(classIndex)){
 
-            ArrayList<Instance> bucketList = bucketsMapEntry.getValue();
+            int[] bucket = classIndex.rows(classValueIndex);
             // Do not cycle the bucket corresponding to  the reference class
-            if( !bucketList.equals(referenceBucketList )){
+            if( classValueIndex != referenceClassIndex ){
                 //Cycle on the instances
                 // Perform the attack only in the part of the target instances specified by the capacity
-                // bucketList.size() : perturbedInstances.size() = x : attackSize()
-                int attackSize = ( bucketList.size() * attackSize() ) / perturbedInstances.size() ;
+                // bucket.length : perturbedInstances.size() = x : attackSize()
+                int attackSize = ( bucket.length * attackSize() ) / perturbedInstances.size() ;
 
                 IntStream.range(0, attackSize).parallel().forEach( i -> {
 
-                    Instance instance = bucketList.get( i );
-                    Instance referenceInstance = referenceBucketList.get( i );
+                    Instance instance = perturbedInstances.writableInstance( bucket[i] );
+                    Instance referenceInstance = perturbedInstances.instance( referenceBucket[i] );
 
                     attackInstance(instance, referenceInstance, worstAttribute );
-
-                    bucketList.set(i, instance);
                 });
             }
-            // append all the bucketList together
-            perturbedList.addAll(bucketList);
+            // append all the buckets together
+            System.arraycopy(bucket, 0, perturbedOrder, perturbedOrderSize, bucket.length);
+            perturbedOrderSize += bucket.length;
         }
 
-        // Save perturbed instances in an Instances object
-        for( int i=0; i<perturbedList.size(); i++){
-            Instance instance = perturbedList.get(i);
-            perturbedInstances.set(i, instance);
-        }
+        // Group the perturbed instances by class as the buckets
+        perturbedInstances.reorder( Arrays.copyOf(perturbedOrder, perturbedOrderSize) );
         return perturbedInstances;
     }
 
 
 
+    /**
+     * @param classIndex class index of the target
+     * @return the indexes of the class values in the iteration order of a HashMap with the class values as keys
+     */
+    private static List<Integer> bucketsOrder(ClassIndex classIndex) {
+        Attribute classAttribute = classIndex.getDataset().classAttribute();
+        HashMap<Object, Integer> classValuesMap = new HashMap<>();
+        for( int c=0; c<classIndex.numClasses(); c++ ){
+            classValuesMap.put( classAttribute.value(c), c );
+        }
+        return new ArrayList<>( classValuesMap.values() );
+    }
+
     /**
      * Perturb the single instance with the SideBySide attack.
      * <p/>
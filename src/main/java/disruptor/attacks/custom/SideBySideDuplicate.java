@@ -1,6 +1,7 @@
 package disruptor.attacks.custom;
 
 import disruptor.attacks.Attack;
+import disruptor.perturbeddataset.PerturbedView;
 import lombok.extern.slf4j.Slf4j;
 import weka.core.DenseInstance;
 import weka.core.Instance;
@@ -23,7 +24,7 @@ public class SideBySideDuplicate extends Attack {
 
     @Override
     public Instances attack() {
-        Instances perturbedInstances = new Instances(getTarget());
+        PerturbedView perturbedInstances = newPerturbedView();
 
         for(int i=0; i<attackSize(); i++){
             Instance instance = perturbedInstances.instance(i);
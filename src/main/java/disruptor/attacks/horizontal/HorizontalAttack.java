@@ -1,9 +1,15 @@
 package disruptor.attacks.horizontal;
 
 import disruptor.attacks.Attack;
+import disruptor.columnar.ColumnarDataset;
+import disruptor.perturbeddataset.PerturbedView;
+import weka.core.Attribute;
 import weka.core.Instance;
 import weka.core.Instances;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
 import java.util.stream.IntStream;
 
 public abstract class HorizontalAttack extends Attack {
@@ -15,21 +21,55 @@ public abstract class HorizontalAttack extends Attack {
         super(target, capacity, featuresCapacity, knowledge);
     }
 
+    @Override
+    public boolean isCapacityIncremental() {
+        return true;
+    }
+
+    @Override
+    public boolean isFeaturesCapacityIncremental() {
+        return true;
+    }
+
+    /**
+     * @return the class attribute, the only attribute changed by an horizontal attack
+     */
+    @Override
+    public List<Attribute> perturbedAttributes() {
+        return Collections.singletonList(getTarget().classAttribute());
+    }
+
     @Override
     public Instances attack() {
-        Instances perturbedInstances = new Instances(getTarget());
+        PerturbedView perturbedInstances = newPerturbedView();
 
         // Perform the attack only in the part of the target specified by the capacity
         IntStream.range(0, attackSize()).parallel().forEach(i -> {
-            Instance instanceToAttack = perturbedInstances.instance(i);
+            Instance instanceToAttack = perturbedInstances.writableInstance(i);
 
             horizontalDisrupt(instanceToAttack);
-
-            perturbedInstances.set(i, instanceToAttack);
         });
         return perturbedInstances;
     }
 
+    /**
+     * Perform the attack on the class column of the columnar representation of the target
+     * @param target columnar representation of the target. Not modified
+     * @param flip function that returns the new class code given the current one. Never called for missing classes
+     * @return the target after the attack
+     */
+    protected ColumnarDataset flipClassColumn(ColumnarDataset target, IntUnaryOperator flip) {
+        ColumnarDataset perturbedDataset = target.copy();
+        int[] classColumn = perturbedDataset.writableClassColumn();
+        int rows = attackSize();
+        for (int i = 0; i < rows; i++) {
+            if (classColumn[i] >= 0) {
+                classColumn[i] = flip.applyAsInt(classColumn[i]);
+            }
+        }
+        return perturbedDataset;
+    }
+
     /**
      * Horizontal disruption.
      * Use this method to disrupt the selected instance
@@ -1,11 +1,16 @@
 package disruptor.attacks.horizontal;
 
 import disruptor.attacks.Attack;
+import disruptor.attacks.ColumnarAttack;
+import disruptor.columnar.ColumnarDataset;
+import disruptor.perturbeddataset.PerturbedView;
 import weka.core.Attribute;
 import weka.core.Instance;
 import weka.core.Instances;
 
-public class OppositeAttack extends Attack {
+import java.util.List;
+
+public class OppositeAttack extends Attack implements ColumnarAttack {
 
     public OppositeAttack(Instances target) {
         super(target);
@@ -15,24 +20,48 @@ public class OppositeAttack extends Attack {
         super(target, capacity, featuresCapacity, knowledge);
     }
 
+    @Override
+    public boolean isCapacityIncremental() {
+        return true;
+    }
+
+    @Override
+    public boolean isFeaturesCapacityIncremental() {
+        return true;
+    }
+
     @Override
     public Instances attack() {
 
-        Instances perturbedInstances = new Instances(getTarget());
+        PerturbedView perturbedInstances = newPerturbedView();
+        List<Attribute> reducedFeatureSelected = getReducedFeatureSelected();
         // Perform the attack only in the part of the target specified by the capacity
         for(int i=0; i<attackSize(); i++){
 
-            Instance instanceToAttack = perturbedInstances.instance(i);
+            Instance instanceToAttack = perturbedInstances.writableInstance(i);
 
             // Perform the attack only for the selected feature
-            for( Attribute feature : getReducedFeatureSelected() ){
+            for( Attribute feature : reducedFeatureSelected ){
                 double actualValue = instanceToAttack.value( feature );
                 instanceToAttack.setValue( feature, actualValue*(-1) );
             }
-
-            perturbedInstances.set(i, instanceToAttack);
         }
         return perturbedInstances;
 
     }
+
+    @Override
+    public boolean supportsColumnar() {
+        return ColumnarDataset.areNumeric(perturbedAttributes());
+    }
+
+    @Override
+    public ColumnarDataset attack(ColumnarDataset target) {
+        int rows = attackSize();
+        return target.perturbNumericColumns(getReducedFeatureSelected(), (column, feature) -> {
+            for (int i = 0; i < rows; i++) {
+                column[i] = column[i]*(-1);
+            }
+        });
+    }
 }
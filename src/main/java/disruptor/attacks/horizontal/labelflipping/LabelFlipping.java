@@ -1,6 +1,8 @@
 package disruptor.attacks.horizontal.labelflipping;
 
+import disruptor.attacks.ColumnarAttack;
 import disruptor.attacks.horizontal.HorizontalAttack;
+import disruptor.columnar.ColumnarDataset;
 import lombok.extern.slf4j.Slf4j;
 import weka.core.Instance;
 import weka.core.Instances;
@@ -10,9 +12,13 @@ import weka.core.Instances;
  * A → B
  * B → C
  * C → A
+ * <p/>
+ * The attack is capacity incremental: it flips exactly the first {@link #attackSize()} instances, each one independently
+ * of the capacity, thus the instances flipped with a capacity are a prefix of the ones flipped with a bigger capacity.
+ * The label flipping curves of the {@link disruptor.core.Disruptor} rely on this contract.
  */
 @Slf4j
-public class LabelFlipping extends HorizontalAttack {
+public class LabelFlipping extends HorizontalAttack implements ColumnarAttack {
 
     public LabelFlipping(Instances target) {
         super(target);
@@ -33,4 +39,15 @@ public class LabelFlipping extends HorizontalAttack {
 
         instance.setClassValue(newClassValue);
     }
+
+    @Override
+    public boolean supportsColumnar() {
+        return true;
+    }
+
+    @Override
+    public ColumnarDataset attack(ColumnarDataset target) {
+        int classValuesNumber = target.numClasses();
+        return flipClassColumn(target, classValue -> ( classValue + 1 ) % classValuesNumber);
+    }
 }
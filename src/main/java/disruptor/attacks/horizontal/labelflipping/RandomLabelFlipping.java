@@ -1,15 +1,23 @@
 package disruptor.attacks.horizontal.labelflipping;
 
+import disruptor.attacks.ColumnarAttack;
 import disruptor.attacks.horizontal.HorizontalAttack;
+import disruptor.columnar.ColumnarDataset;
 import weka.core.Attribute;
 import weka.core.Instance;
 import weka.core.Instances;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
-public class RandomLabelFlipping extends HorizontalAttack {
+/**
+ * Label flipping attack that replaces the class value with a random different one.
+ * <p/>
+ * The attack is capacity incremental: it flips exactly the first {@link #attackSize()} instances, each one independently
+ * of the capacity, thus the instances flipped with a capacity are a prefix of the ones flipped with a bigger capacity.
+ * The label flipping curves of the {@link disruptor.core.Disruptor} rely on this contract.
+ */
+public class RandomLabelFlipping extends HorizontalAttack implements ColumnarAttack {
 
     Attribute classAttribute;
 
@@ -29,6 +37,25 @@ public class RandomLabelFlipping extends HorizontalAttack {
         flippedInstance.setClassValue(flippedClass);
     }
 
+    @Override
+    public boolean supportsColumnar() {
+        return true;
+    }
+
+    @Override
+    public ColumnarDataset attack(ColumnarDataset target) {
+        int classValuesNumber = target.numClasses();
+        return flipClassColumn(target, currentClassValue -> {
+            // calculate a random class in the values range but different from the current class value
+            int newRandomClass = currentClassValue;
+            Random random = ThreadLocalRandom.current();
+            while (newRandomClass==currentClassValue){
+                newRandomClass = random.nextInt(classValuesNumber);
+            }
+            return newRandomClass;
+        });
+    }
+
     /**
      * Calculate a random double in the values range but different from the current class value
      * @param classAttribute class attribute used to fetch all the possible values
@@ -36,14 +63,14 @@ public class RandomLabelFlipping extends HorizontalAttack {
      * @return a random double in the classAttribute values range but different from the instance class value
      */
     private double newClassValue(Attribute classAttribute, Instance instance) {
-        ArrayList<Object> classValues = Collections.list(classAttribute.enumerateValues());
+        int classValuesNumber = classAttribute.numValues();
         double currentClassValue = instance.classValue();
 
         // calculate a random double in the values range but different from the current class value
         double newRandomClass = currentClassValue;
-        Random random = new Random();
+        Random random = ThreadLocalRandom.current();
         while (newRandomClass==currentClassValue){
-            newRandomClass = random.nextInt(classValues.size());
+            newRandomClass = random.nextInt(classValuesNumber);
         }
 
         return newRandomClass;
@@ -1,10 +1,15 @@
 package disruptor.attacks.vertical;
 
+import disruptor.attacks.ColumnarAttack;
+import disruptor.columnar.ColumnarDataset;
+import disruptor.statistics.FeatureStatistics;
 import weka.core.Attribute;
 import weka.core.Instance;
 import weka.core.Instances;
 
-public class MeanAttack extends VerticalAttack {
+import java.util.Arrays;
+
+public class MeanAttack extends VerticalAttack implements ColumnarAttack {
 
     public MeanAttack(Instances target) {
         super(target);
@@ -16,7 +21,21 @@ public class MeanAttack extends VerticalAttack {
 
     @Override
     protected void verticalDisrupt(Instance instanceToAttack, Attribute featureToAttack) {
-        double meanOrMode = getTarget().meanOrMode(featureToAttack);
+        double meanOrMode = getFeatureStatistics().meanOrMode(featureToAttack);
         instanceToAttack.setValue(featureToAttack, meanOrMode);
     }
+
+    @Override
+    public boolean supportsColumnar() {
+        return ColumnarDataset.areNumeric(perturbedAttributes());
+    }
+
+    @Override
+    public ColumnarDataset attack(ColumnarDataset target) {
+        int rows = attackSize();
+        FeatureStatistics featureStatistics = getFeatureStatistics();
+        return target.perturbNumericColumns(getReducedFeatureSelected(), (column, feature) ->
+                Arrays.fill(column, 0, rows, featureStatistics.meanOrMode(feature))
+        );
+    }
 }
@@ -1,17 +1,19 @@
 package disruptor.attacks.vertical;
 
 import disruptor.attacks.Attack;
-import disruptor.util.InstancesUtil;
+import disruptor.attacks.ColumnarAttack;
+import disruptor.columnar.ColumnarDataset;
+import disruptor.perturbeddataset.PerturbedView;
+import disruptor.statistics.ClassIndex;
+import disruptor.statistics.FeatureStatistics;
 import weka.core.Attribute;
 import weka.core.Instance;
 import weka.core.Instances;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.List;
 import java.util.stream.IntStream;
 
-public class MeanPerClassAttack extends Attack {
+public class MeanPerClassAttack extends Attack implements ColumnarAttack {
 
     public MeanPerClassAttack(Instances target) {
         super(target);
@@ -22,34 +24,63 @@ public class MeanPerClassAttack extends Attack {
     }
 
     @Override
-    public Instances attack() {
-        Instances perturbedInstances = new Instances(getTarget());
+    public boolean isCapacityIncremental() {
+        return true;
+    }
 
-        // create buckets of instances grouped by class value
-        HashMap<Object, Instances> bucketsMap = InstancesUtil.bucketsByClassInstances(perturbedInstances);
+    @Override
+    public boolean isFeaturesCapacityIncremental() {
+        return true;
+    }
+
+    @Override
+    public Instances attack() {
+        PerturbedView perturbedInstances = newPerturbedView();
+        FeatureStatistics featureStatistics = getFeatureStatistics();
+        ClassIndex classIndex = getClassIndex();
+        List<Attribute> reducedFeatureSelected = getReducedFeatureSelected();
 
         // Perform the attack only in the part of the target specified by the capacity
         IntStream.range(0, attackSize()).parallel().forEach(i -> {
-            Instance instanceToAttack = perturbedInstances.instance(i);
+            Instance instanceToAttack = perturbedInstances.writableInstance(i);
 
             // Calculate the next class value
-            double classValue = instanceToAttack.classValue();
-            double nextClassValueIndex = ( classValue + 1 ) % perturbedInstances.numClasses();
-            // Fetch the class obj to perform get from the bucket map
-            ArrayList<Object> classValuesList = Collections.list(perturbedInstances.classAttribute().enumerateValues());
-            Object nextClassValue = classValuesList.get((int) nextClassValueIndex);
-
-            Instances instancesPerClass = bucketsMap.get(nextClassValue);
+            int nextClassValueIndex = classIndex.nextClass( (int) instanceToAttack.classValue() );
 
             // Perform the attack only for the selected feature
-            for( Attribute feature : getReducedFeatureSelected() ){
+            for( Attribute feature : reducedFeatureSelected ){
                 // Select the mean or mode value of all the instances that have the next class value
-                double meanOrMode = instancesPerClass.meanOrMode(feature);
+                double meanOrMode = featureStatistics.meanOrMode(feature, nextClassValueIndex);
                 instanceToAttack.setValue(feature, meanOrMode);
             }
-
-            perturbedInstances.set(i, instanceToAttack);
         });
         return perturbedInstances;
     }
+
+    @Override
+    public boolean supportsColumnar() {
+        return ColumnarDataset.areNumeric(perturbedAttributes());
+    }
+
+    @Override
+    public ColumnarDataset attack(ColumnarDataset target) {
+        int rows = attackSize();
+        int numClasses = target.numClasses();
+        int[] classColumn = target.classColumn();
+        FeatureStatistics featureStatistics = getFeatureStatistics();
+        ClassIndex classIndex = getClassIndex();
+        return target.perturbNumericColumns(getReducedFeatureSelected(), (column, feature) -> {
+            // Mean or mode of the feature for each class
+            double[] meanOrModePerClass = new double[numClasses];
+            for (int c = 0; c < numClasses; c++) {
+                meanOrModePerClass[c] = featureStatistics.meanOrMode(feature, c);
+            }
+            for (int i = 0; i < rows; i++) {
+                // A missing class is the first class value, as (int) classValue() in the instances path
+                int classValue = classColumn[i] < 0 ? 0 : classColumn[i];
+                int nextClassValueIndex = classIndex.nextClass( classValue );
+                column[i] = meanOrModePerClass[nextClassValueIndex];
+            }
+        });
+    }
 }
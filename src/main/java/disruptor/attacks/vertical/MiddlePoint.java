@@ -1,12 +1,14 @@
 package disruptor.attacks.vertical;
 
+import disruptor.attacks.ColumnarAttack;
+import disruptor.columnar.ColumnarDataset;
 import lombok.Getter;
 import lombok.Setter;
 import weka.core.Attribute;
 import weka.core.Instance;
 import weka.core.Instances;
 
-public class MiddlePoint extends VerticalAttack {
+public class MiddlePoint extends VerticalAttack implements ColumnarAttack {
 
     /**
      * Multiplication factor used for moving the instances towards the middle point
@@ -33,15 +35,28 @@ public class MiddlePoint extends VerticalAttack {
         instanceToAttack.setValue(featureToAttack, newValue);
     }
 
+    @Override
+    public boolean supportsColumnar() {
+        return ColumnarDataset.areNumeric(perturbedAttributes());
+    }
+
+    @Override
+    public ColumnarDataset attack(ColumnarDataset target) {
+        int rows = attackSize();
+        double factor = getMultiplicationFactor();
+        return target.perturbNumericColumns(getReducedFeatureSelected(), (column, feature) -> {
+            double middlePoint = featureMiddlePoint(feature);
+            for (int i = 0; i < rows; i++) {
+                column[i] = factor * (middlePoint - column[i]) + column[i];
+            }
+        });
+    }
+
+    /**
+     * @param feature attribute of the target
+     * @return the mean of the values of the feature in the target, missing values excluded
+     */
     private double featureMiddlePoint(Attribute feature){
-        double sumValues = 0;
-        int instancesNumber = getTarget().size();
-        for (int i = 0; i< instancesNumber; i++){
-            Instance instance = getTarget().instance(i);
-            double featureValue = instance.value(feature);
-            // TODO verificare se il valore è null cosa viene messo in featureValue e nel caso non considerare i null
-            sumValues += featureValue;
-        }
-        return sumValues / instancesNumber;
+        return getFeatureStatistics().global(feature).getMean();
     }
 }
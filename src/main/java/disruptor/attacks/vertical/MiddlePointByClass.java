@@ -1,7 +1,11 @@
 package disruptor.attacks.vertical;
 
 import disruptor.attacks.Attack;
-import disruptor.util.InstancesUtil;
+import disruptor.attacks.ColumnarAttack;
+import disruptor.columnar.ColumnarDataset;
+import disruptor.perturbeddataset.PerturbedView;
+import disruptor.statistics.ClassIndex;
+import disruptor.statistics.FeatureStatistics;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -9,13 +13,11 @@ import weka.core.Attribute;
 import weka.core.Instance;
 import weka.core.Instances;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.List;
 import java.util.stream.IntStream;
 
 @Slf4j
-public class MiddlePointByClass extends Attack {
+public class MiddlePointByClass extends Attack implements ColumnarAttack {
 
     /**
      * Multiplication factor used for moving the instances towards the middle point
@@ -34,49 +36,76 @@ public class MiddlePointByClass extends Attack {
         super(target, capacity, featuresCapacity, knowledge);
     }
 
+    @Override
+    public boolean isCapacityIncremental() {
+        return true;
+    }
+
+    @Override
+    public boolean isFeaturesCapacityIncremental() {
+        return true;
+    }
+
     @Override
     public Instances attack() {
-        Instances perturbedInstances = new Instances(getTarget());
-        int numClasses = perturbedInstances.numClasses();
-        ArrayList<Object> classValuesList = Collections.list(perturbedInstances.classAttribute().enumerateValues());
+        PerturbedView perturbedInstances = newPerturbedView();
+        ClassIndex classIndex = getClassIndex();
+        FeatureStatistics featureStatistics = getFeatureStatistics();
+        List<Attribute> reducedFeatureSelected = getReducedFeatureSelected();
 
         // Perform the attack only in the part of the target specified by the capacity
         IntStream.range(0, attackSize()).parallel().forEach(i -> {
-            Instance instanceToAttack = perturbedInstances.instance(i);
+            Instance instanceToAttack = perturbedInstances.writableInstance(i);
 
             // Calculate the next class value
-            double classValue = instanceToAttack.classValue();
-            double nextClassValueIndex = ( classValue + 1 ) % numClasses;
-            // Fetch the class obj to perform get from the bucket map
-            Object nextClassValue = classValuesList.get((int) nextClassValueIndex);
+            int nextClassValueIndex = classIndex.nextClass( (int) instanceToAttack.classValue() );
 
             // Perform the attack only for the selected feature
-            for( Attribute feature : getReducedFeatureSelected() ){
+            for( Attribute feature : reducedFeatureSelected ){
                 double oldValue = instanceToAttack.value(feature);
-                double distanceFromMiddle = featureMiddlePoint(feature, nextClassValue) - oldValue;
+                double distanceFromMiddle = featureMiddlePoint(featureStatistics, feature, nextClassValueIndex) - oldValue;
                 double newValue = getMultiplicationFactor() * distanceFromMiddle + oldValue;
                 instanceToAttack.setValue(feature, newValue);
             }
-
-            perturbedInstances.set(i, instanceToAttack);
         });
         return perturbedInstances;
     }
 
-    private double featureMiddlePoint(Attribute feature, Object classValue){
+    @Override
+    public boolean supportsColumnar() {
+        return ColumnarDataset.areNumeric(perturbedAttributes());
+    }
 
-        // create buckets of instances grouped by class value
-        HashMap<Object, Instances> bucketsMap = InstancesUtil.bucketsByClassInstances(getTarget());
-        Instances instancesPerClass = bucketsMap.get(classValue);
+    @Override
+    public ColumnarDataset attack(ColumnarDataset target) {
+        int rows = attackSize();
+        int numClasses = target.numClasses();
+        int[] classColumn = target.classColumn();
+        double factor = getMultiplicationFactor();
+        FeatureStatistics featureStatistics = getFeatureStatistics();
+        ClassIndex classIndex = getClassIndex();
+        return target.perturbNumericColumns(getReducedFeatureSelected(), (column, feature) -> {
+            // Middle point of the feature for each class
+            double[] middlePointPerClass = new double[numClasses];
+            for (int c = 0; c < numClasses; c++) {
+                middlePointPerClass[c] = featureMiddlePoint(featureStatistics, feature, c);
+            }
+            for (int i = 0; i < rows; i++) {
+                // A missing class is the first class value, as (int) classValue() in the instances path
+                int classValue = classColumn[i] < 0 ? 0 : classColumn[i];
+                int nextClassValueIndex = classIndex.nextClass( classValue );
+                column[i] = factor * (middlePointPerClass[nextClassValueIndex] - column[i]) + column[i];
+            }
+        });
+    }
 
-        double sumValues = 0;
-        int instancesNumber = instancesPerClass.size();
-        for (int i = 0; i< instancesNumber; i++){
-            Instance instance = instancesPerClass.instance(i);
-            double featureValue = instance.value(feature);
-            // TODO verificare se il valore è null cosa viene messo in featureValue e nel caso non considerare i null
-            sumValues += featureValue;
-        }
-        return sumValues / instancesNumber;
+    /**
+     * @param featureStatistics statistics of the target
+     * @param feature attribute of the target
+     * @param classValue index of the class value
+     * @return the mean of the values of the feature in the instances with the specified class, missing values excluded
+     */
+    private double featureMiddlePoint(FeatureStatistics featureStatistics, Attribute feature, int classValue){
+        return featureStatistics.perClass(feature, classValue).getMean();
     }
 }
@@ -1,10 +1,14 @@
 package disruptor.attacks.vertical;
 
+import disruptor.attacks.ColumnarAttack;
+import disruptor.columnar.ColumnarDataset;
 import weka.core.Attribute;
 import weka.core.Instance;
 import weka.core.Instances;
 
-public class NullAttack extends VerticalAttack {
+import java.util.Arrays;
+
+public class NullAttack extends VerticalAttack implements ColumnarAttack {
 
     public NullAttack(Instances target) {
         super(target);
@@ -19,4 +23,16 @@ public class NullAttack extends VerticalAttack {
         instanceToAttack.setValue(featureToAttack, 0);
     }
 
+    @Override
+    public boolean supportsColumnar() {
+        return ColumnarDataset.areNumeric(perturbedAttributes());
+    }
+
+    @Override
+    public ColumnarDataset attack(ColumnarDataset target) {
+        int rows = attackSize();
+        return target.perturbNumericColumns(getReducedFeatureSelected(), (column, feature) ->
+                Arrays.fill(column, 0, rows, 0)
+        );
+    }
 }
@@ -1,7 +1,8 @@
 package disruptor.attacks.vertical;
 
 import disruptor.attacks.Attack;
-import disruptor.util.InstancesUtil;
+import disruptor.perturbeddataset.PerturbedView;
+import disruptor.statistics.FeatureStatistics;
 import weka.core.Attribute;
 import weka.core.Instance;
 import weka.core.Instances;
@@ -21,30 +22,32 @@ public class OutOfRanging extends Attack {
     private final Random random = new Random();
 
     @Override
-    public Instances attack() {
-        Instances perturbedInstances = new Instances(getTarget());
+    public boolean isCapacityIncremental() {
+        return true;
+    }
 
-        // create buckets of instances grouped by class value
-        HashMap<Object, Instances> bucketsMap = InstancesUtil.bucketsByClassInstances(perturbedInstances);
+    @Override
+    public boolean isFeaturesCapacityIncremental() {
+        return true;
+    }
+
+    @Override
+    public Instances attack() {
+        PerturbedView perturbedInstances = newPerturbedView();
+        FeatureStatistics featureStatistics = getFeatureStatistics();
+        List<Attribute> reducedFeatureSelected = getReducedFeatureSelected();
 
         // Perform the attack only in the part of the target specified by the capacity
         IntStream.range(0, attackSize()).parallel().forEach(i -> {
-            Instance instanceToAttack = perturbedInstances.instance(i);
+            Instance instanceToAttack = perturbedInstances.writableInstance(i);
 
-            // Calculate the next class value
-            double classValueIndex = instanceToAttack.classValue();
-            // Fetch the class obj to perform get from the bucket map
-            ArrayList<Object> classValuesList = Collections.list(perturbedInstances.classAttribute().enumerateValues());
-            Object classValue = classValuesList.get((int) classValueIndex);
-
-            Instances instancesPerClass = bucketsMap.get(classValue);
+            int classValueIndex = (int) instanceToAttack.classValue();
 
             // Perform the attack only for the selected feature
-            for( Attribute feature : getReducedFeatureSelected() ){
+            for( Attribute feature : reducedFeatureSelected ){
 
-                //Create a set that contains the unique values assumed by the feature with the selected class
-                Set<Double> range = new HashSet<>();
-                Collections.list( instancesPerClass.enumerateInstances()).forEach( in -> range.add(in.value(feature)));
+                // The unique values assumed by the feature with the same class
+                Set<Double> range = featureStatistics.perClass(feature, classValueIndex).getDistinctValues();
 
                 // Get a random value out of the range of the same class
                 double randomValueOutOfRange;
@@ -55,8 +58,6 @@ public class OutOfRanging extends Attack {
                 instanceToAttack.setValue(feature, randomValueOutOfRange);
 
             }
-
-            perturbedInstances.set(i, instanceToAttack);
         });
         return perturbedInstances;
     }
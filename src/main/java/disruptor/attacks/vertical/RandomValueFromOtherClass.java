@@ -1,14 +1,12 @@
 package disruptor.attacks.vertical;
 
 import disruptor.attacks.Attack;
-import disruptor.util.InstancesUtil;
+import disruptor.perturbeddataset.PerturbedView;
+import disruptor.statistics.ClassIndex;
 import weka.core.Attribute;
 import weka.core.Instance;
 import weka.core.Instances;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Random;
 import java.util.stream.IntStream;
 
@@ -24,37 +22,41 @@ public class RandomValueFromOtherClass extends Attack {
 
     private final Random random = new Random();
 
+    @Override
+    public boolean isCapacityIncremental() {
+        return true;
+    }
+
+    @Override
+    public boolean isFeaturesCapacityIncremental() {
+        return true;
+    }
+
     @Override
     public Instances attack() {
-        Instances perturbedInstances = new Instances(getTarget());
+        PerturbedView perturbedInstances = newPerturbedView();
 
-        // create buckets of instances grouped by class value
-        HashMap<Object, Instances> bucketsMap = InstancesUtil.bucketsByClassInstances(perturbedInstances);
+        // instances of the target grouped by class value
+        Instances target = getTarget();
+        ClassIndex classIndex = getClassIndex();
 
         // Perform the attack only in the part of the target specified by the capacity
         IntStream.range(0, attackSize()).parallel().forEach(i -> {
-            Instance instanceToAttack = perturbedInstances.instance(i);
+            Instance instanceToAttack = perturbedInstances.writableInstance(i);
 
             // Calculate the next class value
-            double classValue = instanceToAttack.classValue();
-            double nextClassValueIndex = ( classValue + 1 ) % perturbedInstances.numClasses();
-            // Fetch the class obj to perform get from the bucket map
-            ArrayList<Object> classValuesList = Collections.list(perturbedInstances.classAttribute().enumerateValues());
-            Object nextClassValue = classValuesList.get((int) nextClassValueIndex);
-
-            Instances instancesPerClass = bucketsMap.get(nextClassValue);
-            int instancesLength = instancesPerClass.size();
+            int nextClassValueIndex = classIndex.nextClass( (int) instanceToAttack.classValue() );
+            int[] instancesPerClass = classIndex.rows(nextClassValueIndex);
+            int instancesLength = instancesPerClass.length;
 
             // Perform the attack only for the selected feature
             for( Attribute feature : getReducedFeatureSelected() ){
 
-                Instance randomInstanceFromOtherClass = instancesPerClass.get( random.nextInt(instancesLength) );
+                Instance randomInstanceFromOtherClass = target.instance( instancesPerClass[random.nextInt(instancesLength)] );
                 double randomValueFromOtherClass = randomInstanceFromOtherClass.value(feature);
                 instanceToAttack.setValue(feature, randomValueFromOtherClass);
 
             }
-
-            perturbedInstances.set(i, instanceToAttack);
         });
         return perturbedInstances;
     }
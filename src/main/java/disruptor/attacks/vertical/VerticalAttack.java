@@ -1,10 +1,12 @@
 package disruptor.attacks.vertical;
 
 import disruptor.attacks.Attack;
+import disruptor.perturbeddataset.PerturbedView;
 import weka.core.Attribute;
 import weka.core.Instance;
 import weka.core.Instances;
 
+import java.util.List;
 import java.util.stream.IntStream;
 
 public abstract class VerticalAttack extends Attack {
@@ -16,20 +18,29 @@ public abstract class VerticalAttack extends Attack {
         super(target, capacity, featuresCapacity, knowledge);
     }
 
+    @Override
+    public boolean isCapacityIncremental() {
+        return true;
+    }
+
+    @Override
+    public boolean isFeaturesCapacityIncremental() {
+        return true;
+    }
+
     @Override
     public Instances attack() {
-        Instances perturbedInstances = new Instances(getTarget());
+        PerturbedView perturbedInstances = newPerturbedView();
+        List<Attribute> reducedFeatureSelected = getReducedFeatureSelected();
 
         // Perform the attack only in the part of the target specified by the capacity
         IntStream.range(0, attackSize()).parallel().forEach(i -> {
-            Instance instanceToAttack = perturbedInstances.instance(i);
+            Instance instanceToAttack = perturbedInstances.writableInstance(i);
 
             // Perform the attack only for the selected feature
-            for( Attribute feature : getReducedFeatureSelected() ){
+            for( Attribute feature : reducedFeatureSelected ){
                 verticalDisrupt(instanceToAttack, feature);
             }
-
-            perturbedInstances.set(i, instanceToAttack);
         });
         return perturbedInstances;
     }
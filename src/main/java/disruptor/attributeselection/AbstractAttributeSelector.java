@@ -1,6 +1,7 @@
 package disruptor.attributeselection;
 
-import disruptor.filters.ApplyFilter;
+import disruptor.util.FingerprintUtil;
+import disruptor.util.InstancesView;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -23,6 +24,18 @@ public abstract class AbstractAttributeSelector {
     private String name = this.getClass().getSimpleName();
     @Getter @Setter
     private double knowledge = 1;
+    /**
+     * @param seed seed used to shuffle the instances of the copies of this selector, before the knowledge is applied
+     * @return seed used to shuffle the instances of the copies of this selector, before the knowledge is applied
+     */
+    @Getter @Setter
+    private int seed = 0;
+    /**
+     * @param rankingCache cache of the rankings, shared by the copies of this selector. If null the ranking is always computed
+     * @return cache of the rankings, shared by the copies of this selector. If null the ranking is always computed
+     */
+    @Getter @Setter
+    private RankingCache rankingCache;
 
     protected AbstractAttributeSelector(Instances instances){
         this.targetInstances = new Instances(instances);
@@ -37,13 +50,16 @@ public abstract class AbstractAttributeSelector {
      * @param selectorToCopy object to copy
      */
     protected AbstractAttributeSelector(AbstractAttributeSelector selectorToCopy) throws Exception {
-        this.targetInstances = ApplyFilter.randomize(selectorToCopy.getTargetInstances(), 0);
+        // Shuffled as the Randomize filter, sharing the instances of the selector to copy
+        this.targetInstances = new InstancesView( selectorToCopy.getTargetInstances() ).randomize( selectorToCopy.getSeed() ).sharedInstances();
         this.featureRanksMap = new HashMap<>( selectorToCopy.getFeatureRanksMap() );
         if(this.rankedAttributes != null){
             this.rankedAttributes = selectorToCopy.getRankedAttributes().clone();
         }
         this.name = selectorToCopy.getName();
         this.knowledge = selectorToCopy.getKnowledge();
+        this.seed = selectorToCopy.getSeed();
+        this.rankingCache = selectorToCopy.rankingCache;
     }
 
     /**
@@ -56,11 +72,32 @@ public abstract class AbstractAttributeSelector {
 
 
     /**
-     * Start the feature selection
+     * A selector is deterministic if its ranking depends only on the target instances, the knowledge and the seed.
+     * Only the rankings of the deterministic selectors are cached
+     * @return true if the selector is deterministic
+     */
+    protected boolean isDeterministic() {
+        return true;
+    }
+
+    /**
+     * Start the feature selection. The ranking is computed only if it is not already in the cache
      */
     public void eval() {
+        RankingCache cache = rankingCache;
+        String rankingKey = cache != null && isDeterministic() ? RankingCache.key(FingerprintUtil.fingerprint(targetInstances), this) : null;
         reduceInstancesByKnowledge();
-        double[][] attrRanks = selectAttributes();
+
+        double[][] attrRanks = rankingKey != null ? cache.get(rankingKey) : null;
+        if (attrRanks == null) {
+            attrRanks = selectAttributes();
+            if (rankingKey != null) {
+                cache.put(rankingKey, attrRanks);
+            }
+        }
+        else {
+            log.debug("{} {} ranking found in the cache", getName(), getKnowledge());
+        }
         log.info("{} {} Selected features: {}", getName(), getKnowledge(), Arrays.deepToString(attrRanks));
         populateFields(attrRanks);
     }
@@ -72,9 +109,8 @@ public abstract class AbstractAttributeSelector {
     protected void reduceInstancesByKnowledge() {
         int numInstances = targetInstances.numInstances();
         int numInstancesToConsider = (int) (numInstances * knowledge);
-        int numInstancesToDelete = numInstances - numInstancesToConsider;
-        for (int i=0; i<numInstancesToDelete; i++){
-            targetInstances.delete(numInstances-i-1);
+        if (numInstancesToConsider < numInstances) {
+            targetInstances = new InstancesView(targetInstances).head(numInstancesToConsider).sharedInstances();
         }
     }
 
@@ -22,6 +22,14 @@ public class RandomSelector extends AbstractAttributeSelector{
         return new RandomSelector(this);
     }
 
+    /**
+     * @return false, every ranking is a new random order of the attributes
+     */
+    @Override
+    protected boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     protected double[][] selectAttributes() {
         Instances instances = getTargetInstances();
@@ -0,0 +1,161 @@
+package disruptor.attributeselection;
+
+import disruptor.util.ExceptionUtil;
+import disruptor.util.FingerprintUtil;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the feature rankings computed by the {@link AbstractAttributeSelector}s.
+ * <p/>
+ * A ranking is identified by the fingerprint of the dataset given to the selector, the class of the selector, the
+ * knowledge and the seed, thus the same ranking, es: the one of the same dataset in another execution or the one
+ * computed by an attack on its unchanged target, is computed only once. If a folder is specified, every ranking is
+ * also written in the folder, in a text file with a line "index,merit" for each ranked attribute, and reused by the
+ * following executions.
+ * <p/>
+ * The cache is given to the selectors with {@link AbstractAttributeSelector#setRankingCache(RankingCache)}, and it is
+ * shared by their copies. The cache can be used by different threads at the same time.
+ */
+@Slf4j
+public class RankingCache {
+
+    public static final String FILE_EXTENSION = ".ranking";
+
+    /**
+     * @return folder of the rankings, null if they are kept only in memory
+     */
+    @Getter
+    private final File folder;
+
+    private final ConcurrentHashMap<String, double[][]> rankings = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    /**
+     * Create a cache that keeps the rankings only in memory
+     */
+    public RankingCache() {
+        this.folder = null;
+    }
+
+    /**
+     * @param folder folder of the rankings, created if needed
+     * @throws IOException if problems creating the folder
+     */
+    public RankingCache(File folder) throws IOException {
+        this.folder = folder;
+        Files.createDirectories(folder.toPath());
+    }
+
+    /**
+     * @param datasetFingerprint fingerprint of the dataset given to the selector, see {@link FingerprintUtil}
+     * @param selector selector computing the ranking
+     * @return the key of the ranking of the selector, with its knowledge and seed
+     */
+    public static String key(String datasetFingerprint, AbstractAttributeSelector selector) {
+        return FingerprintUtil.fingerprint( datasetFingerprint + " " + selector.getClass().getName() + " " + selector.getKnowledge() + " " + selector.getSeed() );
+    }
+
+    /**
+     * @param key key of the ranking, see {@link #key(String, AbstractAttributeSelector)}
+     * @return a copy of the ranking, null if it is not in the cache
+     */
+    public double[][] get(String key) {
+        double[][] ranking = rankings.get(key);
+        if (ranking == null) {
+            ranking = read(key);
+            if (ranking != null) {
+                rankings.putIfAbsent(key, ranking);
+            }
+        }
+        if (ranking == null) {
+            return null;
+        }
+        hits.incrementAndGet();
+        return copy(ranking);
+    }
+
+    /**
+     * @param key key of the ranking, see {@link #key(String, AbstractAttributeSelector)}
+     * @param ranking ranked attribute indexes and their merits. A copy is stored
+     */
+    public void put(String key, double[][] ranking) {
+        double[][] rankingCopy = copy(ranking);
+        if (rankings.putIfAbsent(key, rankingCopy) == null) {
+            write(key, rankingCopy);
+        }
+    }
+
+    /**
+     * @return number of rankings found in the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    private double[][] read(String key) {
+        File rankingFile = rankingFile(key);
+        if (rankingFile == null || !rankingFile.isFile()) {
+            return null;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(rankingFile.toPath(), StandardCharsets.UTF_8)) {
+            List<double[]> ranking = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] rank = line.split(",");
+                ranking.add( new double[]{ Double.parseDouble(rank[0]), Double.parseDouble(rank[1]) } );
+            }
+            return ranking.toArray(new double[0][]);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Problem reading the cached ranking {}, the ranking is computed again", rankingFile.getPath());
+            ExceptionUtil.logException(e, log);
+            return null;
+        }
+    }
+
+    private void write(String key, double[][] ranking) {
+        File rankingFile = rankingFile(key);
+        if (rankingFile == null) {
+            return;
+        }
+        // Written in a temporary file, thus an execution never reads an incomplete ranking
+        File temporaryFile = new File(folder, key + FILE_EXTENSION + ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temporaryFile.toPath(), StandardCharsets.UTF_8)) {
+                for (double[] rank : ranking) {
+                    writer.write(rank[0] + "," + rank[1]);
+                    writer.newLine();
+                }
+            }
+            Files.move(temporaryFile.toPath(), rankingFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Problem saving the ranking {} in the cache", rankingFile.getPath());
+            ExceptionUtil.logException(e, log);
+        }
+    }
+
+    private File rankingFile(String key) {
+        return folder == null ? null : new File(folder, key + FILE_EXTENSION);
+    }
+
+    private static double[][] copy(double[][] ranking) {
+        double[][] rankingCopy = new double[ranking.length][];
+        for (int i = 0; i < ranking.length; i++) {
+            rankingCopy[i] = ranking[i].clone();
+        }
+        return rankingCopy;
+    }
+}
@@ -0,0 +1,67 @@
+package disruptor.clustering;
+
+import lombok.Getter;
+import weka.clusterers.SimpleKMeans;
+import weka.core.Instances;
+
+/**
+ * Result of the clustering of a dataset: the centroids of the clusters and the cluster of every instance.
+ * <p/>
+ * The clustering is read only, thus it can be shared by all the attacks with the same target.
+ */
+public class Clustering {
+
+    /**
+     * @return the centroids of the clusters, with the attributes of the clustered dataset
+     */
+    @Getter
+    private final Instances centroids;
+
+    /**
+     * assignments[i] is the cluster of the instance in position i
+     */
+    private final int[] assignments;
+
+    /**
+     * @param centroids centroids of the clusters, with the attributes of the clustered dataset
+     * @param assignments cluster of every instance of the dataset, in the order of the dataset
+     */
+    public Clustering(Instances centroids, int[] assignments) {
+        this.centroids = centroids;
+        this.assignments = assignments;
+    }
+
+    /**
+     * Cluster the dataset with the Weka SimpleKMeans, with its default options
+     * @param dataset dataset to cluster. If the class is set, the class attribute is clustered as the others
+     * @param clustersNumber number of clusters
+     * @return the clustering of the dataset
+     * @throws Exception if problems building the clusterer
+     */
+    public static Clustering simpleKMeans(Instances dataset, int clustersNumber) throws Exception {
+        Instances instancesWithoutClass = new Instances(dataset);
+        instancesWithoutClass.setClassIndex(-1);
+
+        SimpleKMeans simpleKMeans = new SimpleKMeans();
+        simpleKMeans.setNumClusters(clustersNumber);
+        // The clusters of the instances are the ones of the last iteration, without classifying them again
+        simpleKMeans.setPreserveInstancesOrder(true);
+        simpleKMeans.buildClusterer(instancesWithoutClass);
+        return new Clustering(simpleKMeans.getClusterCentroids(), simpleKMeans.getAssignments());
+    }
+
+    /**
+     * @param index position of the instance in the clustered dataset
+     * @return the cluster of the instance
+     */
+    public int cluster(int index) {
+        return assignments[index];
+    }
+
+    /**
+     * @return number of clusters
+     */
+    public int numClusters() {
+        return centroids.numInstances();
+    }
+}
@@ -0,0 +1,71 @@
+package disruptor.clustering;
+
+import lombok.extern.slf4j.Slf4j;
+import weka.core.Instances;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the clusterings of the training sets, so that the cells of the capacity and features capacity grid of an
+ * attack reuse one clustering of their target instead of clustering it again.
+ * <p/>
+ * A clustering is identified by the dataset instance, not by its content, and by the number of clusters. The datasets
+ * are weakly referenced: the clusterings of a training set are discarded with it.
+ * <p/>
+ * The cache can be used by different threads at the same time: only the first request of a clustering computes it, the
+ * others wait for it.
+ */
+@Slf4j
+public class ClusteringCache {
+
+    private final Map<Instances, ConcurrentHashMap<Integer, FutureTask<Clustering>>> clusterings = new WeakHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    /**
+     * @param dataset clustered dataset
+     * @param clustersNumber number of clusters
+     * @param clusterer computes the clustering if it is not in the cache
+     * @return the clustering of the dataset
+     * @throws Exception if problems computing the clustering
+     */
+    public Clustering get(Instances dataset, int clustersNumber, Callable<Clustering> clusterer) throws Exception {
+        ConcurrentHashMap<Integer, FutureTask<Clustering>> datasetClusterings;
+        // Instances does not override equals and hashCode, thus the datasets are compared by identity
+        synchronized (clusterings) {
+            datasetClusterings = clusterings.computeIfAbsent(dataset, key -> new ConcurrentHashMap<>());
+        }
+
+        FutureTask<Clustering> clustering = new FutureTask<>(clusterer);
+        FutureTask<Clustering> storedClustering = datasetClusterings.putIfAbsent(clustersNumber, clustering);
+        if (storedClustering == null) {
+            log.debug("Clustering {} instances in {} clusters", dataset.numInstances(), clustersNumber);
+            clustering.run();
+            storedClustering = clustering;
+        }
+        else {
+            hits.incrementAndGet();
+        }
+        try {
+            return storedClustering.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return number of clusterings found in the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+}
@@ -0,0 +1,301 @@
+package disruptor.clustering;
+
+import lombok.Getter;
+import lombok.Setter;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.Utils;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Mini-batch k-means for the datasets with many instances, where the Weka SimpleKMeans is too slow because every
+ * iteration assigns all the instances.
+ * <p/>
+ * The instances are copied once in primitive arrays: the numeric attributes normalized between 0 and 1, as the Weka
+ * EuclideanDistance does, and the nominal attributes one-hot encoded, scaled so that two different values have
+ * distance 1. The missing values are replaced by the mean or the mode of the attribute.
+ * <p/>
+ * The initial centers are chosen as the k-means++ does. Every iteration moves the centers towards a random batch of
+ * instances, each center with a learning rate that decreases with the number of instances it has already seen. At the
+ * end all the instances are assigned to their nearest center in parallel, and the centroids are computed from the
+ * assigned instances: the mean of the numeric attributes and the mode of the nominal ones, as the SimpleKMeans does. A
+ * center without instances keeps its last position.
+ */
+public class MiniBatchKMeans {
+
+    /**
+     * Scale of the one-hot columns of a nominal attribute
+     */
+    private static final double ONE_HOT_VALUE = Math.sqrt(0.5);
+
+    /**
+     * @param numClusters number of clusters
+     * @return number of clusters
+     */
+    @Getter @Setter
+    private int numClusters = 4;
+
+    /**
+     * @param batchSize number of instances of every iteration
+     * @return number of instances of every iteration
+     */
+    @Getter @Setter
+    private int batchSize = 1024;
+
+    /**
+     * @param maxIterations maximum number of iterations
+     * @return maximum number of iterations
+     */
+    @Getter @Setter
+    private int maxIterations = 100;
+
+    /**
+     * @param tolerance the iterations stop when the centers move less than the tolerance, as squared distance
+     * @return the squared distance under which the centers are considered stable
+     */
+    @Getter @Setter
+    private double tolerance = 1e-8;
+
+    /**
+     * @param seed seed of the initial centers and of the batches
+     * @return seed of the initial centers and of the batches
+     */
+    @Getter @Setter
+    private long seed = 10;
+
+    /**
+     * Cluster the dataset. All the attributes are clustered, the class too if it is set
+     * @param dataset dataset to cluster
+     * @return the clustering of the dataset. As the ones of the SimpleKMeans, the centroids have no class attribute
+     * @throws IllegalArgumentException if the dataset is empty or contains attributes neither numeric nor nominal
+     */
+    public Clustering cluster(Instances dataset) {
+        if (dataset.numInstances() == 0) {
+            throw new IllegalArgumentException("Cannot cluster an empty dataset");
+        }
+        Encoding encoding = new Encoding(dataset);
+        double[][] data = encoding.encode(dataset);
+        int numInstances = data.length;
+        int clusters = Math.min(numClusters, numInstances);
+        Random random = new Random(seed);
+
+        double[][] centers = initialCenters(data, clusters, random);
+
+        long[] seen = new long[clusters];
+        int batch = Math.min(batchSize, numInstances);
+        int[] batchRows = new int[batch];
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            for (int b = 0; b < batch; b++) {
+                batchRows[b] = random.nextInt(numInstances);
+            }
+            // The batch is assigned in parallel with the centers of the previous iteration, then the centers are moved in order
+            int[] batchClusters = IntStream.range(0, batch).parallel().map( b -> nearest(centers, data[batchRows[b]]) ).toArray();
+            double[][] previousCenters = new double[clusters][];
+            for (int c = 0; c < clusters; c++) {
+                previousCenters[c] = centers[c].clone();
+            }
+            for (int b = 0; b < batch; b++) {
+                int c = batchClusters[b];
+                double[] center = centers[c];
+                double[] row = data[batchRows[b]];
+                double learningRate = 1.0 / ++seen[c];
+                for (int d = 0; d < center.length; d++) {
+                    center[d] += learningRate * (row[d] - center[d]);
+                }
+            }
+            double shift = 0;
+            for (int c = 0; c < clusters; c++) {
+                shift = Math.max(shift, squaredDistance(previousCenters[c], centers[c]));
+            }
+            if (shift < tolerance) {
+                break;
+            }
+        }
+
+        int[] assignments = IntStream.range(0, numInstances).parallel().map( i -> nearest(centers, data[i]) ).toArray();
+        return new Clustering( encoding.centroids(dataset, data, assignments, centers), assignments );
+    }
+
+    /**
+     * Choose the initial centers as the k-means++ does: the first one is a random instance, every other one is an
+     * instance chosen with probability proportional to its squared distance from the nearest center already chosen,
+     * thus two centers rarely start in the same cluster
+     */
+    private static double[][] initialCenters(double[][] data, int clusters, Random random) {
+        int numInstances = data.length;
+        double[][] centers = new double[clusters][];
+        centers[0] = data[random.nextInt(numInstances)].clone();
+        double[] distances = new double[numInstances];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        for (int c = 1; c < clusters; c++) {
+            double[] lastCenter = centers[c-1];
+            IntStream.range(0, numInstances).parallel().forEach( i -> distances[i] = Math.min(distances[i], squaredDistance(lastCenter, data[i])) );
+            double total = 0;
+            for (double distance : distances) {
+                total += distance;
+            }
+            int chosen;
+            if (total > 0) {
+                double threshold = random.nextDouble() * total;
+                chosen = 0;
+                double cumulative = distances[0];
+                // The instances already chosen have distance 0, thus they are never chosen again
+                while (cumulative <= threshold && chosen < numInstances - 1) {
+                    cumulative += distances[++chosen];
+                }
+                while (distances[chosen] == 0) {
+                    chosen--;
+                }
+            }
+            else {
+                // All the instances are equal to the centers already chosen
+                chosen = random.nextInt(numInstances);
+            }
+            centers[c] = data[chosen].clone();
+        }
+        return centers;
+    }
+
+    private static int nearest(double[][] centers, double[] row) {
+        int nearest = 0;
+        double nearestDistance = Double.POSITIVE_INFINITY;
+        for (int c = 0; c < centers.length; c++) {
+            double distance = squaredDistance(centers[c], row);
+            if (distance < nearestDistance) {
+                nearest = c;
+                nearestDistance = distance;
+            }
+        }
+        return nearest;
+    }
+
+    private static double squaredDistance(double[] first, double[] second) {
+        double distance = 0;
+        for (int d = 0; d < first.length; d++) {
+            double difference = first[d] - second[d];
+            distance += difference * difference;
+        }
+        return distance;
+    }
+
+    /**
+     * Columns of the attributes in the primitive arrays
+     */
+    private static class Encoding {
+
+        /**
+         * column[a] is the first column of the attribute a
+         */
+        private final int[] column;
+
+        private final double[] minimums;
+
+        private final double[] ranges;
+
+        /**
+         * Mean of the numeric attributes and mode of the nominal ones, used for the missing values
+         */
+        private final double[] meansOrModes;
+
+        private final int numColumns;
+
+        private Encoding(Instances dataset) {
+            int numAttributes = dataset.numAttributes();
+            column = new int[numAttributes];
+            minimums = new double[numAttributes];
+            ranges = new double[numAttributes];
+            meansOrModes = new double[numAttributes];
+            int columns = 0;
+            for (int a = 0; a < numAttributes; a++) {
+                Attribute attribute = dataset.attribute(a);
+                column[a] = columns;
+                if (attribute.isNumeric()) {
+                    double[] values = dataset.attributeToDoubleArray(a);
+                    double minimum = Double.POSITIVE_INFINITY;
+                    double maximum = Double.NEGATIVE_INFINITY;
+                    for (double value : values) {
+                        if (!Double.isNaN(value)) {
+                            minimum = Math.min(minimum, value);
+                            maximum = Math.max(maximum, value);
+                        }
+                    }
+                    minimums[a] = minimum <= maximum ? minimum : 0;
+                    ranges[a] = minimum <= maximum ? maximum - minimum : 0;
+                    columns++;
+                }
+                else if (attribute.isNominal()) {
+                    columns += attribute.numValues();
+                }
+                else {
+                    throw new IllegalArgumentException("Cannot cluster the attribute " + attribute.name() + ": it is neither numeric nor nominal");
+                }
+                meansOrModes[a] = dataset.meanOrMode(a);
+            }
+            numColumns = columns;
+        }
+
+        private double[][] encode(Instances dataset) {
+            double[][] data = new double[dataset.numInstances()][];
+            IntStream.range(0, data.length).parallel().forEach( i -> data[i] = encode(dataset, dataset.instance(i)) );
+            return data;
+        }
+
+        private double[] encode(Instances dataset, Instance instance) {
+            double[] row = new double[numColumns];
+            for (int a = 0; a < column.length; a++) {
+                double value = instance.isMissing(a) ? meansOrModes[a] : instance.value(a);
+                if (dataset.attribute(a).isNumeric()) {
+                    row[column[a]] = ranges[a] > 0 ? (value - minimums[a]) / ranges[a] : 0;
+                }
+                else if (!Double.isNaN(value)) {
+                    row[column[a] + (int) value] = ONE_HOT_VALUE;
+                }
+            }
+            return row;
+        }
+
+        /**
+         * @return the centroids of the clusters in the attributes of the dataset, with the mean of the numeric
+         * attributes and the mode of the nominal ones of the assigned instances
+         */
+        private Instances centroids(Instances dataset, double[][] data, int[] assignments, double[][] centers) {
+            int clusters = centers.length;
+            double[][] sums = new double[clusters][numColumns];
+            int[] sizes = new int[clusters];
+            for (int i = 0; i < data.length; i++) {
+                double[] sum = sums[assignments[i]];
+                double[] row = data[i];
+                for (int d = 0; d < numColumns; d++) {
+                    sum[d] += row[d];
+                }
+                sizes[assignments[i]]++;
+            }
+
+            Instances centroids = new Instances(dataset, clusters);
+            centroids.setClassIndex(-1);
+            for (int c = 0; c < clusters; c++) {
+                double[] encodedCentroid = sizes[c] > 0 ? sums[c] : centers[c];
+                double size = sizes[c] > 0 ? sizes[c] : 1;
+                double[] values = new double[column.length];
+                for (int a = 0; a < column.length; a++) {
+                    Attribute attribute = dataset.attribute(a);
+                    if (attribute.isNumeric()) {
+                        values[a] = minimums[a] + encodedCentroid[column[a]] / size * ranges[a];
+                    }
+                    else {
+                        double[] counts = new double[attribute.numValues()];
+                        System.arraycopy(encodedCentroid, column[a], counts, 0, counts.length);
+                        values[a] = Utils.maxIndex(counts);
+                    }
+                }
+                centroids.add( new DenseInstance(1, values) );
+            }
+            return centroids;
+        }
+    }
+}
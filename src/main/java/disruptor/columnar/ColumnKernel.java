@@ -0,0 +1,17 @@
+package disruptor.columnar;
+
+import weka.core.Attribute;
+
+/**
+ * Perturbation of all the values of a single attribute of a {@link ColumnarDataset}
+ */
+@FunctionalInterface
+public interface ColumnKernel {
+
+    /**
+     * Perturb the values of the attribute
+     * @param column values of the attribute, owned by the perturbed dataset
+     * @param attribute attribute to perturb
+     */
+    void perturb(double[] column, Attribute attribute);
+}
@@ -0,0 +1,296 @@
+package disruptor.columnar;
+
+import lombok.Getter;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+import weka.core.Utils;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Columnar representation of a dataset with primitive arrays.
+ * <p/>
+ * Every attribute is stored in its own array: the nominal attributes as int codes (the index of the value, -1 if
+ * missing), the others as double values (NaN if missing). The class column is stored separately and the class must be
+ * nominal.
+ * <p/>
+ * The columns are copy-on-write: a {@link #copy()} shares all the columns with the original dataset, and a column is
+ * duplicated only when it is requested for writing. The arrays returned by the read methods MUST NOT be modified.
+ * <p/>
+ * Use {@link #fromInstances(Instances)} and {@link #toInstances()} to convert the dataset only at the boundaries
+ * where Weka objects are needed, such as exporting or training a classifier.
+ */
+public class ColumnarDataset {
+
+    /**
+     * @return dataset without instances that describes the attributes of this dataset
+     */
+    @Getter
+    private final Instances header;
+
+    /**
+     * @return number of rows of the dataset
+     */
+    @Getter
+    private final int numRows;
+
+    /**
+     * numericColumns[a] contains the values of the non-nominal attribute with index a. Null for nominal attributes
+     */
+    private final double[][] numericColumns;
+
+    /**
+     * nominalColumns[a] contains the codes of the nominal attribute with index a. Null for non-nominal attributes
+     * and for the class attribute
+     */
+    private final int[][] nominalColumns;
+
+    private int[] classColumn;
+
+    private final double[] weights;
+
+    /**
+     * ownedColumns[a] is true if the column of the attribute with index a belongs only to this dataset
+     */
+    private final boolean[] ownedColumns;
+
+    private boolean ownedClassColumn;
+
+    private ColumnarDataset(Instances header, int numRows, double[][] numericColumns, int[][] nominalColumns, int[] classColumn, double[] weights) {
+        this.header = header;
+        this.numRows = numRows;
+        this.numericColumns = numericColumns;
+        this.nominalColumns = nominalColumns;
+        this.classColumn = classColumn;
+        this.weights = weights;
+        this.ownedColumns = new boolean[numericColumns.length];
+    }
+
+
+
+    // --------------------------------------------------------------------------------------------------------
+    // -- Conversions ----------------------------------------------------------------------------------
+    // --------------------------------------------------------------------------------------------------------
+
+    /**
+     * Convert the instances in the columnar representation. The columns are filled in parallel.
+     * @param instances instances to convert. The class must be set and must be nominal
+     * @return the columnar dataset containing the same values and weights of the instances
+     * @throws IllegalArgumentException if the class of the instances is not set or is not nominal
+     */
+    public static ColumnarDataset fromInstances(Instances instances) {
+        if (instances.classIndex() < 0 || !instances.classAttribute().isNominal()) {
+            throw new IllegalArgumentException("The columnar dataset requires a nominal class attribute");
+        }
+        int numRows = instances.numInstances();
+        int numAttributes = instances.numAttributes();
+        int classIndex = instances.classIndex();
+        double[][] numericColumns = new double[numAttributes][];
+        int[][] nominalColumns = new int[numAttributes][];
+        double[] weights = new double[numRows];
+        for (int i = 0; i < numRows; i++) {
+            weights[i] = instances.instance(i).weight();
+        }
+
+        IntStream.range(0, numAttributes).parallel().forEach(attributeIndex -> {
+            if (instances.attribute(attributeIndex).isNominal()) {
+                int[] column = new int[numRows];
+                for (int i = 0; i < numRows; i++) {
+                    double value = instances.instance(i).value(attributeIndex);
+                    column[i] = Utils.isMissingValue(value) ? -1 : (int) value;
+                }
+                nominalColumns[attributeIndex] = column;
+            }
+            else {
+                double[] column = new double[numRows];
+                for (int i = 0; i < numRows; i++) {
+                    column[i] = instances.instance(i).value(attributeIndex);
+                }
+                numericColumns[attributeIndex] = column;
+            }
+        });
+
+        // The class column is kept apart from the features
+        int[] classColumn = nominalColumns[classIndex];
+        nominalColumns[classIndex] = null;
+
+        ColumnarDataset dataset = new ColumnarDataset(new Instances(instances, 0), numRows, numericColumns, nominalColumns, classColumn, weights);
+        // The columns have just been created, thus they belong to this dataset
+        for (int a = 0; a < numAttributes; a++) {
+            dataset.ownedColumns[a] = true;
+        }
+        dataset.ownedClassColumn = true;
+        return dataset;
+    }
+
+    /**
+     * Convert the dataset back to instances
+     * @return new instances with the same header, values and weights of this dataset
+     */
+    public Instances toInstances() {
+        int numAttributes = numericColumns.length;
+        int classIndex = header.classIndex();
+        Instances instances = new Instances(header, numRows);
+        for (int i = 0; i < numRows; i++) {
+            double[] values = new double[numAttributes];
+            for (int a = 0; a < numAttributes; a++) {
+                if (a == classIndex) {
+                    values[a] = codeToValue(classColumn[i]);
+                }
+                else if (nominalColumns[a] != null) {
+                    values[a] = codeToValue(nominalColumns[a][i]);
+                }
+                else {
+                    values[a] = numericColumns[a][i];
+                }
+            }
+            instances.add(new DenseInstance(weights[i], values));
+        }
+        return instances;
+    }
+
+
+
+    // --------------------------------------------------------------------------------------------------------
+    // -- Columns ----------------------------------------------------------------------------------
+    // --------------------------------------------------------------------------------------------------------
+
+    /**
+     * @return a dataset sharing all the columns with this one. The columns are duplicated only when changed
+     */
+    public ColumnarDataset copy() {
+        return new ColumnarDataset(header, numRows, numericColumns.clone(), nominalColumns.clone(), classColumn, weights);
+    }
+
+    /**
+     * Create a copy of this dataset and perturb the values of the specified attributes. The attributes are perturbed
+     * in parallel, each one by a single thread.
+     * @param attributes non-nominal attributes to perturb
+     * @param kernel function that perturbs the values of an attribute
+     * @return the perturbed copy of the dataset
+     * @throws IllegalArgumentException if an attribute is nominal
+     */
+    public ColumnarDataset perturbNumericColumns(List<Attribute> attributes, ColumnKernel kernel) {
+        if (!areNumeric(attributes)) {
+            throw new IllegalArgumentException("Only the non-nominal attributes can be perturbed as double values");
+        }
+        ColumnarDataset perturbedDataset = copy();
+        attributes.parallelStream().forEach(attribute ->
+                kernel.perturb(perturbedDataset.writableNumericColumn(attribute), attribute)
+        );
+        return perturbedDataset;
+    }
+
+    /**
+     * @param attribute non-nominal attribute of the dataset
+     * @return the values of the attribute. Read only
+     * @throws IllegalArgumentException if the attribute is nominal
+     */
+    public double[] numericColumn(Attribute attribute) {
+        double[] column = numericColumns[attribute.index()];
+        if (column == null) {
+            throw new IllegalArgumentException("The attribute " + attribute.name() + " is nominal");
+        }
+        return column;
+    }
+
+    /**
+     * Return the values of the attribute, duplicating them the first time they are requested.
+     * Different threads can request different attributes at the same time.
+     * @param attribute non-nominal attribute of the dataset
+     * @return the values of the attribute, owned by this dataset
+     * @throws IllegalArgumentException if the attribute is nominal
+     */
+    public double[] writableNumericColumn(Attribute attribute) {
+        int index = attribute.index();
+        double[] column = numericColumn(attribute);
+        if (!ownedColumns[index]) {
+            column = column.clone();
+            numericColumns[index] = column;
+            ownedColumns[index] = true;
+        }
+        return column;
+    }
+
+    /**
+     * @param attribute nominal attribute of the dataset, class excluded
+     * @return the codes of the attribute values, -1 if missing. Read only
+     * @throws IllegalArgumentException if the attribute is not nominal or is the class
+     */
+    public int[] nominalColumn(Attribute attribute) {
+        int[] column = nominalColumns[attribute.index()];
+        if (column == null) {
+            throw new IllegalArgumentException("The attribute " + attribute.name() + " is not a nominal feature");
+        }
+        return column;
+    }
+
+    /**
+     * Return the codes of the attribute values, duplicating them the first time they are requested.
+     * Different threads can request different attributes at the same time.
+     * @param attribute nominal attribute of the dataset, class excluded
+     * @return the codes of the attribute values, owned by this dataset
+     * @throws IllegalArgumentException if the attribute is not nominal or is the class
+     */
+    public int[] writableNominalColumn(Attribute attribute) {
+        int index = attribute.index();
+        int[] column = nominalColumn(attribute);
+        if (!ownedColumns[index]) {
+            column = column.clone();
+            nominalColumns[index] = column;
+            ownedColumns[index] = true;
+        }
+        return column;
+    }
+
+    /**
+     * @return the codes of the class values, -1 if missing. Read only
+     */
+    public int[] classColumn() {
+        return classColumn;
+    }
+
+    /**
+     * @return the codes of the class values, owned by this dataset
+     */
+    public int[] writableClassColumn() {
+        if (!ownedClassColumn) {
+            classColumn = classColumn.clone();
+            ownedClassColumn = true;
+        }
+        return classColumn;
+    }
+
+    /**
+     * @return the weights of the rows. Read only
+     */
+    public double[] weights() {
+        return weights;
+    }
+
+    /**
+     * @return number of values of the class attribute
+     */
+    public int numClasses() {
+        return header.numClasses();
+    }
+
+    /**
+     * @param attributes attributes of the dataset
+     * @return true if no attribute is nominal, thus all of them are stored as double values
+     */
+    public static boolean areNumeric(List<Attribute> attributes) {
+        for (Attribute attribute : attributes) {
+            if (attribute.isNominal()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double codeToValue(int code) {
+        return code < 0 ? Utils.missingValue() : code;
+    }
+}
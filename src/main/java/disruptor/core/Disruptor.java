@@ -2,22 +2,43 @@ package disruptor.core;
 
 
 import disruptor.attacks.Attack;
+import disruptor.attacks.AttackContext;
+import disruptor.attacks.ColumnarAttack;
 import disruptor.attacks.horizontal.labelflipping.LabelFlipping;
 import disruptor.attacks.horizontal.labelflipping.RandomLabelFlipping;
 import disruptor.attacks.vertical.*;
 import disruptor.attributeselection.AbstractAttributeSelector;
 import disruptor.attributeselection.InfoGainEval;
 import disruptor.attributeselection.RandomSelector;
+import disruptor.attributeselection.RankingCache;
+import disruptor.columnar.ColumnarDataset;
 import disruptor.perturbeddataset.PerturbedDataset;
 import disruptor.perturbeddataset.PerturbedDatasetParams;
+import disruptor.perturbeddataset.PerturbedView;
 import disruptor.properties.versionproviders.DisruptorVersionProvider;
+import disruptor.report.RunReport;
+import disruptor.report.Stage;
+import disruptor.report.StageTimer;
+import disruptor.saver.ColumnarSaver;
+import disruptor.saver.DatasetPatch;
+import disruptor.saver.DatasetStore;
+import disruptor.saver.ExportPipeline;
 import disruptor.saver.Exporter;
+import disruptor.scheduler.GridCell;
+import disruptor.scheduler.GridScheduler;
+import disruptor.scheduler.RunContext;
 import disruptor.util.CSVUtil;
+import disruptor.util.FingerprintUtil;
 import disruptor.experiment.DisruptorExperiment;
+import disruptor.experiment.IncrementalCurveEvaluator;
+import disruptor.experiment.InMemoryEvaluator;
+import disruptor.experiment.ModelCache;
 import disruptor.filters.ApplyClassBalancer;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
 import picocli.CommandLine;
 import disruptor.roc.ROCDatasetsList;
 import disruptor.util.ArffUtil;
@@ -27,15 +48,22 @@ import weka.classifiers.Classifier;
 import weka.classifiers.functions.SMO;
 import weka.classifiers.rules.JRip;
 import weka.classifiers.trees.J48;
+import weka.core.Attribute;
+import weka.core.Capabilities;
 import weka.core.Instances;
+import weka.core.converters.AbstractFileSaver;
 import weka.core.converters.ArffSaver;
 import weka.core.converters.CSVSaver;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @CommandLine.Command(
@@ -57,22 +85,28 @@ public class Disruptor implements Callable<Integer> {
             " |___/___|___/_|_\\\\___/|_|   |_| \\___/|_|_\\\n" +
             "                                           \n";
 
-    private String runFolderName = PARENT_FOLDER;
     private String baseFolderName = "";
     String startDate = "";
     private String experimentFolderName = EXPERIMENT_FOLDER;
-    @Getter
-    private ArrayList<Attack> attacksList = new ArrayList<>();
-    @Getter
-    private ArrayList<Classifier> classifiersList = new ArrayList<>();
-    @Getter
-    private ArrayList<PerturbedDataset> perturbedDatasets = new ArrayList<>();
     ROCDatasetsList perturbedDataMapForROC = new ROCDatasetsList();
     private final Exporter arffExport = new Exporter( new ArffSaver() );
-    private final Exporter csvExport = new Exporter( new CSVSaver() );
     private int executionCounter = 0;
+    private GridScheduler gridScheduler;
+    private GridScheduler runScheduler;
+    private RunReport report = new RunReport();
+    private ExportPipeline exportPipeline = new ExportPipeline(0, 1);
+    private DatasetStore datasetStore;
+    private ModelCache modelCache;
+    private RankingCache rankingCache;
+    private String balancing = "NONE";
+
+    /**
+     * Maximum fraction of changed values for which a perturbed dataset is exported as a patch with --export DELTA.
+     * A changed value takes about twice the space of a value of the BINARY format
+     */
+    private static final double MAX_PATCH_RATIO = 0.4;
 
-    protected enum ExportType {ALL, NONE, ARFF, CSV}
+    protected enum ExportType {ALL, NONE, ARFF, CSV, BINARY, DELTA}
 
     /**
      * List of feature selection algorithms
@@ -84,12 +118,13 @@ public class Disruptor implements Callable<Integer> {
     private List<AbstractAttributeSelector> featureSelectionAlgorithms = new ArrayList<>();
 
     /**
-     * Map between the feature selection algorithm and the corresponding selected features
+     * Map between the feature selection algorithm and the corresponding selected features.
+     * It is filled by the threads of the feature selection
      * @param selectedFeatureMap Map between the feature selection algorithm and the corresponding selected features
      * @return Map between the feature selection algorithm and the corresponding selected features
      */
     @Getter @Setter
-    private Map<AbstractAttributeSelector, double[][]> selectedFeatureMap = new HashMap<>();
+    private Map<AbstractAttributeSelector, double[][]> selectedFeatureMap = new ConcurrentHashMap<>();
 
 
     // CLI PARAMS ---------------------------------------------------------------------------------------------------------------------------
@@ -165,6 +200,48 @@ public class Disruptor implements Callable<Integer> {
             paramLabel = "EXP")
     private boolean experimenter = false;
 
+    @Getter @Setter
+    @CommandLine.Option(
+            names = {"--in-memory-evaluation"},
+            description = "With --experimenter, train and evaluate the classifiers on the datasets kept in memory, evaluating the (classifier, dataset) pairs in parallel with THREADS threads, instead of running the Weka Experimenter on the ARFF files of the experiment folder. The train+test datasets are not exported\n",
+            paramLabel = "IN_MEMORY")
+    private boolean inMemoryEvaluation = false;
+
+    @Getter @Setter
+    @CommandLine.Option(
+            names = {"--model-cache"},
+            description = "With --in-memory-evaluation, train every classifier only once for the same train set and reuse its predictions on the same test set, es: the unperturbed train set of a run evaluated for every feature selection algorithm\n",
+            paramLabel = "MODEL_CACHE")
+    private boolean modelCacheEnabled = false;
+
+    @Getter @Setter
+    @CommandLine.Option(
+            names = {"--model-cache-folder"},
+            description = "Save the models of --model-cache in the specified folder, so that they are reused by the next executions. Implies --model-cache\n",
+            paramLabel = "MODEL_CACHE_FOLDER")
+    private String modelCacheFolder;
+
+    @Getter @Setter
+    @CommandLine.Option(
+            names = {"--model-cache-size"},
+            description = "Maximum number of models of --model-cache kept in memory, the least recently used are discarded\nDefault: 256\n",
+            paramLabel = "MODEL_CACHE_SIZE")
+    private int modelCacheSize = ModelCache.DEFAULT_MAX_MODELS;
+
+    @Getter @Setter
+    @CommandLine.Option(
+            names = {"--ranking-cache-folder"},
+            description = "Save the feature rankings in the specified folder, so that the next executions on the same dataset, knowledge and seed reuse them instead of performing the feature selection again. The rankings are always reused within the same execution\n",
+            paramLabel = "RANKING_CACHE_FOLDER")
+    private String rankingCacheFolder;
+
+    @Getter @Setter
+    @CommandLine.Option(
+            names = {"--label-flipping-curves"},
+            description = "Evaluate the label flipping attacks of every run across all the capacities with the updateable classifiers NaiveBayesUpdateable, HoeffdingTree, IBk and SGD. Every classifier is trained once on the rows never attacked and then updated with the flipped rows, capacity after capacity. The accuracy-vs-capacity curves are written in labelFlippingCurves.csv in the folder of the run\n",
+            paramLabel = "CURVES")
+    private boolean labelFlippingCurves = false;
+
 //    @Getter @Setter
 //    @CommandLine.Option(
 //            names = {"-r", "--roc"},
@@ -183,11 +260,70 @@ public class Disruptor implements Callable<Integer> {
     @Getter @Setter
     @CommandLine.Option(
             names = {"-E", "--export"},
-            description = "Valid values: ${COMPLETION-CANDIDATES}\nDefine what kind of export the application should produce.\nIf --experiment is present, this option does not influence the Experimenter exports.",
+            description = "Valid values: ${COMPLETION-CANDIDATES}\nDefine what kind of export the application should produce.\nALL exports both ARFF and CSV, BINARY exports the compact columnar format readable with ColumnarLoader.\nDELTA exports in BINARY the training set of each run and every perturbed dataset as a patch against it. Use materialize-patch to rebuild the full datasets.\nIf --experiment is present, this option does not influence the Experimenter exports.",
             defaultValue="ALL"
     )
     private ExportType exportType = ExportType.ALL;
 
+    @Getter @Setter
+    @CommandLine.Option(
+            names = {"-T", "--threads"},
+            description = "Number of cells of the attacks grid (attack, features capacity, capacity) performed at the same time\nDefault: number of available processors\n",
+            paramLabel = "THREADS")
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    @Getter @Setter
+    @CommandLine.Option(
+            names = {"--selection-threads"},
+            description = "Number of feature selection algorithms, one for each knowledge, performed at the same time\nDefault: number of available processors\n",
+            paramLabel = "SELECTION_THREADS")
+    private int selectionThreads = Runtime.getRuntime().availableProcessors();
+
+    @Getter @Setter
+    @CommandLine.Option(
+            names = {"-P", "--parallel-runs"},
+            description = "Number of runs performed at the same time.\nEach run keeps in memory its own train set, test set and perturbed datasets\nDefault: 1\n",
+            paramLabel = "PARALLEL_RUNS",
+            defaultValue = "1")
+    private int parallelRuns = 1;
+
+    @Getter @Setter
+    @CommandLine.Option(
+            names = {"--export-writers"},
+            description = "Number of threads writing the exported files while the attacks go on.\n0 to write the files synchronously on the attack threads\nDefault: 2\n",
+            paramLabel = "EXPORT_WRITERS",
+            defaultValue = "2")
+    private int exportWriters = 2;
+
+    @Getter @Setter
+    @CommandLine.Option(
+            names = {"--export-queue"},
+            description = "Maximum number of datasets waiting to be exported. When the queue is full the attacks wait for the writers\nDefault: 16\n",
+            paramLabel = "EXPORT_QUEUE",
+            defaultValue = "16")
+    private int exportQueue = 16;
+
+    @Getter @Setter
+    @CommandLine.Option(
+            names = {"-I", "--incremental"},
+            description = "Perform the attacks that support it only once for the biggest capacity, deriving the datasets of the lower capacities from the result.\nThe random attacks produce the same distribution of values, but not the same values of the complete execution\n",
+            paramLabel = "INCREMENTAL")
+    private boolean incremental = false;
+
+    @Getter @Setter
+    @CommandLine.Option(
+            names = {"--columnar"},
+            description = "Perform the attacks that support it on a columnar copy of the training set made of primitive arrays, converting the result to instances only for the export and the evaluation.\nThe attacks performed incrementally keep using the instances\n",
+            paramLabel = "COLUMNAR")
+    private boolean columnar = false;
+
+    @Getter @Setter
+    @CommandLine.Option(
+            names = {"--dedup"},
+            description = "Store every exported dataset only once in the folder store, named after the fingerprint of its content. The exported files are hard links to the stored ones, or copies if the file system does not support hard links, and store/index.csv maps every exported file to its fingerprint and to its original relation name.\nThe relation name of the exported ARFF files is the fingerprint, not the name of the attack\n",
+            paramLabel = "DEDUP")
+    private boolean dedup = false;
+
 
     public static void main(String[] args) {
         int exitCode = new CommandLine(new Disruptor()).execute(args);
@@ -210,76 +346,178 @@ public class Disruptor implements Callable<Integer> {
                 + File.separator
                 + startDate;
 
-        // Read the dataset file
-        Instances dataset;
-        if(isArff){
-            dataset = ArffUtil.readArffFile(datasetFile, className);
+        report = new RunReport();
+        report.setProperty("dataset", datasetFile.getPath());
+        report.setProperty("startDate", startDate);
+        report.setProperty("threads", threads);
+        report.setProperty("parallelRuns", parallelRuns);
+        report.setProperty("runs", runs);
+        report.setProperty("dedup", dedup);
+
+        try (StageTimer totalTimer = report.startStage(Stage.TOTAL)) {
+            // Read the dataset file
+            Instances dataset;
+            try (StageTimer timer = report.startStage(Stage.READ_DATASET).with("file", datasetFile.getName())) {
+                if(isArff){
+                    dataset = ArffUtil.readArffFile(datasetFile, className);
+                }
+                else {
+                    dataset = CSVUtil.readCSVFile(datasetFile, className);
+                }
+                timer.setRows( dataset.numInstances() );
+            }
+            if(!isArff){
+                try (StageTimer timer = report.startStage(Stage.EXPORT).with("folder", baseFolderName).with("file", dataset.relationName())) {
+                    arffExport.exportInFolder( dataset, baseFolderName, dataset.relationName() );
+                    timer.setRows( dataset.numInstances() );
+                    timer.setBytesWritten( arffExport.getExportedFile().length() );
+                }
+            }
+
+            // Every execution has its own cache, shared by all its selectors and attacks
+            rankingCache = rankingCacheFolder != null ? new RankingCache(new File(rankingCacheFolder)) : new RankingCache();
+
+            featureSelectionAlgorithms.clear();
+            populateFeatureSelectionAlgorithmsList( dataset );
+            performFeatureSelection();
+
+            if(modelCacheEnabled || modelCacheFolder != null){
+                if(inMemoryEvaluation){
+                    modelCache = new ModelCache( modelCacheFolder != null ? new File(modelCacheFolder) : null, modelCacheSize );
+                }
+                else {
+                    log.warn("The model cache is used only with --in-memory-evaluation");
+                }
+            }
+
+            // The store is closed after the pipeline, when all the exports are completed
+            try (DatasetStore store = dedup ? new DatasetStore(new File(baseFolderName, "store")) : null;
+                 GridScheduler cellsScheduler = new GridScheduler(threads, "disruptor-grid");
+                 GridScheduler runsScheduler = new GridScheduler(parallelRuns, "disruptor-run");
+                 ExportPipeline pipeline = new ExportPipeline(exportWriters, exportQueue)) {
+                datasetStore = store;
+                gridScheduler = cellsScheduler;
+                runScheduler = runsScheduler;
+                exportPipeline = pipeline;
+                disruptAll(dataset);
+            }
+            finally {
+                if(datasetStore != null){
+                    report.setProperty("storedDatasets", datasetStore.storedFilesNumber());
+                    datasetStore = null;
+                }
+                if(modelCache != null){
+                    report.setProperty("trainedModels", modelCache.getTrainedModels());
+                    report.setProperty("modelCacheHits", modelCache.getHits());
+                    modelCache = null;
+                }
+                report.setProperty("featureSelectionCacheHits", rankingCache.getHits());
+                rankingCache = null;
+            }
         }
-        else {
-            dataset = CSVUtil.readCSVFile(datasetFile, className);
-            arffExport.exportInFolder( dataset, baseFolderName, dataset.relationName() );
+        finally {
+            writeReport();
         }
 
-        featureSelectionAlgorithms.clear();
-        populateFeatureSelectionAlgorithmsList( dataset );
-        performFeatureSelection();
+        return 0;
+    }
 
+    /**
+     * Write the timing report of the execution in the base folder
+     */
+    private void writeReport() {
+        try {
+            report.writeJson( new File(baseFolderName, "report.json") );
+        } catch (IOException e) {
+            log.error("Problem writing the report of the execution");
+            ExceptionUtil.logException(e, log);
+        }
+    }
+
+    /**
+     * Run the main disruptor loop on the dataset, and on its balanced versions if required
+     * @param dataset input dataset
+     * @throws Exception if problems during the attacks
+     */
+    private void disruptAll(Instances dataset) throws Exception {
         if(toBalance) {
             log.info("\n------------------------------------------------------------------------------------------------------------------------------------\n" +
                     "\t-- WITHOUT BALANCING --" +
                     "\n------------------------------------------------------------------------------------------------------------------------------------");
             // Run the main disruptor loop without balancing
+            balancing = "NONE";
             disrupt(dataset);
 
             // Run the main disruptor loop balancing with Resample filter
             log.info("\n------------------------------------------------------------------------------------------------------------------------------------\n" +
                     "\t-- RESAMPLE BALANCING --" +
                     "\n------------------------------------------------------------------------------------------------------------------------------------");
+            balancing = "RESAMPLE";
             disrupt(ApplyClassBalancer.resample(dataset));
 
             // Run the main disruptor loop balancing with SMOTE filter
             log.info("\n------------------------------------------------------------------------------------------------------------------------------------\n" +
                     "\t-- SMOTE BALANCING --" +
                     "\n------------------------------------------------------------------------------------------------------------------------------------");
+            balancing = "SMOTE";
             disrupt(ApplyClassBalancer.smote(dataset));
         }
         else {
             // Run the main disruptor loop without balancing
+            balancing = "NONE";
             disrupt(dataset);
         }
-
-        return 0;
     }
 
     /**
      *
      * Main disruptor loop.
      * For each feature selection algorithm perform the number of runs defined.
-     * Each run perform every attack present in the attacksList
+     * Each run perform every attack present in its attacks list.
+     * The runs are independent and up to parallelRuns of them are performed at the same time
      *
      * @param dataset input dataset
      * @throws Exception
      */
     private void disrupt(Instances dataset) throws Exception {
 
-        for( AbstractAttributeSelector attributeSelectorAlgorithm : selectedFeatureMap.keySet() ){
+        // In the order of the list, thus the executions do not depend on which selection completed first
+        for( AbstractAttributeSelector attributeSelectorAlgorithm : featureSelectionAlgorithms ){
+            if( !selectedFeatureMap.containsKey(attributeSelectorAlgorithm) ){
+                continue;
+            }
 
             executionCounter++;
 
             log.info("\n\n===========================================\nfeature selection algorithm: {} K:{}\n===========================================\n", attributeSelectorAlgorithm.getName(), attributeSelectorAlgorithm.getKnowledge());
 
+            List<Callable<RunContext>> runTasks = new ArrayList<>();
             for( int runNumber=0; runNumber<runs; runNumber++ ){
-                executeRun(dataset, attributeSelectorAlgorithm, runNumber);
+                int run = runNumber;
+                runTasks.add( () -> {
+                    try (StageTimer timer = startStage(Stage.RUN, attributeSelectorAlgorithm).with("run", run)) {
+                        timer.setRows( dataset.numInstances() );
+                        return executeRun(dataset, attributeSelectorAlgorithm, run);
+                    }
+                } );
             }
+            List<RunContext> runContexts = runScheduler.invokeAllInOrder(runTasks);
 
             if(experimenter){
-                // Append the test set to each dataset
-                appendTestSet(true);
+                if(!inMemoryEvaluation){
+                    // Append the test set to each dataset, the Experimenter splits them again
+                    runContexts.forEach( runContext -> appendTestSet(runContext, true) );
+                    for( RunContext runContext : runContexts ){
+                        awaitExports(runContext);
+                    }
+                }
                 // Evaluate the effectiveness of the attacks
                 SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
                 String now = simpleDateFormat.format(new Date());
                 String expResultTitle = "["+now+"]\t"+ attributeSelectorAlgorithm.getName() + "\tknowledge: " + attributeSelectorAlgorithm.getKnowledge() + "\nRanked features: " + Arrays.deepToString(attributeSelectorAlgorithm.getRankedAttributes());
-                evaluateAttacks(expResultTitle);
+                try (StageTimer timer = startStage(Stage.EXPERIMENT, attributeSelectorAlgorithm)) {
+                    timer.setRows( evaluateAttacks(runContexts, expResultTitle) );
+                }
             }
 
             if(roc){
@@ -291,21 +529,27 @@ public class Disruptor implements Callable<Integer> {
         }
     }
 
-    private void executeRun(Instances dataset, AbstractAttributeSelector attributeSelectorAlgorithm, int run) throws Exception {
+    /**
+     * Perform a single run: split the dataset, then perform all the attacks on the train set
+     * @param dataset input dataset
+     * @param attributeSelectorAlgorithm algorithm used to rank the attacked features
+     * @param run number of the run, used also as seed for the split
+     * @return the context containing all the results of the run
+     * @throws Exception if problems during the attacks
+     */
+    private RunContext executeRun(Instances dataset, AbstractAttributeSelector attributeSelectorAlgorithm, int run) throws Exception {
         log.info("\n\n{}: RUN {} ----------------------------------\n", attributeSelectorAlgorithm.getName(), run);
 
-        // Creates a copy of the starting instances otherwise a test set is added at every run growing exponentially
-        Instances runDataset = new Instances(dataset);
-
         // Set folder name
-        runFolderName = baseFolderName
+        String runFolderName = baseFolderName
                 + File.separator
                 + attributeSelectorAlgorithm.getName()
                 + File.separator
                 + "run" + run;
+        RunContext runContext = new RunContext(run, runFolderName);
 
-        // Split Train and Test set
-        Instances[] splitTrainTest = InstancesUtil.splitTrainTest(runDataset, trainPercentage, run);
+        // Split Train and Test set. The train and test sets are new datasets, thus the starting instances are never changed
+        Instances[] splitTrainTest = InstancesUtil.splitTrainTest(dataset, trainPercentage, run);
         Instances trainset = splitTrainTest[0];
         Instances testSet = splitTrainTest[1];
 
@@ -313,24 +557,116 @@ public class Disruptor implements Callable<Integer> {
             // To use as a reference, add the input dataset as the first list element
             PerturbedDatasetParams params = new PerturbedDatasetParams(attributeSelectorAlgorithm.getName(), run);
             PerturbedDataset perturbedDataset = new PerturbedDataset(trainset, testSet, params);
-            perturbedDatasets.add(perturbedDataset);
+            runContext.getPerturbedDatasets().add(perturbedDataset);
         }
 
         // Export test set
-        exportTestSet(testSet);
+        exportTestSet(runContext, testSet);
+        if(exportType == ExportType.DELTA){
+            // The base of the patches of the perturbed datasets
+            exportTrainSet(runContext, trainset);
+        }
 
         // Populate the attacks and the classifiers lists
-        attacksList.clear();
-        populateAttacksList(trainset, selectedFeatureMap.get(attributeSelectorAlgorithm));
-        classifiersList.clear();
-        populateClassifiersList();
+        populateAttacksList(runContext.getAttacksList(), trainset, selectedFeatureMap.get(attributeSelectorAlgorithm));
+        populateClassifiersList(runContext.getClassifiersList());
 
         // Attack main loop
-        performAttacks(trainset, testSet, attacksList, capacitiesList, featuresCapacitiesList, attributeSelectorAlgorithm, run);
+        performAttacks(runContext, trainset, testSet, capacitiesList, featuresCapacitiesList, attributeSelectorAlgorithm);
+
+        if(labelFlippingCurves){
+            try (StageTimer timer = startStage(Stage.LABEL_FLIPPING_CURVES, attributeSelectorAlgorithm).with("run", run)) {
+                timer.setRows( trainset.numInstances() );
+                evaluateLabelFlippingCurves(runContext, trainset, testSet);
+            }
+        }
+
+        // The perturbed datasets are modified after the run, thus their export must be completed
+        awaitExports(runContext);
+
+        return runContext;
+    }
+
+    /**
+     * Evaluate the label flipping attacks of the run across all the capacities with the updateable classifiers of the
+     * {@link IncrementalCurveEvaluator}, and write the accuracy-vs-capacity curves in the folder of the run.
+     * The label flipping attacks are not performed again: the curves use the datasets of their grid cells with the
+     * biggest capacity and features capacity
+     * @param runContext context of the run containing the attacks
+     * @param trainSet training set of the run, target of the attacks
+     * @param testSet test set of the run
+     * @throws Exception if problems performing the attacks, evaluating the classifiers or writing the curves
+     */
+    private void evaluateLabelFlippingCurves(RunContext runContext, Instances trainSet, Instances testSet) throws Exception {
+        List<Double> capacities = new ArrayList<>( new TreeSet<>(capacitiesList) );
+        double maxFeaturesCapacity = Collections.max(featuresCapacitiesList);
+
+        List<Classifier> classifiers = new ArrayList<>();
+        for( Classifier classifier : IncrementalCurveEvaluator.defaultClassifiers() ){
+            Capabilities capabilities = classifier.getCapabilities();
+            if( capabilities.test(trainSet) ){
+                classifiers.add(classifier);
+            }
+            else {
+                log.warn("{} skipped from the label flipping curves: {}", classifier.getClass().getSimpleName(), capabilities.getFailReason().getMessage());
+            }
+        }
+
+        List<String[]> curvesKeys = new ArrayList<>();
+        List<int[]> curvesAttackSizes = new ArrayList<>();
+        List<Callable<double[]>> tasks = new ArrayList<>();
+        for( Attack attack : runContext.getAttacksList() ){
+            if( !hasLabelFlippingCurve(attack) ){
+                continue;
+            }
+            int[] attackSizes = new int[capacities.size()];
+            for( int c=0; c<capacities.size(); c++ ){
+                Attack capacityAttack = attack.copy();
+                capacityAttack.setTarget( trainSet );
+                capacityAttack.setCapacity( capacities.get(c) );
+                capacityAttack.setFeaturesCapacity( maxFeaturesCapacity );
+                attackSizes[c] = capacityAttack.attackSize();
+            }
+            // The dataset of the grid cell with the biggest capacity contains the flipped rows of all the capacities
+            Instances maxCapacityInstances = runContext.getMaxCapacityInstances().get(attack);
+
+            for( Classifier classifier : classifiers ){
+                curvesKeys.add( new String[]{attack.getClass().getSimpleName(), classifier.getClass().getSimpleName()} );
+                curvesAttackSizes.add( attackSizes );
+                tasks.add( () -> IncrementalCurveEvaluator.evaluate(classifier, trainSet, maxCapacityInstances, attackSizes, testSet) );
+            }
+        }
+        List<double[]> curves = gridScheduler.invokeAllInOrder(tasks);
+        // The datasets of the run are not kept after the curves
+        runContext.getMaxCapacityInstances().clear();
+
+        File curvesFile = new File(runContext.getRunFolderName(), "labelFlippingCurves.csv");
+        Files.createDirectories( curvesFile.getAbsoluteFile().getParentFile().toPath() );
+        CSVFormat csvFormat = CSVFormat.DEFAULT.builder()
+                .setHeader("attack", "classifier", "capacity", "attackedRows", "correctness")
+                .build();
+        try (CSVPrinter printer = new CSVPrinter(Files.newBufferedWriter(curvesFile.toPath(), StandardCharsets.UTF_8), csvFormat)) {
+            for( int i=0; i<curves.size(); i++ ){
+                for( int c=0; c<capacities.size(); c++ ){
+                    printer.printRecord(curvesKeys.get(i)[0], curvesKeys.get(i)[1], capacities.get(c), curvesAttackSizes.get(i)[c], curves.get(i)[c]);
+                }
+            }
+        }
+    }
+
+    /**
+     * The label flipping curves evaluate the lower capacities on the prefixes of the dataset attacked with the biggest
+     * capacity, thus they are computed only for the label flipping attacks that honour that contract, see
+     * {@link Attack#isCapacityIncremental()}
+     * @param attack attack of the run
+     * @return true if the label flipping curves of the attack can be computed
+     */
+    private static boolean hasLabelFlippingCurve(Attack attack) {
+        boolean isLabelFlipping = attack instanceof LabelFlipping || attack instanceof RandomLabelFlipping;
+        return isLabelFlipping && attack.isCapacityIncremental();
     }
 
     private void clearFieldsAfterAllRuns() {
-        perturbedDatasets.clear();
         if(roc){
             perturbedDataMapForROC.clear();
         }
@@ -358,10 +694,11 @@ public class Disruptor implements Callable<Integer> {
 
     /**
      * Fill the attacks list with all the attacks
+     * @param attacksList list of the attacks of the run to fill
      * @param dataset dataset to perturbate during the attacks
      * @param selectedFeatures features to perturbate during the attacks
      */
-    protected void populateAttacksList(Instances dataset, double[][] selectedFeatures) {
+    protected void populateAttacksList(List<Attack> attacksList, Instances dataset, double[][] selectedFeatures) {
 
         attacksList.add(new LabelFlipping(dataset));
         attacksList.add(new RandomLabelFlipping(dataset));
@@ -393,39 +730,64 @@ public class Disruptor implements Callable<Integer> {
         MiddlePointByClass middlePointByClassAttack = new MiddlePointByClass(dataset);
         middlePointByClassAttack.setFeatureSelected(selectedFeatures);
         attacksList.add(middlePointByClassAttack);
+
+        // The analysis of the dataset is shared by all the attacks: the statistics are computed only once, before the grid
+        AttackContext attackContext = new AttackContext(dataset, rankingCache);
+        attackContext.getFeatureStatistics();
+        // And the instances grouped by class, only if the class is nominal
+        if( dataset.classAttribute().isNominal() ){
+            attackContext.getClassIndex();
+        }
+        attacksList.forEach( attack -> attack.setAttackContext(attackContext) );
     }
     /**
      * Fill the classifiers list with a subset of classifiers
+     * @param classifiersList list of the classifiers of the run to fill
      */
-    protected void populateClassifiersList() {
+    protected void populateClassifiersList(List<Classifier> classifiersList) {
         classifiersList.add( new J48() );
         classifiersList.add( new SMO());
         classifiersList.add( new JRip() );
     }
 
     /**
-     * Perform all the attacks defined in the attacksList using all the capacities defined in the capacitiesList
+     * Perform all the attacks defined in the attacksList using all the capacities defined in the capacitiesList.
+     * <p/>
+     * Every combination of attack, features capacity and capacity is a cell of the grid performed as an independent
+     * task by the {@link GridScheduler}. The perturbed datasets are collected in the same order of the sequential execution.
+     * <p/>
+     * If incremental is true, the attacks that support it are performed only once for every features capacity, using the
+     * biggest capacity, and the datasets of the lower capacities are derived from that result.
+     * The attacks that are also features capacity incremental are performed only once, using the biggest capacity and
+     * features capacity.
+     * @param runContext context of the run containing the list of attacks to perform
      * @param trainingSet training set to perturb
-     * @param attacksList list of attacks to perform
      * @param capacitiesList list of capacities
      * @param featuresCapacitiesList list of capacities for features
      * @param attributeSelectorAlgorithm
      */
-    private void performAttacks(Instances trainingSet, Instances testSet, ArrayList<Attack> attacksList, ArrayList<Double> capacitiesList, ArrayList<Double> featuresCapacitiesList, AbstractAttributeSelector attributeSelectorAlgorithm, int run){
+    private void performAttacks(RunContext runContext, Instances trainingSet, Instances testSet, ArrayList<Double> capacitiesList, ArrayList<Double> featuresCapacitiesList, AbstractAttributeSelector attributeSelectorAlgorithm) throws Exception {
+        int run = runContext.getRunNumber();
+        String fsAlgorithmName = attributeSelectorAlgorithm.getName();
+        double knowledge = attributeSelectorAlgorithm.getKnowledge();
+
+        // The columnar copy of the training set is shared by all the cells
+        ColumnarDataset columnarTrainingSet = columnar ? ColumnarDataset.fromInstances(trainingSet) : null;
+
         // Nested loop between attacks list and capacities list
-        attacksList.forEach( attack -> {
-            String attackClassName = attack.getClass().getSimpleName();
-            log.info("Started attack {}", attackClassName);
-            String attackName = trainingSet.relationName() + "_" + attackClassName;
+        List<GridCell> cells = new ArrayList<>();
+        // The attack of the run of every cell
+        List<Attack> cellsAttacks = new ArrayList<>();
+        List<Callable<List<Instances>>> tasks = new ArrayList<>();
+        runContext.getAttacksList().forEach( attack -> {
+            String attackName = trainingSet.relationName() + "_" + attack.getClass().getSimpleName();
+            boolean attackSweep = incremental && attack.isCapacityIncremental() && attack.isFeaturesCapacityIncremental();
+            List<GridCell> attackCells = new ArrayList<>();
 
             featuresCapacitiesList.forEach( featureCapacity -> {
+                List<GridCell> sweepCells = new ArrayList<>();
                 capacitiesList.forEach(capacity -> {
 
-                    String fsAlgorithmName = attributeSelectorAlgorithm.getName();
-                    double knowledge = attributeSelectorAlgorithm.getKnowledge();
-
-                    log.info("\tfeatures capacity: {}\tcapacity: {}\t knowledge: {}", featureCapacity, capacity, knowledge);
-
                     // Define an attack code unique for this attack run
                     String attackCode = attackName +
                             "_" + fsAlgorithmName +
@@ -433,101 +795,369 @@ public class Disruptor implements Callable<Integer> {
                             "_F" + featureCapacity +
                             "_C" + capacity ;
 
-                    // Perform this attack with this capacity
-                    Instances trainingSetCopy = new Instances(trainingSet);
-                    attack.setTarget( trainingSetCopy );
-                    attack.setCapacity( capacity );
-                    attack.setFeaturesCapacity( featureCapacity );
-                    Instances perturbedInstances = attack.attack();
-                    perturbedInstances.setRelationName(attackCode);
-
-                    if(experimenter){
-                        PerturbedDatasetParams params = new PerturbedDatasetParams(fsAlgorithmName, attack, capacity, featureCapacity, knowledge, run);
-                        PerturbedDataset perturbedDatasetObject = new PerturbedDataset(perturbedInstances, testSet, params);
-                        perturbedDatasets.add(perturbedDatasetObject);
-                    }
-                    if(roc){
-//                        try {
-//                            perturbedDataMapForROC.addWithCapacity(attackName, capacity, featureCapacity, perturbedInstances);
-//                        } catch (Exception e) {
-//                            log.error("Problem storing the perturbed dataset for the ROC curve");
-//                            log.debug(attackCode);
-//                            ExceptionUtil.logException(e, log);
-//                        }
-                    }
-
-                    // Export the perturbed instances
-                    try {
-                        exportPerturbedDataset(attackCode, perturbedInstances);
-                    } catch (Exception e) {
-                        log.error("Problem during the export of the perturbed dataset");
-                        log.debug(attackCode);
-                        ExceptionUtil.logException(e, log);
-                    }
+                    // Each cell has its own attack. The training set is shared since the attacks never modify their target
+                    Attack cellAttack = attack.copy();
+                    cellAttack.setTarget( trainingSet );
+                    cellAttack.setCapacity( capacity );
+                    cellAttack.setFeaturesCapacity( featureCapacity );
 
+                    sweepCells.add( new GridCell(cellAttack, trainingSet, columnarTrainingSet, attackCode, runContext.getRunFolderName(), fsAlgorithmName, knowledge, run, runContext) );
                 });
+                attackCells.addAll(sweepCells);
+
+                if(attackSweep){
+                    // The whole grid of the attack is performed by a single task
+                    return;
+                }
+                if(incremental && attack.isCapacityIncremental()){
+                    // A single task performs the attack once for all the capacities
+                    tasks.add( () -> performIncrementalSweep(sweepCells) );
+                }
+                else {
+                    sweepCells.forEach( cell -> tasks.add( () -> Collections.singletonList(performAttack(cell)) ) );
+                }
             });
-            log.info("Finished attack {}", attackClassName);
+
+            if(attackSweep){
+                // A single task performs the attack once for all the capacities and features capacities
+                tasks.add( () -> performIncrementalSweep(attackCells) );
+            }
+            cells.addAll(attackCells);
+            attackCells.forEach( cell -> cellsAttacks.add(attack) );
         });
+
+        List<Instances> perturbedInstancesList = new ArrayList<>();
+        gridScheduler.invokeAllInOrder(tasks).forEach( perturbedInstancesList::addAll );
+
+        if(labelFlippingCurves){
+            // The label flipping curves are evaluated on the datasets of the cells with the biggest capacities
+            double maxCapacity = Collections.max(capacitiesList);
+            double maxFeaturesCapacity = Collections.max(featuresCapacitiesList);
+            for( int i=0; i<cells.size(); i++ ){
+                Attack attack = cells.get(i).getAttack();
+                if( hasLabelFlippingCurve(attack) && attack.getCapacity()==maxCapacity && attack.getFeaturesCapacity()==maxFeaturesCapacity ){
+                    runContext.getMaxCapacityInstances().put( cellsAttacks.get(i), perturbedInstancesList.get(i) );
+                }
+            }
+        }
+
+        if(experimenter){
+            for( int i=0; i<cells.size(); i++ ){
+                GridCell cell = cells.get(i);
+                Attack attack = cell.getAttack();
+                PerturbedDatasetParams params = new PerturbedDatasetParams(fsAlgorithmName, attack, attack.getCapacity(), attack.getFeaturesCapacity(), knowledge, run);
+                PerturbedDataset perturbedDatasetObject = new PerturbedDataset(perturbedInstancesList.get(i), testSet, params);
+                runContext.getPerturbedDatasets().add(perturbedDatasetObject);
+            }
+        }
     }
 
     /**
-     * Export the perturbed dataset in the same folder of the others attack
-     * @param attackCode String used to identify this particular attack execution used as file name
-     * @param perturbedDataset The perturbed dataset after the attack
-     * @throws IOException if problems during the export
+     * Perform the attack of a single cell of the grid and export the perturbed instances
+     * @param cell cell of the grid to perform
+     * @return the perturbed instances
      */
-    private void exportPerturbedDataset(String attackCode, Instances perturbedDataset) throws IOException {
-        if (exportType != ExportType.NONE){
-            if(exportType == ExportType.ARFF || exportType == ExportType.ALL){
-                // Export ARFF
-                arffExport.exportInFolder( perturbedDataset, runFolderName, attackCode );
+    private Instances performAttack(GridCell cell) {
+        Attack attack = cell.getAttack();
+
+        log.info("\t{}\tfeatures capacity: {}\tcapacity: {}\t knowledge: {}", attack.getClass().getSimpleName(), attack.getFeaturesCapacity(), attack.getCapacity(), cell.getKnowledge());
+
+        // Perform this attack with this capacity
+        Instances perturbedInstances;
+        try (StageTimer timer = startStage(Stage.ATTACK, cell)) {
+            if( cell.getColumnarTarget()!=null && attack instanceof ColumnarAttack && ((ColumnarAttack) attack).supportsColumnar() ){
+                perturbedInstances = ((ColumnarAttack) attack).attack( cell.getColumnarTarget() ).toInstances();
+                timer.with("columnar", true);
             }
-            if(exportType == ExportType.CSV || exportType == ExportType.ALL){
-                // Export CSV
-                csvExport.exportInFolder( perturbedDataset, runFolderName, attackCode );
+            else {
+                perturbedInstances = attack.attack();
             }
+            timer.setRows( perturbedInstances.numInstances() );
         }
+        completeCell(cell, perturbedInstances);
+
+        return perturbedInstances;
     }
 
-    private void exportTestSet(Instances testSet) throws IOException {
-        if (exportType != ExportType.NONE){
-            if(exportType == ExportType.ARFF || exportType == ExportType.ALL){
-                // Export ARFF
-                arffExport.exportInFolder( testSet, runFolderName, testSet.relationName()+"_TEST" );
-            }
-            if(exportType == ExportType.CSV || exportType == ExportType.ALL){
-                // Export CSV
-                csvExport.exportInFolder( testSet, runFolderName, testSet.relationName()+"_TEST" );
+    /**
+     * Perform the attack of the cells of the same attack only once, using the biggest capacity and features capacity.
+     * The datasets of the other cells are derived from the result, since the attacked instances of a lower capacity are a
+     * prefix of the ones of the biggest capacity, and the perturbed attributes of a lower features capacity are a subset
+     * of the ones of the biggest features capacity.
+     * @param sweepCells cells of the grid with the same attack. If they have different features capacities, the attack
+     *                   must be features capacity incremental
+     * @return the perturbed instances of each cell, in the same order of the cells
+     */
+    private List<Instances> performIncrementalSweep(List<GridCell> sweepCells) {
+        Comparator<GridCell> cellsComparator = Comparator.comparingDouble( cell -> cell.getAttack().getFeaturesCapacity() );
+        GridCell maxCapacityCell = Collections.max(sweepCells, cellsComparator.thenComparingDouble( cell -> cell.getAttack().getCapacity() ));
+        Attack maxCapacityAttack = maxCapacityCell.getAttack();
+
+        log.info("\t{}\tfeatures capacities up to: {}\tcapacities up to: {}\t knowledge: {}", maxCapacityAttack.getClass().getSimpleName(), maxCapacityAttack.getFeaturesCapacity(), maxCapacityAttack.getCapacity(), maxCapacityCell.getKnowledge());
+
+        Instances maxCapacityInstances;
+        try (StageTimer timer = startStage(Stage.ATTACK, maxCapacityCell).with("sweepCells", sweepCells.size())) {
+            maxCapacityInstances = maxCapacityAttack.attack();
+            timer.setRows( maxCapacityInstances.numInstances() );
+        }
+        if( !(maxCapacityInstances instanceof PerturbedView) ){
+            // The datasets can be derived only from a view of the target. Perform every cell
+            log.warn("{} does not return a PerturbedView. Performing every capacity", maxCapacityAttack.getClass().getSimpleName());
+            List<Instances> perturbedInstancesList = new ArrayList<>();
+            sweepCells.forEach( cell -> perturbedInstancesList.add( cell == maxCapacityCell ? completeCell(cell, maxCapacityInstances) : performAttack(cell) ) );
+            return perturbedInstancesList;
+        }
+
+        PerturbedView maxCapacityView = (PerturbedView) maxCapacityInstances;
+        List<Attribute> maxCapacityAttributes = maxCapacityAttack.perturbedAttributes();
+        List<Instances> perturbedInstancesList = new ArrayList<>();
+        for( GridCell cell : sweepCells ){
+            Attack cellAttack = cell.getAttack();
+            List<Attribute> cellAttributes = cellAttack.perturbedAttributes();
+            Instances perturbedInstances;
+            try (StageTimer timer = startStage(Stage.DERIVE, cell)) {
+                if( cellAttributes.equals(maxCapacityAttributes) ){
+                    // Same perturbed attributes: the instances can be shared as they are
+                    perturbedInstances = maxCapacityView.prefixView( cellAttack.attackSize() );
+                }
+                else {
+                    // Assemble the instances from the perturbed columns of the cell
+                    perturbedInstances = maxCapacityView.derive( cellAttack.attackSize(), cellAttributes );
+                }
+                timer.setRows( perturbedInstances.numInstances() );
             }
+            perturbedInstancesList.add( completeCell(cell, perturbedInstances) );
         }
+        return perturbedInstancesList;
     }
 
-    private void exportTrainTestSet(Instances trainTestSet) throws IOException {
+    /**
+     * Name and export the perturbed instances of a cell
+     * @param cell cell of the grid
+     * @param perturbedInstances perturbed instances produced for the cell
+     * @return the perturbed instances
+     */
+    private Instances completeCell(GridCell cell, Instances perturbedInstances) {
+        String attackCode = cell.getAttackCode();
+        perturbedInstances.setRelationName(attackCode);
+
+        if(roc){
+//            try {
+//                perturbedDataMapForROC.addWithCapacity(attackName, capacity, featureCapacity, perturbedInstances);
+//            } catch (Exception e) {
+//                log.error("Problem storing the perturbed dataset for the ROC curve");
+//                log.debug(attackCode);
+//                ExceptionUtil.logException(e, log);
+//            }
+        }
+
+        // Export the perturbed instances
+        try {
+            exportPerturbedDataset(cell, perturbedInstances);
+        } catch (InterruptedException e) {
+            log.error("Interrupted while waiting for the export of the perturbed dataset");
+            log.debug(attackCode);
+            Thread.currentThread().interrupt();
+        }
+
+        return perturbedInstances;
+    }
+
+    /**
+     * Export the perturbed dataset in the same folder of the others attack.
+     * <p/>
+     * The export is asynchronous, and a failure does not stop the run
+     * @param cell cell of the grid of the attack. The attack code is used as file name
+     * @param perturbedDataset The perturbed dataset after the attack
+     * @throws InterruptedException if interrupted while waiting for a place in the export queue
+     */
+    private void exportPerturbedDataset(GridCell cell, Instances perturbedDataset) throws InterruptedException {
+        String folderName = cell.getExportFolder();
+        String attackCode = cell.getAttackCode();
         if (exportType != ExportType.NONE){
-            if(exportType == ExportType.ARFF || exportType == ExportType.ALL){
-                // Export ARFF
-                arffExport.exportInFolder( trainTestSet, runFolderName + File.separator + "trainTest", trainTestSet.relationName());
-            }
-            if(exportType == ExportType.CSV || exportType == ExportType.ALL){
-                // Export CSV
-                csvExport.exportInFolder( trainTestSet, runFolderName + File.separator + "trainTest", trainTestSet.relationName() );
+            cell.getRunContext().getPendingExports().add( exportPipeline.submit( () -> {
+                try {
+                    if(exportType == ExportType.DELTA){
+                        exportPatch( cell.getTarget(), perturbedDataset, folderName, attackCode );
+                    }
+                    else {
+                        export( perturbedDataset, folderName, attackCode );
+                    }
+                } catch (Exception e) {
+                    log.error("Problem during the export of the perturbed dataset");
+                    log.debug(attackCode);
+                    ExceptionUtil.logException(e, log);
+                }
+            }));
+        }
+    }
+
+    private void exportTrainSet(RunContext runContext, Instances trainSet) throws InterruptedException {
+        submitExport( runContext, trainSet, runContext.getRunFolderName(), trainSetFileName(trainSet) );
+    }
+
+    private static String trainSetFileName(Instances trainSet) {
+        return trainSet.relationName()+"_TRAIN";
+    }
+
+    private void exportTestSet(RunContext runContext, Instances testSet) throws InterruptedException {
+        submitExport( runContext, testSet, runContext.getRunFolderName(), testSet.relationName()+"_TEST" );
+    }
+
+    private void exportTrainTestSet(RunContext runContext, Instances trainTestSet) throws InterruptedException {
+        submitExport( runContext, trainTestSet, runContext.getRunFolderName() + File.separator + "trainTest", trainTestSet.relationName() );
+    }
+
+    /**
+     * Submit the export of the instances to the export pipeline. The instances must not be modified until
+     * {@link #awaitExports(RunContext)} is called
+     * @param runContext context of the run that waits for the export
+     * @param instances instances to export
+     * @param folderName destination folder
+     * @param fileName name of the exported file without extension
+     * @throws InterruptedException if interrupted while waiting for a place in the export queue
+     */
+    private void submitExport(RunContext runContext, Instances instances, String folderName, String fileName) throws InterruptedException {
+        if (exportType != ExportType.NONE){
+            runContext.getPendingExports().add( exportPipeline.submit( () -> export( instances, folderName, fileName ) ) );
+        }
+    }
+
+    /**
+     * Wait for the completion of all the exports of the run
+     * @param runContext context of the run
+     * @throws IOException if an export failed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private void awaitExports(RunContext runContext) throws IOException, InterruptedException {
+        try {
+            exportPipeline.await( runContext.getPendingExports() );
+        }
+        finally {
+            runContext.getPendingExports().clear();
+        }
+    }
+
+    /**
+     * Export the instances in the formats defined by exportType.
+     * <p/>
+     * New exporters are created at every call because the weka savers cannot be shared between threads
+     * @param instances instances to export
+     * @param folderName destination folder
+     * @param fileName name of the exported file without extension
+     * @throws IOException if problems during the export
+     */
+    private void export(Instances instances, String folderName, String fileName) throws IOException {
+        if (exportType != ExportType.NONE){
+            try (StageTimer timer = report.startStage(Stage.EXPORT).with("folder", folderName).with("file", fileName)) {
+                timer.setRows( instances.numInstances() );
+                // The fingerprint is shared by all the formats
+                String fingerprint = datasetStore != null ? FingerprintUtil.fingerprint(instances) : null;
+                if(exportType == ExportType.ARFF || exportType == ExportType.ALL){
+                    // Export ARFF
+                    timer.setBytesWritten( timer.getBytesWritten() + exportFile( new ArffSaver(), instances, folderName, fileName, fingerprint ) );
+                }
+                if(exportType == ExportType.CSV || exportType == ExportType.ALL){
+                    // Export CSV
+                    timer.setBytesWritten( timer.getBytesWritten() + exportFile( new CSVSaver(), instances, folderName, fileName, fingerprint ) );
+                }
+                if(exportType == ExportType.BINARY || exportType == ExportType.DELTA){
+                    // Export binary columnar
+                    timer.setBytesWritten( timer.getBytesWritten() + exportFile( new ColumnarSaver(), instances, folderName, fileName, fingerprint ) );
+                }
             }
         }
     }
 
+    /**
+     * Export the instances with the saver, in the dataset store if --dedup is present
+     * @param saver saver of the format of the export
+     * @param instances instances to export
+     * @param folderName destination folder
+     * @param fileName name of the exported file without extension
+     * @param fingerprint fingerprint of the instances, used only by the dataset store
+     * @return the bytes written
+     * @throws IOException if problems during the export
+     */
+    private long exportFile(AbstractFileSaver saver, Instances instances, String folderName, String fileName, String fingerprint) throws IOException {
+        if(datasetStore != null){
+            return datasetStore.export( saver, instances, fingerprint, new File(folderName + File.separator + fileName) );
+        }
+        Exporter exporter = new Exporter( saver );
+        exporter.exportInFolder( instances, folderName, fileName );
+        return exporter.getExportedFile().length();
+    }
+
+    /**
+     * Export the perturbed dataset as a patch against the training set of the run, exported by {@link #exportTrainSet(RunContext, Instances)}.
+     * <p/>
+     * If the patch would contain most of the values of the dataset, es: at the highest capacities, the whole dataset
+     * is exported in BINARY instead
+     * @param trainSet training set attacked
+     * @param perturbedDataset perturbed dataset
+     * @param folderName destination folder
+     * @param fileName name of the exported file without extension
+     * @throws IOException if problems during the export
+     */
+    private void exportPatch(Instances trainSet, Instances perturbedDataset, String folderName, String fileName) throws IOException {
+        DatasetPatch patch = DatasetPatch.diff( trainSet, perturbedDataset );
+        if( patch.changedValuesRatio() > MAX_PATCH_RATIO ){
+            export( perturbedDataset, folderName, fileName );
+            return;
+        }
+        try (StageTimer timer = report.startStage(Stage.EXPORT).with("folder", folderName).with("file", fileName)) {
+            timer.setRows( perturbedDataset.numInstances() );
+            File patchFile = new File( folderName + File.separator + fileName + DatasetPatch.FILE_EXTENSION );
+            patch.write( patchFile, trainSetFileName(trainSet) + new ColumnarSaver().getFileExtension() );
+            timer.setBytesWritten( patchFile.length() );
+        }
+    }
 
     /**
-     * Append the test set to every dataset present in perturbedDatasets
+     * Start the measure of a stage of a feature selection algorithm
+     * @param stage stage to measure
+     * @param attributeSelectorAlgorithm feature selection algorithm
+     * @return the timer of the stage
+     */
+    private StageTimer startStage(Stage stage, AbstractAttributeSelector attributeSelectorAlgorithm) {
+        return report.startStage(stage)
+                .with("balancing", balancing)
+                .with("algorithm", attributeSelectorAlgorithm.getName())
+                .with("knowledge", attributeSelectorAlgorithm.getKnowledge());
+    }
+
+    /**
+     * Start the measure of a stage of a cell of the grid
+     * @param stage stage to measure
+     * @param cell cell of the grid
+     * @return the timer of the stage
+     */
+    private StageTimer startStage(Stage stage, GridCell cell) {
+        Attack attack = cell.getAttack();
+        return report.startStage(stage)
+                .with("balancing", balancing)
+                .with("algorithm", cell.getFeatureSelectionAlgorithm())
+                .with("knowledge", cell.getKnowledge())
+                .with("run", cell.getRunNumber())
+                .with("attack", attack.getClass().getSimpleName())
+                .with("featuresCapacity", attack.getFeaturesCapacity())
+                .with("capacity", attack.getCapacity())
+                .with("cell", cell.getAttackCode());
+    }
+
+
+    /**
+     * Append the test set to every dataset present in the perturbed datasets of the run
+     * @param runContext context of the run
      * @param export true if the train+test file should be exported
      */
-    private void appendTestSet(boolean export){
-        perturbedDatasets.forEach( perturbedDataset -> {
+    private void appendTestSet(RunContext runContext, boolean export){
+        runContext.getPerturbedDatasets().forEach( perturbedDataset -> {
             try {
                 InstancesUtil.addAllInstances( perturbedDataset.getDataset(), perturbedDataset.getTestSet());
 
                 if(export){
-                    exportTrainTestSet( perturbedDataset.getDataset() );
+                    exportTrainTestSet( runContext, perturbedDataset.getDataset() );
                 }
 
             } catch (Exception e) {
@@ -540,9 +1170,20 @@ public class Disruptor implements Callable<Integer> {
 
     /**
      * Evaluate the effectiveness of the attacks using several ML algorithms
+     * @param runContexts contexts of all the runs. Their datasets are merged in the order of the runs
      * @param resultsTitle title to show with the results in the log
+     * @return number of instances of all the evaluated datasets
      */
-    private void evaluateAttacks(String resultsTitle) throws Exception {
+    private long evaluateAttacks(List<RunContext> runContexts, String resultsTitle) throws Exception {
+        if( runContexts.isEmpty() ){
+            // No runs, thus nothing to evaluate
+            return 0;
+        }
+        ArrayList<PerturbedDataset> perturbedDatasets = new ArrayList<>();
+        runContexts.forEach( runContext -> perturbedDatasets.addAll(runContext.getPerturbedDatasets()) );
+        // The classifiers are the same for every run
+        ArrayList<Classifier> classifiersList = runContexts.get(0).getClassifiersList();
+
         DisruptorExperiment experiment = new DisruptorExperiment(perturbedDatasets, trainPercentage, baseFolderName);
         if(executionCounter==1){
             experiment.logInfo( "\n" +
@@ -553,7 +1194,21 @@ public class Disruptor implements Callable<Integer> {
         }
         experiment.setClassifiersList(classifiersList);
         experiment.setResultsTitle(resultsTitle);
+        if(inMemoryEvaluation){
+            // The grid is completed, thus its threads are free for the evaluation
+            experiment.setInMemoryEvaluator( new InMemoryEvaluator(gridScheduler, modelCache) );
+        }
         experiment.start();
+
+        long evaluatedRows = 0;
+        for( PerturbedDataset perturbedDataset : perturbedDatasets ){
+            evaluatedRows += perturbedDataset.getDataset().numInstances();
+            if(inMemoryEvaluation){
+                // The test set is not appended to the train set
+                evaluatedRows += perturbedDataset.getTestSet().numInstances();
+            }
+        }
+        return evaluatedRows;
     }
 
 
@@ -573,6 +1228,7 @@ public class Disruptor implements Callable<Integer> {
     protected void populateFeatureSelectionAlgorithmsList(Instances dataset){
         featureSelectionAlgorithms.add(new InfoGainEval(dataset));
         featureSelectionAlgorithms.add(new RandomSelector(dataset));
+        featureSelectionAlgorithms.forEach( algorithm -> algorithm.setRankingCache(rankingCache) );
 
         addKnowledge();
     }
@@ -602,14 +1258,30 @@ public class Disruptor implements Callable<Integer> {
 
     /**
      * For each Feature selection algorithm of featureSelectionAlgorithms, perform the attribute selection of the target
-     * and store the ranked attributes in the selectedFeatureMap
+     * and store the ranked attributes in the selectedFeatureMap.
+     * The algorithms are independent and up to selectionThreads of them are performed at the same time
+     * @throws Exception the first problem performing a feature selection
      */
-    public void performFeatureSelection(){
+    public void performFeatureSelection() throws Exception {
 
+        int threadsNumber = Math.max( 1, Math.min(selectionThreads, featureSelectionAlgorithms.size()) );
+        AtomicInteger completed = new AtomicInteger();
+        List<Callable<Void>> selectionTasks = new ArrayList<>();
         for(AbstractAttributeSelector fsAlgorithm : featureSelectionAlgorithms){
-            fsAlgorithm.eval();
-            double[][] rankedAttributes = fsAlgorithm.getRankedAttributes();
-            selectedFeatureMap.put( fsAlgorithm, rankedAttributes );
+            selectionTasks.add( () -> {
+                try (StageTimer timer = startStage(Stage.FEATURE_SELECTION, fsAlgorithm)) {
+                    fsAlgorithm.eval();
+                    timer.setRows( fsAlgorithm.getTargetInstances().numInstances() );
+                }
+                selectedFeatureMap.put( fsAlgorithm, fsAlgorithm.getRankedAttributes() );
+                log.info("Feature selection {} K:{} completed ({}/{})", fsAlgorithm.getName(), fsAlgorithm.getKnowledge(), completed.incrementAndGet(), selectionTasks.size());
+                return null;
+            } );
+        }
+
+        log.info("Performing {} feature selections with {} threads...", selectionTasks.size(), threadsNumber);
+        try (GridScheduler selectionScheduler = new GridScheduler(threadsNumber, "disruptor-selection")) {
+            selectionScheduler.invokeAllInOrder(selectionTasks);
         }
 
     }
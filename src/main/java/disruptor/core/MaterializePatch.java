@@ -0,0 +1,126 @@
+package disruptor.core;
+
+import disruptor.properties.versionproviders.MaterializePatchVersionProvider;
+import disruptor.saver.ColumnarLoader;
+import disruptor.saver.DatasetPatch;
+import disruptor.saver.Exporter;
+import picocli.CommandLine;
+import weka.core.Instances;
+import weka.core.converters.ArffSaver;
+import weka.core.converters.CSVSaver;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@CommandLine.Command(
+        name = "materialize-patch",
+        description = "\nRebuild the full perturbed datasets from the patches exported by Disruptor with --export DELTA.\nThe datasets exported in BINARY are converted as well\n",
+        versionProvider = MaterializePatchVersionProvider.class,
+        // mixinStandardHelpOptions attribute adds --help and --version options
+        mixinStandardHelpOptions = true
+)
+public class MaterializePatch implements Callable<Integer> {
+
+    protected enum Format {ALL, ARFF, CSV}
+
+    private static final String COLUMNAR_EXTENSION = new ColumnarLoader().getFileExtension();
+
+    // COMMAND LINE PARAMETERS AND OPTIONS -----------------------------------------
+    @CommandLine.Parameters(
+            description = "Patch (.dpatch) or BINARY (.dcol) files to rebuild. If a folder is specified, all the files inside it are rebuilt",
+            paramLabel = "FILE",
+            arity = "1..*")
+    private List<File> inputs;
+
+    @CommandLine.Option(
+            names = {"-f", "--format"},
+            description = "Valid values: ${COMPLETION-CANDIDATES}\nFormat of the rebuilt datasets\nDefault: ARFF\n",
+            defaultValue = "ARFF")
+    private Format format = Format.ARFF;
+
+    @CommandLine.Option(
+            names = {"-o", "--output-path"},
+            description = "Specify a different folder for the output. By default every dataset is written in the folder of its source file",
+            paramLabel = "OUTPUT_FOLDER_PATH")
+    private String outputFolderPath;
+
+
+    // EXECUTION -----------------------------------------
+    @Override
+    public Integer call() throws Exception {
+        int exitCode = 0;
+        // The patches of the same run share the same base dataset, thus it is read only once
+        Map<File, Instances> baseDatasets = new HashMap<>();
+        for (File file : inputFiles()) {
+            try {
+                if (file.getName().endsWith(DatasetPatch.FILE_EXTENSION)) {
+                    DatasetPatch patch = DatasetPatch.read(file);
+                    File baseFile = patch.baseFile(file);
+                    Instances base = baseDatasets.get(baseFile);
+                    if (base == null) {
+                        base = ColumnarLoader.read(baseFile);
+                        baseDatasets.put(baseFile, base);
+                    }
+                    export(patch.apply(base), file, DatasetPatch.FILE_EXTENSION);
+                }
+                else {
+                    export(ColumnarLoader.read(file), file, COLUMNAR_EXTENSION);
+                }
+                System.out.println(file.getPath());
+            } catch (IOException | IllegalArgumentException e) {
+                e.printStackTrace();
+                System.out.println("Problem rebuilding " + file.getPath());
+                exitCode = 1;
+            }
+        }
+        System.out.println("---------------- COMPLETED ----------------");
+        return exitCode;
+    }
+
+    /**
+     * @return the files specified, with the patches and the BINARY files inside the specified folders
+     * @throws IOException if problems listing the content of a folder
+     */
+    private List<File> inputFiles() throws IOException {
+        List<File> inputFiles = new ArrayList<>();
+        for (File input : inputs) {
+            if (input.isDirectory()) {
+                try (Stream<Path> paths = Files.walk(input.toPath())) {
+                    inputFiles.addAll( paths.filter( path -> path.toString().endsWith(DatasetPatch.FILE_EXTENSION) || path.toString().endsWith(COLUMNAR_EXTENSION) )
+                            .sorted()
+                            .map(Path::toFile)
+                            .collect(Collectors.toList()) );
+                }
+            }
+            else {
+                inputFiles.add(input);
+            }
+        }
+        return inputFiles;
+    }
+
+    private void export(Instances dataset, File inputFile, String extension) throws IOException {
+        String folder = outputFolderPath != null ? outputFolderPath : inputFile.getAbsoluteFile().getParent();
+        String fileName = inputFile.getName().substring(0, inputFile.getName().length() - extension.length());
+        if (format == Format.ARFF || format == Format.ALL) {
+            new Exporter(new ArffSaver()).exportInFolder(dataset, folder, fileName);
+        }
+        if (format == Format.CSV || format == Format.ALL) {
+            new Exporter(new CSVSaver()).exportInFolder(dataset, folder, fileName);
+        }
+    }
+
+    public static void main(String... args) {
+        int exitCode = new CommandLine(new MaterializePatch()).execute(args);
+        System.exit(exitCode);
+    }
+}
@@ -9,6 +9,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
 import disruptor.util.ExceptionUtil;
+import disruptor.util.JsonUtil;
 import weka.classifiers.Classifier;
 import weka.core.Instances;
 import weka.core.Range;
@@ -19,6 +20,7 @@ import javax.swing.*;
 import java.beans.IntrospectionException;
 import java.beans.PropertyDescriptor;
 import java.io.*;
+import java.nio.file.Files;
 import java.util.ArrayList;
 
 @Slf4j
@@ -59,11 +61,11 @@ public class DisruptorExperiment {
     private boolean classification = true;
 
     /**
-     * @param instancesResultListener Outputs the received results in arff format to a Writer
-     * @return Outputs the received results in arff format to a Writer
+     * @param resultListener keeps the results of the Experimenter in memory, for the analysis and the arff output
+     * @return keeps the results of the Experimenter in memory, for the analysis and the arff output
      */
     @Getter @Setter
-    private InstancesResultListener instancesResultListener = new InstancesResultListener();
+    private InMemoryResultListener resultListener = new InMemoryResultListener();
 
     /**
      * @param classifiersList list of classifier used for the evaluation
@@ -75,6 +77,13 @@ public class DisruptorExperiment {
     @Getter @Setter
     private String resultsTitle = "";
 
+    /**
+     * @param inMemoryEvaluator engine evaluating the datasets in memory, null to use the Weka Experimenter
+     * @return engine evaluating the datasets in memory, null if the Weka Experimenter is used
+     */
+    @Getter @Setter
+    private InMemoryEvaluator inMemoryEvaluator;
+
 
 
     public DisruptorExperiment(ArrayList<PerturbedDataset> perturbedDatasets, double trainPercentage, String outputFolderName) throws Exception {
@@ -89,13 +98,47 @@ public class DisruptorExperiment {
      * Evaluate the effectiveness of the attacks using several ML algorithms
      */
     public void start() throws Exception {
-        // Use the Experimenter Weka API for the evaluation
-        // 1. setup the experiment ------------------------------------------------------------------------------------------
-        setupExperiment();
-        // 2. run experiment -------------------------------------------------------------------------------------------
-        runExperiment();
+        Instances result;
+        if (inMemoryEvaluator != null) {
+            // 1. and 2. train and evaluate the classifiers without the files of the Experimenter -------------------------
+            result = evaluateInMemory();
+        }
+        else {
+            // Use the Experimenter Weka API for the evaluation
+            // 1. setup the experiment ------------------------------------------------------------------------------------------
+            setupExperiment();
+            // 2. run experiment -------------------------------------------------------------------------------------------
+            runExperiment();
+            result = resultListener.toInstances();
+        }
         // 3. calculate statistics and output them -------------------------------------------------------------------------------------------
-        analyseExperiment();
+        analyseExperiment(result);
+    }
+
+
+    /**
+     * Evaluate the datasets with the {@link InMemoryEvaluator}. The train sets of the datasets must not contain the
+     * test set
+     * @return the results of the evaluation, with the same key columns of the Experimenter output
+     * @throws Exception if problems training or evaluating a classifier
+     */
+    private Instances evaluateInMemory() throws Exception {
+        Instances dataset = perturbedDatasets.get(0).getDataset();
+        if ( dataset.classAttribute().isNominal() ) {
+            classification = true;
+        }
+        else if ( dataset.classAttribute().isNumeric() ) {
+            classification = false;
+        }
+        else {
+            throw new IllegalArgumentException("The class attribute is neither nominal nor numeric ");
+        }
+
+        // No dataset is exported, but the results are written in the experiment folder
+        Files.createDirectories(new File(experimentFolderName).toPath());
+
+        log.info("\n\n:::::::: {} ::::::::\n", getResultsTitle());
+        return inMemoryEvaluator.evaluate(classifiersList, perturbedDatasets, classification);
     }
 
 
@@ -194,9 +237,8 @@ public class DisruptorExperiment {
      * @throws Exception
      */
     private void runExperiment() throws Exception {
-        // Save result in an arff file
-        instancesResultListener.setOutputFile(new File(experimentFolderName+File.separator+"experimenterOutput.arff"));
-        experiment.setResultListener(instancesResultListener);
+        // Keep the results in memory
+        experiment.setResultListener(resultListener);
 
         log.info("\n\n:::::::: {} ::::::::\n", getResultsTitle());
         log.info("Initializing...");
@@ -210,6 +252,9 @@ public class DisruptorExperiment {
         log.info("Finishing...");
         experiment.postProcess();
 
+        // Save result in an arff file
+        resultListener.writeArff(new File(experimentFolderName+File.separator+"experimenterOutput.arff"));
+
         // Save result in database
 //        File fileProps = new File(getClass().getClassLoader().getResource("DatabaseUtils.props").toURI());
 //        databaseResultListener.initialize(fileProps);
@@ -229,13 +274,13 @@ public class DisruptorExperiment {
 
     /**
      * Weka Experimenter "Analyse"
+     * @param result results of the experiment, one row for each classifier and dataset
      * @throws Exception
      */
-    private void analyseExperiment() throws Exception {
+    private void analyseExperiment(Instances result) throws Exception {
         log.info("Evaluating...");
 
         PairedTTester tester = new PairedCorrectedTTester();
-        Instances result = new Instances(new BufferedReader(new FileReader(instancesResultListener.getOutputFile())));
         tester.setInstances(result);
         tester.setSortColumn(-1);
         tester.setRunColumn(result.attribute("Key_Run").index());
@@ -281,6 +326,7 @@ public class DisruptorExperiment {
         log.info("Results:\n\n{}\n", getResultsTitle());
         printResultsPlainText(matrix);
         printResultsCSV(matrix);
+        printResultsStructured(matrix);
     }
 
     private static void printResultsPlainText(ResultMatrix matrix) {
@@ -334,6 +380,53 @@ public class DisruptorExperiment {
 
     }
 
+    /**
+     * Append the results to results.csv and results.jsonl in the experiment folder, one record for each dataset and
+     * classifier, with the numeric values of the matrix instead of its formatted text
+     * @param matrix matrix of the results, with a column for each dataset and a row for each classifier
+     */
+    private void printResultsStructured(ResultMatrix matrix) {
+        String measure = classification ? InMemoryEvaluator.PERCENT_CORRECT : InMemoryEvaluator.CORRELATION_COEFFICIENT;
+        File csvFile = new File(experimentFolderName, "results.csv");
+        CSVFormat.Builder csvFormat = CSVFormat.DEFAULT.builder();
+        if (!csvFile.exists()) {
+            csvFormat.setHeader("dataset", "classifier", "measure", "mean", "stdDev", "count", "significance");
+        }
+        try (CSVPrinter csvPrinter = new CSVPrinter(new FileWriter(csvFile, true), csvFormat.build());
+             PrintWriter jsonWriter = new PrintWriter(new FileWriter(new File(experimentFolderName, "results.jsonl"), true))) {
+            for (int c = 0; c < matrix.getColCount(); c++) {
+                for (int r = 0; r < matrix.getRowCount(); r++) {
+                    // The first dataset is the base of the comparisons
+                    String significance = c == 0 ? "BASE" : significanceName(matrix.getSignificance(c, r));
+                    csvPrinter.printRecord(matrix.getColName(c), matrix.getRowName(r), measure, matrix.getMean(c, r), matrix.getStdDev(c, r), matrix.getCount(c), significance);
+                    jsonWriter.println("{" +
+                            "\"dataset\": " + JsonUtil.quote(matrix.getColName(c)) +
+                            ", \"classifier\": " + JsonUtil.quote(matrix.getRowName(r)) +
+                            ", \"measure\": " + JsonUtil.quote(measure) +
+                            ", \"mean\": " + JsonUtil.number(matrix.getMean(c, r)) +
+                            ", \"stdDev\": " + JsonUtil.number(matrix.getStdDev(c, r)) +
+                            ", \"count\": " + JsonUtil.number(matrix.getCount(c)) +
+                            ", \"significance\": " + JsonUtil.quote(significance) +
+                            "}");
+                }
+            }
+        } catch (IOException e) {
+            log.error("Problem writing the structured results");
+            ExceptionUtil.logException(e, log);
+        }
+    }
+
+    private static String significanceName(int significance) {
+        switch (significance) {
+            case ResultMatrix.SIGNIFICANCE_WIN:
+                return "WIN";
+            case ResultMatrix.SIGNIFICANCE_LOSS:
+                return "LOSS";
+            default:
+                return "TIE";
+        }
+    }
+
     public void logInfo(String message){
         log.info(message);
     }
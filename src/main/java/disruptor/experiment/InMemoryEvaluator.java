@@ -0,0 +1,214 @@
+package disruptor.experiment;
+
+import disruptor.perturbeddataset.PerturbedDataset;
+import disruptor.scheduler.GridScheduler;
+import disruptor.util.FingerprintUtil;
+import lombok.extern.slf4j.Slf4j;
+import weka.classifiers.AbstractClassifier;
+import weka.classifiers.Classifier;
+import weka.classifiers.Evaluation;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+import weka.core.OptionHandler;
+import weka.core.Utils;
+
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * Evaluation engine that trains every classifier on the perturbed train sets kept in memory and evaluates it on their
+ * test sets with {@link Evaluation}, without writing the datasets and the results to disk as the Weka Experimenter does.
+ * <p/>
+ * Every (classifier, dataset) pair is an independent task executed by a {@link GridScheduler}. The results are
+ * collected in a dataset with the same key columns of the output of the Experimenter, thus they can be analysed by the
+ * same tester and produce the same accuracy, standard deviation and significance outputs.
+ */
+@Slf4j
+public class InMemoryEvaluator {
+
+    public static final String KEY_DATASET = "Key_Dataset";
+    public static final String KEY_RUN = "Key_Run";
+    public static final String KEY_SCHEME = "Key_Scheme";
+    public static final String KEY_SCHEME_OPTIONS = "Key_Scheme_options";
+    public static final String KEY_SCHEME_VERSION_ID = "Key_Scheme_version_ID";
+    public static final String NUMBER_OF_TRAINING_INSTANCES = "Number_of_training_instances";
+    public static final String NUMBER_OF_TESTING_INSTANCES = "Number_of_testing_instances";
+    public static final String PERCENT_CORRECT = "Percent_correct";
+    public static final String CORRELATION_COEFFICIENT = "Correlation_coefficient";
+
+    /**
+     * The Experimenter is configured with a single run for every dataset
+     */
+    private static final String RUN = "1";
+
+    private final GridScheduler scheduler;
+
+    private final ModelCache modelCache;
+
+    /**
+     * @param scheduler scheduler executing the evaluations of the (classifier, dataset) pairs
+     */
+    public InMemoryEvaluator(GridScheduler scheduler) {
+        this(scheduler, null);
+    }
+
+    /**
+     * @param scheduler scheduler executing the evaluations of the (classifier, dataset) pairs
+     * @param modelCache cache of the trained classifiers and of their predictions, null to train every classifier
+     */
+    public InMemoryEvaluator(GridScheduler scheduler, ModelCache modelCache) {
+        this.scheduler = scheduler;
+        this.modelCache = modelCache;
+    }
+
+    /**
+     * Train every classifier on the train set of every dataset and evaluate it on the test set of the dataset
+     * @param classifiers classifiers to evaluate. They are used as templates and are not trained
+     * @param perturbedDatasets datasets to use. The train sets must not contain the test set
+     * @param classification true to measure the percentage of correctly classified instances, false to measure the
+     *                       correlation coefficient of a regression
+     * @return a dataset with a row for each pair, in the order classifier by classifier as the Experimenter: the key
+     * columns of the Experimenter output, the sizes of the train and test sets used by the corrected t-test and
+     * {@link #PERCENT_CORRECT} or {@link #CORRELATION_COEFFICIENT}
+     * @throws Exception the first problem training or evaluating a classifier
+     */
+    public Instances evaluate(List<Classifier> classifiers, List<PerturbedDataset> perturbedDatasets, boolean classification) throws Exception {
+        // The fingerprints of the datasets are computed once for all the classifiers
+        Map<Instances, String> fingerprints = modelCache != null ? fingerprints(perturbedDatasets) : Collections.emptyMap();
+
+        List<Callable<double[]>> tasks = new ArrayList<>();
+        for( Classifier classifier : classifiers ){
+            for( PerturbedDataset perturbedDataset : perturbedDatasets ){
+                tasks.add( () -> evaluate(classifier, perturbedDataset, fingerprints, classification) );
+            }
+        }
+        log.info("Evaluating {} classifiers on {} datasets with {} threads...", classifiers.size(), perturbedDatasets.size(), scheduler.getThreads());
+        List<double[]> measures = scheduler.invokeAllInOrder(tasks);
+
+        Instances result = resultStructure(classifiers, perturbedDatasets, classification);
+        int task = 0;
+        for( Classifier classifier : classifiers ){
+            for( PerturbedDataset perturbedDataset : perturbedDatasets ){
+                double[] values = new double[result.numAttributes()];
+                values[0] = result.attribute(KEY_DATASET).indexOfValue( perturbedDataset.getDataset().relationName() );
+                values[1] = result.attribute(KEY_RUN).indexOfValue(RUN);
+                values[2] = result.attribute(KEY_SCHEME).indexOfValue( classifier.getClass().getName() );
+                values[3] = result.attribute(KEY_SCHEME_OPTIONS).indexOfValue( schemeOptions(classifier) );
+                values[4] = result.attribute(KEY_SCHEME_VERSION_ID).indexOfValue( schemeVersion(classifier) );
+                System.arraycopy(measures.get(task++), 0, values, 5, 3);
+                result.add( new DenseInstance(1, values) );
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Train a copy of the classifier on the train set and evaluate it on the test set
+     * @param fingerprints fingerprints of the train and test sets, used with the model cache
+     * @return number of training instances, number of testing instances and percentage of correctly classified
+     * instances or correlation coefficient
+     */
+    private double[] evaluate(Classifier template, PerturbedDataset perturbedDataset, Map<Instances, String> fingerprints, boolean classification) throws Exception {
+        Instances trainSet = perturbedDataset.getDataset();
+        Instances testSet = perturbedDataset.getTestSet();
+        Evaluation evaluation = new Evaluation(trainSet);
+        if (modelCache != null) {
+            // The cached predictions are evaluated as if they were computed by the classifier. The cache copies the
+            // train set only when it trains the classifier
+            double[][] predictions = modelCache.predictions(template, trainSet, fingerprints.get(trainSet), testSet, fingerprints.get(testSet));
+            for (int i = 0; i < testSet.numInstances(); i++) {
+                evaluation.evaluateModelOnceAndRecordPrediction(predictions[i], testSet.instance(i));
+            }
+        }
+        else {
+            Classifier classifier = AbstractClassifier.makeCopy(template);
+            // The train set is shared by the tasks of all the classifiers: a classifier may reorder its own copy
+            classifier.buildClassifier( new Instances(trainSet) );
+            evaluation.evaluateModel(classifier, testSet);
+        }
+        return new double[]{
+                trainSet.numInstances(),
+                evaluation.numInstances(),
+                classification ? evaluation.pctCorrect() : evaluation.correlationCoefficient()
+        };
+    }
+
+    /**
+     * Compute in parallel the fingerprint of every train and test set. The datasets are identified by their instance,
+     * thus a test set shared by many perturbed datasets is fingerprinted only once
+     * @return the fingerprint of every dataset
+     */
+    private Map<Instances, String> fingerprints(List<PerturbedDataset> perturbedDatasets) throws Exception {
+        Set<Instances> datasets = Collections.newSetFromMap(new IdentityHashMap<>());
+        for( PerturbedDataset perturbedDataset : perturbedDatasets ){
+            datasets.add( perturbedDataset.getDataset() );
+            datasets.add( perturbedDataset.getTestSet() );
+        }
+        List<Instances> datasetsList = new ArrayList<>(datasets);
+        List<Callable<String>> tasks = new ArrayList<>();
+        datasetsList.forEach( dataset -> tasks.add( () -> FingerprintUtil.fingerprint(dataset) ) );
+        List<String> fingerprintsList = scheduler.invokeAllInOrder(tasks);
+
+        Map<Instances, String> fingerprints = new IdentityHashMap<>();
+        for (int i = 0; i < datasetsList.size(); i++) {
+            fingerprints.put( datasetsList.get(i), fingerprintsList.get(i) );
+        }
+        return fingerprints;
+    }
+
+    /**
+     * The key columns are nominal, with the values in the order they are met, as in the output of the Experimenter
+     */
+    private static Instances resultStructure(List<Classifier> classifiers, List<PerturbedDataset> perturbedDatasets, boolean classification) {
+        LinkedHashSet<String> datasetNames = new LinkedHashSet<>();
+        perturbedDatasets.forEach( perturbedDataset -> datasetNames.add(perturbedDataset.getDataset().relationName()) );
+        LinkedHashSet<String> schemes = new LinkedHashSet<>();
+        LinkedHashSet<String> schemesOptions = new LinkedHashSet<>();
+        LinkedHashSet<String> schemesVersions = new LinkedHashSet<>();
+        for( Classifier classifier : classifiers ){
+            schemes.add( classifier.getClass().getName() );
+            schemesOptions.add( schemeOptions(classifier) );
+            schemesVersions.add( schemeVersion(classifier) );
+        }
+
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        attributes.add( new Attribute(KEY_DATASET, new ArrayList<>(datasetNames)) );
+        attributes.add( new Attribute(KEY_RUN, new ArrayList<>(Collections.singletonList(RUN))) );
+        attributes.add( new Attribute(KEY_SCHEME, new ArrayList<>(schemes)) );
+        attributes.add( new Attribute(KEY_SCHEME_OPTIONS, new ArrayList<>(schemesOptions)) );
+        attributes.add( new Attribute(KEY_SCHEME_VERSION_ID, new ArrayList<>(schemesVersions)) );
+        attributes.add( new Attribute(NUMBER_OF_TRAINING_INSTANCES) );
+        attributes.add( new Attribute(NUMBER_OF_TESTING_INSTANCES) );
+        attributes.add( new Attribute(classification ? PERCENT_CORRECT : CORRELATION_COEFFICIENT) );
+        return new Instances("InMemoryEvaluator", attributes, classifiers.size() * perturbedDatasets.size());
+    }
+
+    /**
+     * @return the options of the classifier, as reported by the Experimenter
+     */
+    private static String schemeOptions(Classifier classifier) {
+        if (classifier instanceof OptionHandler) {
+            return Utils.joinOptions( ((OptionHandler) classifier).getOptions() );
+        }
+        return "";
+    }
+
+    /**
+     * @return the serial version of the classifier class, as reported by the Experimenter
+     */
+    private static String schemeVersion(Classifier classifier) {
+        if (classifier instanceof Serializable) {
+            return "" + ObjectStreamClass.lookup(classifier.getClass()).getSerialVersionUID();
+        }
+        return "";
+    }
+}
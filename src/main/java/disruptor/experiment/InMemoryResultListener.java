@@ -0,0 +1,186 @@
+package disruptor.experiment;
+
+import lombok.Getter;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+import weka.core.Utils;
+import weka.experiment.ResultListener;
+import weka.experiment.ResultProducer;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Result listener of the Weka Experimenter that keeps the results in memory, one primitive array for each column.
+ * <p/>
+ * The columns are the ones of {@link weka.experiment.InstancesResultListener}: the keys of the result producer, with the
+ * Key_ prefix, and its results. The numeric columns contain the values, the other columns the index of the value in a
+ * dictionary of the column, in the order the values are received. Thus, the results can be given to the tester as
+ * {@link Instances} with {@link #toInstances()} without writing and parsing them again, and written in ARFF with
+ * {@link #writeArff(File)} only to keep a copy of them.
+ */
+public class InMemoryResultListener implements ResultListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private String[] columnNames = new String[0];
+
+    private boolean[] numericColumns = new boolean[0];
+
+    private double[][] columns = new double[0][];
+
+    private List<List<String>> dictionaries = new ArrayList<>();
+
+    private List<HashMap<String, Integer>> dictionariesIndexes = new ArrayList<>();
+
+    /**
+     * @return number of results received
+     */
+    @Getter
+    private int numResults;
+
+    @Override
+    public String[] determineColumnConstraints(ResultProducer rp) {
+        // All the columns are stored
+        return null;
+    }
+
+    @Override
+    public void preProcess(ResultProducer rp) throws Exception {
+        String[] keyNames = rp.getKeyNames();
+        Object[] keyTypes = rp.getKeyTypes();
+        String[] resultNames = rp.getResultNames();
+        Object[] resultTypes = rp.getResultTypes();
+
+        int numColumns = keyNames.length + resultNames.length;
+        columnNames = new String[numColumns];
+        numericColumns = new boolean[numColumns];
+        columns = new double[numColumns][INITIAL_CAPACITY];
+        dictionaries = new ArrayList<>();
+        dictionariesIndexes = new ArrayList<>();
+        numResults = 0;
+        for (int c = 0; c < numColumns; c++) {
+            boolean key = c < keyNames.length;
+            columnNames[c] = key ? "Key_" + keyNames[c] : resultNames[c - keyNames.length];
+            Object type = key ? keyTypes[c] : resultTypes[c - keyNames.length];
+            if (type instanceof Double) {
+                numericColumns[c] = true;
+            }
+            else if (!(type instanceof String)) {
+                throw new IllegalArgumentException("Unknown type of the column " + columnNames[c]);
+            }
+            dictionaries.add( new ArrayList<>() );
+            dictionariesIndexes.add( new HashMap<>() );
+        }
+    }
+
+    @Override
+    public void postProcess(ResultProducer rp) {
+        // The results are used after the experiment with toInstances
+    }
+
+    @Override
+    public boolean isResultRequired(ResultProducer rp, Object[] key) {
+        return true;
+    }
+
+    @Override
+    public void acceptResult(ResultProducer rp, Object[] key, Object[] result) {
+        if (numResults == columns[0].length) {
+            for (int c = 0; c < columns.length; c++) {
+                columns[c] = Arrays.copyOf(columns[c], columns[c].length * 2);
+            }
+        }
+        for (int c = 0; c < columns.length; c++) {
+            Object value = c < key.length ? key[c] : result[c - key.length];
+            columns[c][numResults] = numericColumns[c] ? numericValue(value) : dictionaryIndex(c, value);
+        }
+        numResults++;
+    }
+
+    /**
+     * @param column index of the column
+     * @return the name of the column
+     */
+    public String columnName(int column) {
+        return columnNames[column];
+    }
+
+    /**
+     * @param column index of the column
+     * @return the values of a numeric column, or the indexes in the dictionary of the column, for every result.
+     * Missing values are NaN
+     */
+    public double[] column(int column) {
+        return Arrays.copyOf(columns[column], numResults);
+    }
+
+    /**
+     * @return the results as instances with the same attributes of {@link weka.experiment.InstancesResultListener}:
+     * numeric for the numeric columns, nominal for the others
+     */
+    public Instances toInstances() {
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        for (int c = 0; c < columnNames.length; c++) {
+            attributes.add( numericColumns[c] ? new Attribute(columnNames[c]) : new Attribute(columnNames[c], new ArrayList<>(dictionaries.get(c))) );
+        }
+        Instances instances = new Instances("InstanceResultListener", attributes, numResults);
+        for (int r = 0; r < numResults; r++) {
+            double[] values = new double[columns.length];
+            for (int c = 0; c < columns.length; c++) {
+                values[c] = columns[c][r];
+            }
+            instances.add( new DenseInstance(1, values) );
+        }
+        return instances;
+    }
+
+    /**
+     * Write the results in ARFF, in the same format of {@link weka.experiment.InstancesResultListener}
+     * @param file file to write, created with its folder if needed
+     * @throws IOException if problems writing the file
+     */
+    public void writeArff(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            Files.createDirectories(parent.toPath());
+        }
+        Instances instances = toInstances();
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+             PrintWriter out = new PrintWriter(writer)) {
+            out.println(new Instances(instances, 0));
+            for (int r = 0; r < instances.numInstances(); r++) {
+                out.println(instances.instance(r));
+            }
+        }
+    }
+
+    private static double numericValue(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : Utils.missingValue();
+    }
+
+    private double dictionaryIndex(int column, Object value) {
+        if (value == null) {
+            return Utils.missingValue();
+        }
+        String text = value.toString();
+        Integer index = dictionariesIndexes.get(column).get(text);
+        if (index == null) {
+            index = dictionaries.get(column).size();
+            dictionaries.get(column).add(text);
+            dictionariesIndexes.get(column).put(text, index);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,96 @@
+package disruptor.experiment;
+
+import weka.classifiers.AbstractClassifier;
+import weka.classifiers.Classifier;
+import weka.classifiers.Evaluation;
+import weka.classifiers.UpdateableClassifier;
+import weka.classifiers.bayes.NaiveBayesUpdateable;
+import weka.classifiers.functions.SGD;
+import weka.classifiers.lazy.IBk;
+import weka.classifiers.trees.HoeffdingTree;
+import weka.core.Instances;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Evaluation of a capacity incremental attack, es: label flipping, across all its capacities with the Weka
+ * {@link UpdateableClassifier}s, without training a classifier from scratch for every capacity.
+ * <p/>
+ * The attack perturbs the first attackSize rows of the train set, thus the train set of every capacity contains the
+ * rows never attacked, the perturbed rows up to its attack size and the clean rows from its attack size up to the
+ * biggest attack size. The classifier is trained only once on the rows never attacked, then the perturbed rows are fed
+ * incrementally in the ascending order of the capacities, and the model of each capacity is a copy of the incremental
+ * one updated with its clean rows. Thus, every model has seen exactly the rows of the train set of its capacity.
+ * <p/>
+ * The models of the learners that do not depend on the order of the rows, es: IBk, are the same that would be trained
+ * on the perturbed datasets. For the other learners, es: HoeffdingTree and SGD, the accuracy-vs-capacity curve is an
+ * approximation of the one of the retrained models.
+ */
+public class IncrementalCurveEvaluator {
+
+    private IncrementalCurveEvaluator() {}
+
+    /**
+     * @return the updateable classifiers used by default for the curves
+     */
+    public static List<Classifier> defaultClassifiers() {
+        List<Classifier> classifiers = new ArrayList<>();
+        classifiers.add( new NaiveBayesUpdateable() );
+        classifiers.add( new HoeffdingTree() );
+        classifiers.add( new IBk() );
+        classifiers.add( new SGD() );
+        return classifiers;
+    }
+
+    /**
+     * Evaluate the classifier trained on the train set of every capacity of the attack
+     * @param template classifier to evaluate. Must be an {@link UpdateableClassifier}. It is not modified
+     * @param trainSet train set before the attack
+     * @param maxCapacityInstances train set after the attack with the biggest capacity, with the same rows of the train
+     *                             set where only the first attackSizes[attackSizes.length-1] rows are perturbed
+     * @param attackSizes number of rows attacked with every capacity, in ascending order
+     * @param testSet test set used for the evaluation
+     * @return the percentage of correctly classified instances of the test set for every attack size
+     * @throws IllegalArgumentException if the classifier is not updateable or the attack sizes are not ascending
+     * @throws Exception if problems training or evaluating the classifier
+     */
+    public static double[] evaluate(Classifier template, Instances trainSet, Instances maxCapacityInstances, int[] attackSizes, Instances testSet) throws Exception {
+        if (!(template instanceof UpdateableClassifier)) {
+            throw new IllegalArgumentException(template.getClass().getSimpleName() + " is not an updateable classifier");
+        }
+        for (int i = 1; i < attackSizes.length; i++) {
+            if (attackSizes[i] < attackSizes[i-1]) {
+                throw new IllegalArgumentException("The attack sizes should be in ascending order");
+            }
+        }
+        int maxAttackSize = attackSizes.length > 0 ? attackSizes[attackSizes.length-1] : 0;
+
+        // Trained only once on the rows never attacked
+        Classifier incremental = AbstractClassifier.makeCopy(template);
+        incremental.buildClassifier( new Instances(trainSet, maxAttackSize, trainSet.numInstances() - maxAttackSize) );
+
+        double[] correctness = new double[attackSizes.length];
+        int fedRows = 0;
+        for (int c = 0; c < attackSizes.length; c++) {
+            // The perturbed rows of this capacity that are not yet in the model
+            for (; fedRows < attackSizes[c]; fedRows++) {
+                ((UpdateableClassifier) incremental).updateClassifier( maxCapacityInstances.instance(fedRows) );
+            }
+
+            // The clean rows that are attacked only by the bigger capacities
+            Classifier model = incremental;
+            if (attackSizes[c] < maxAttackSize) {
+                model = AbstractClassifier.makeCopy(incremental);
+                for (int i = attackSizes[c]; i < maxAttackSize; i++) {
+                    ((UpdateableClassifier) model).updateClassifier( trainSet.instance(i) );
+                }
+            }
+
+            Evaluation evaluation = new Evaluation(trainSet);
+            evaluation.evaluateModel(model, testSet);
+            correctness[c] = evaluation.pctCorrect();
+        }
+        return correctness;
+    }
+}
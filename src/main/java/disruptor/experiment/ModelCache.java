@@ -0,0 +1,262 @@
+package disruptor.experiment;
+
+import disruptor.util.ExceptionUtil;
+import disruptor.util.FingerprintUtil;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import weka.classifiers.AbstractClassifier;
+import weka.classifiers.Classifier;
+import weka.core.BatchPredictor;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.OptionHandler;
+import weka.core.SerializationHelper;
+import weka.core.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the classifiers trained by the {@link InMemoryEvaluator} and of their predictions on the test sets.
+ * <p/>
+ * A model is identified by the fingerprint of its train set and by the class and the options of the classifier, thus
+ * the same training job, es: the unperturbed train set of a run evaluated again for every feature selection algorithm
+ * and knowledge, or a cell with capacity 0, is performed only once. The predictions of a model are identified by the
+ * fingerprint of the test set.
+ * <p/>
+ * Only the maxModels models used most recently are kept in memory, together with their predictions: most of the
+ * perturbed train sets are unique, thus their models are never requested again. If a folder is specified, every model
+ * is also serialized in the folder together with its predictions, and reused by the following executions or after
+ * being discarded from the memory.
+ * <p/>
+ * The cache can be used by different threads at the same time.
+ */
+@Slf4j
+public class ModelCache {
+
+    public static final String FILE_EXTENSION = ".model";
+
+    public static final int DEFAULT_MAX_MODELS = 256;
+
+    /**
+     * @return folder of the serialized models, null if the models are kept only in memory
+     */
+    @Getter
+    private final File folder;
+
+    /**
+     * @return maximum number of models kept in memory
+     */
+    @Getter
+    private final int maxModels;
+
+    /**
+     * Models, trained or being trained, by fingerprint, from the least recently used. Access only synchronized on the map
+     */
+    private final LinkedHashMap<String, FutureTask<CachedModel>> models;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong trainedModels = new AtomicLong();
+
+    /**
+     * @param folder folder of the serialized models, created if needed. If null the models are kept only in memory
+     * @throws IOException if problems creating the folder
+     */
+    public ModelCache(File folder) throws IOException {
+        this(folder, DEFAULT_MAX_MODELS);
+    }
+
+    /**
+     * @param folder folder of the serialized models, created if needed. If null the models are kept only in memory
+     * @param maxModels maximum number of models kept in memory, the least recently used are discarded
+     * @throws IOException if problems creating the folder
+     * @throws IllegalArgumentException if maxModels is not greater than 0
+     */
+    public ModelCache(File folder, int maxModels) throws IOException {
+        if (maxModels <= 0) {
+            throw new IllegalArgumentException("The maximum number of models should be greater than 0");
+        }
+        this.folder = folder;
+        this.maxModels = maxModels;
+        this.models = new LinkedHashMap<String, FutureTask<CachedModel>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, FutureTask<CachedModel>> eldest) {
+                // A model being trained is still returned to the requests already waiting for it
+                return size() > ModelCache.this.maxModels;
+            }
+        };
+        if (folder != null) {
+            Files.createDirectories(folder.toPath());
+        }
+    }
+
+    /**
+     * Get the predictions of the classifier trained on the train set for the instances of the test set. The classifier
+     * is trained and the predictions computed only if they are not already in the cache
+     * @param template classifier to train. It is not modified
+     * @param trainSet train set of the classifier
+     * @param testSet instances to predict
+     * @return the distribution predicted for every instance of the test set, in the order of the test set. For a
+     * numeric class each distribution contains only the predicted value
+     * @throws Exception if problems training the classifier or predicting the instances
+     */
+    public double[][] predictions(Classifier template, Instances trainSet, Instances testSet) throws Exception {
+        return predictions(template, trainSet, FingerprintUtil.fingerprint(trainSet), testSet, FingerprintUtil.fingerprint(testSet));
+    }
+
+    /**
+     * Get the predictions of the classifier trained on the train set for the instances of the test set, with the
+     * fingerprints of the datasets already computed, es: once for all the classifiers evaluated on the same datasets
+     * @param template classifier to train. It is not modified
+     * @param trainSet train set of the classifier. It is not modified
+     * @param trainFingerprint fingerprint of the train set, see {@link FingerprintUtil#fingerprint(Instances)}
+     * @param testSet instances to predict
+     * @param testFingerprint fingerprint of the test set, see {@link FingerprintUtil#fingerprint(Instances)}
+     * @return the distribution predicted for every instance of the test set, in the order of the test set. For a
+     * numeric class each distribution contains only the predicted value
+     * @throws Exception if problems training the classifier or predicting the instances
+     */
+    public double[][] predictions(Classifier template, Instances trainSet, String trainFingerprint, Instances testSet, String testFingerprint) throws Exception {
+        String modelFingerprint = FingerprintUtil.fingerprint( trainFingerprint + " " + template.getClass().getName() + " " + options(template) );
+
+        // Only the first request of a model trains it, the others wait for it
+        FutureTask<CachedModel> training = new FutureTask<>( () -> loadOrTrain(modelFingerprint, template, trainSet) );
+        FutureTask<CachedModel> storedTraining;
+        synchronized (models) {
+            storedTraining = models.get(modelFingerprint);
+            if (storedTraining == null) {
+                models.put(modelFingerprint, training);
+            }
+        }
+        if (storedTraining == null) {
+            training.run();
+            storedTraining = training;
+        }
+        CachedModel model = waitFor(storedTraining);
+
+        // A trained classifier is not guaranteed to be thread safe, es: the filters inside SMO
+        synchronized (model) {
+            double[][] predictions = model.predictions.get(testFingerprint);
+            if (predictions != null) {
+                hits.incrementAndGet();
+                return predictions;
+            }
+            predictions = predict(model.classifier, testSet);
+            model.predictions.put(testFingerprint, predictions);
+            save(modelFingerprint, model);
+            return predictions;
+        }
+    }
+
+    /**
+     * @return number of predictions found in the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of classifiers trained, thus not found in the cache
+     */
+    public long getTrainedModels() {
+        return trainedModels.get();
+    }
+
+    private CachedModel loadOrTrain(String modelFingerprint, Classifier template, Instances trainSet) throws Exception {
+        File modelFile = modelFile(modelFingerprint);
+        if (modelFile != null && modelFile.isFile()) {
+            try {
+                return (CachedModel) SerializationHelper.read(modelFile.getPath());
+            } catch (Exception e) {
+                log.warn("Problem reading the cached model {}, the classifier is trained again", modelFile.getPath());
+                ExceptionUtil.logException(e, log);
+            }
+        }
+        Classifier classifier = AbstractClassifier.makeCopy(template);
+        // The train set may be shared with other threads: a classifier may reorder its own copy
+        classifier.buildClassifier( new Instances(trainSet) );
+        trainedModels.incrementAndGet();
+        return new CachedModel(classifier);
+    }
+
+    /**
+     * Predict the instances as {@link weka.classifiers.evaluation.Evaluation#evaluateModel} does, hiding the class
+     * value to the classifier
+     */
+    private static double[][] predict(Classifier classifier, Instances testSet) throws Exception {
+        if (classifier instanceof BatchPredictor && ((BatchPredictor) classifier).implementsMoreEfficientBatchPrediction()) {
+            Instances classMissing = new Instances(testSet);
+            for (int i = 0; i < classMissing.numInstances(); i++) {
+                classMissing.instance(i).setClassMissing();
+            }
+            return ((BatchPredictor) classifier).distributionsForInstances(classMissing);
+        }
+        double[][] predictions = new double[testSet.numInstances()][];
+        for (int i = 0; i < testSet.numInstances(); i++) {
+            Instance classMissing = (Instance) testSet.instance(i).copy();
+            classMissing.setDataset(testSet);
+            classMissing.setClassMissing();
+            predictions[i] = classifier.distributionForInstance(classMissing);
+        }
+        return predictions;
+    }
+
+    private void save(String modelFingerprint, CachedModel model) {
+        File modelFile = modelFile(modelFingerprint);
+        if (modelFile == null) {
+            return;
+        }
+        try {
+            SerializationHelper.write(modelFile.getPath(), model);
+        } catch (Exception e) {
+            log.warn("Problem saving the model {} in the cache", modelFile.getPath());
+            ExceptionUtil.logException(e, log);
+        }
+    }
+
+    private File modelFile(String modelFingerprint) {
+        return folder == null ? null : new File(folder, modelFingerprint + FILE_EXTENSION);
+    }
+
+    private static String options(Classifier classifier) {
+        if (classifier instanceof OptionHandler) {
+            return Utils.joinOptions( ((OptionHandler) classifier).getOptions() );
+        }
+        return "";
+    }
+
+    private static CachedModel waitFor(FutureTask<CachedModel> training) throws Exception {
+        try {
+            return training.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Trained classifier with its predictions, by fingerprint of the test set
+     */
+    private static class CachedModel implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Classifier classifier;
+
+        private final HashMap<String, double[][]> predictions = new HashMap<>();
+
+        private CachedModel(Classifier classifier) {
+            this.classifier = classifier;
+        }
+    }
+}
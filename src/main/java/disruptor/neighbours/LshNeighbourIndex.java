@@ -0,0 +1,267 @@
+package disruptor.neighbours;
+
+import lombok.Getter;
+import weka.core.Attribute;
+import weka.core.DistanceFunction;
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Approximate neighbour index for the datasets with many attributes, based on the random-projection locality-sensitive
+ * hashing of the Euclidean distance.
+ * <p/>
+ * The numeric attributes of every instance, normalized between 0 and 1 as the Weka EuclideanDistance does, are
+ * projected on numProjections random directions and the projections are cut in buckets of bucketWidth: the
+ * near instances likely fall in the same buckets. The instances are stored in numTables hash tables, each one with its
+ * own directions. A query compares only the instances in its buckets, the candidates, with the distance function and
+ * returns the nearest ones: more tables find more true neighbours, more projections find fewer candidates.
+ * <p/>
+ * If the candidates are fewer than the requested neighbours, the query compares all the instances. The index is read
+ * only after its creation, thus different threads can query it at the same time.
+ */
+public class LshNeighbourIndex implements NeighbourIndex {
+
+    @Getter
+    private final Instances dataset;
+
+    private final DistanceFunction distanceFunction;
+
+    /**
+     * Indexes of the numeric attributes, the class excluded
+     */
+    private final int[] attributes;
+
+    private final double[] minimums;
+
+    private final double[] ranges;
+
+    /**
+     * directions[t][p] is the direction of the projection p of the table t, on the numeric attributes
+     */
+    private final double[][][] directions;
+
+    /**
+     * offsets[t][p] is the random offset of the buckets of the projection p of the table t
+     */
+    private final double[][] offsets;
+
+    private final double bucketWidth;
+
+    /**
+     * tables[t] maps the key of a bucket to the positions of its instances
+     */
+    private final List<HashMap<Long, int[]>> tables = new ArrayList<>();
+
+    /**
+     * @param dataset dataset to index
+     * @param distanceFunction distance used to rank the candidates, already set to the dataset. It is used by
+     *                         different threads at the same time, thus after the first distance it must be read only,
+     *                         as the Weka distances
+     * @param numTables number of hash tables
+     * @param numProjections number of projections of each table
+     * @param bucketWidth width of the buckets of the projections, in the space of the normalized attributes
+     * @param seed seed of the random directions
+     */
+    public LshNeighbourIndex(Instances dataset, DistanceFunction distanceFunction, int numTables, int numProjections, double bucketWidth, long seed) {
+        if (numTables <= 0 || numProjections <= 0 || bucketWidth <= 0) {
+            throw new IllegalArgumentException("The number of tables, the number of projections and the bucket width should be greater than 0");
+        }
+        this.dataset = dataset;
+        this.distanceFunction = distanceFunction;
+        this.bucketWidth = bucketWidth;
+        this.attributes = numericAttributes(dataset);
+        this.minimums = new double[attributes.length];
+        this.ranges = new double[attributes.length];
+        computeRanges();
+
+        Random random = new Random(seed);
+        this.directions = new double[numTables][numProjections][attributes.length];
+        this.offsets = new double[numTables][numProjections];
+        for (int t = 0; t < numTables; t++) {
+            for (int p = 0; p < numProjections; p++) {
+                for (int a = 0; a < attributes.length; a++) {
+                    directions[t][p][a] = random.nextGaussian();
+                }
+                offsets[t][p] = random.nextDouble() * bucketWidth;
+            }
+        }
+
+        // The buckets are filled in lists, then stored as arrays
+        for (int t = 0; t < numTables; t++) {
+            HashMap<Long, List<Integer>> buckets = new HashMap<>();
+            for (int i = 0; i < dataset.numInstances(); i++) {
+                long key = bucketKey(t, normalize(dataset.instance(i)));
+                buckets.computeIfAbsent(key, bucketKey -> new ArrayList<>()).add(i);
+            }
+            HashMap<Long, int[]> table = new HashMap<>();
+            buckets.forEach( (key, rows) -> table.put(key, rows.stream().mapToInt(Integer::intValue).toArray()) );
+            tables.add(table);
+        }
+
+        // The Weka distances initialize their ranges at the first use: not in the threads of the queries
+        if (dataset.numInstances() > 0) {
+            distanceFunction.distance(dataset.instance(0), dataset.instance(0));
+        }
+    }
+
+    @Override
+    public int[] kNearest(Instance query, int k) {
+        int neighboursNumber = Math.min(k, dataset.numInstances());
+        if (neighboursNumber <= 0) {
+            return new int[0];
+        }
+        int[] candidates = candidates(query);
+        if (candidates.length < neighboursNumber) {
+            candidates = allRows();
+        }
+        double[] distances = distances(query, candidates);
+        Integer[] order = sortedByDistance(distances);
+        int[] rows = new int[neighboursNumber];
+        for (int i = 0; i < neighboursNumber; i++) {
+            rows[i] = candidates[order[i]];
+        }
+        return rows;
+    }
+
+    @Override
+    public int[] withinRadius(Instance query, double radius) {
+        int[] candidates = candidates(query);
+        double[] distances = distances(query, candidates);
+        Integer[] order = sortedByDistance(distances);
+        int inRadius = 0;
+        while (inRadius < order.length && distances[order[inRadius]] <= radius) {
+            inRadius++;
+        }
+        int[] rows = new int[inRadius];
+        for (int i = 0; i < inRadius; i++) {
+            rows[i] = candidates[order[i]];
+        }
+        return rows;
+    }
+
+    @Override
+    public boolean isExact() {
+        return false;
+    }
+
+    /**
+     * @return the positions of the instances in the buckets of the query, without duplicates
+     */
+    private int[] candidates(Instance query) {
+        double[] values = normalize(query);
+        int[][] buckets = new int[tables.size()][];
+        int size = 0;
+        for (int t = 0; t < tables.size(); t++) {
+            buckets[t] = tables.get(t).get( bucketKey(t, values) );
+            size += buckets[t] != null ? buckets[t].length : 0;
+        }
+        int[] candidates = new int[size];
+        size = 0;
+        for (int[] bucket : buckets) {
+            if (bucket != null) {
+                System.arraycopy(bucket, 0, candidates, size, bucket.length);
+                size += bucket.length;
+            }
+        }
+        // The same instance may be in the buckets of different tables
+        Arrays.sort(candidates);
+        int unique = 0;
+        for (int i = 0; i < candidates.length; i++) {
+            if (i == 0 || candidates[i] != candidates[i-1]) {
+                candidates[unique++] = candidates[i];
+            }
+        }
+        return Arrays.copyOf(candidates, unique);
+    }
+
+    private int[] allRows() {
+        int[] rows = new int[dataset.numInstances()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = i;
+        }
+        return rows;
+    }
+
+    private double[] distances(Instance query, int[] rows) {
+        double[] distances = new double[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            distances[i] = distanceFunction.distance(query, dataset.instance(rows[i]));
+        }
+        return distances;
+    }
+
+    private static Integer[] sortedByDistance(double[] distances) {
+        Integer[] order = new Integer[distances.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (i, j) -> Double.compare(distances[i], distances[j]));
+        return order;
+    }
+
+    /**
+     * The key combines the bucket of every projection of the table
+     */
+    private long bucketKey(int table, double[] values) {
+        long key = 17;
+        for (int p = 0; p < directions[table].length; p++) {
+            double projection = offsets[table][p];
+            double[] direction = directions[table][p];
+            for (int a = 0; a < values.length; a++) {
+                projection += direction[a] * values[a];
+            }
+            key = key * 31 + (long) Math.floor(projection / bucketWidth);
+        }
+        return key;
+    }
+
+    /**
+     * @return the numeric attributes of the instance between 0 and 1. The missing values are in the middle
+     */
+    private double[] normalize(Instance instance) {
+        double[] values = new double[attributes.length];
+        for (int a = 0; a < attributes.length; a++) {
+            double value = instance.value(attributes[a]);
+            if (Double.isNaN(value)) {
+                values[a] = 0.5;
+            }
+            else {
+                values[a] = ranges[a] > 0 ? (value - minimums[a]) / ranges[a] : 0;
+            }
+        }
+        return values;
+    }
+
+    private void computeRanges() {
+        for (int a = 0; a < attributes.length; a++) {
+            double minimum = Double.POSITIVE_INFINITY;
+            double maximum = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < dataset.numInstances(); i++) {
+                double value = dataset.instance(i).value(attributes[a]);
+                if (!Double.isNaN(value)) {
+                    minimum = Math.min(minimum, value);
+                    maximum = Math.max(maximum, value);
+                }
+            }
+            minimums[a] = minimum <= maximum ? minimum : 0;
+            ranges[a] = minimum <= maximum ? maximum - minimum : 0;
+        }
+    }
+
+    private static int[] numericAttributes(Instances dataset) {
+        List<Integer> numericAttributes = new ArrayList<>();
+        for (int a = 0; a < dataset.numAttributes(); a++) {
+            Attribute attribute = dataset.attribute(a);
+            if (a != dataset.classIndex() && attribute.isNumeric()) {
+                numericAttributes.add(a);
+            }
+        }
+        return numericAttributes.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,42 @@
+package disruptor.neighbours;
+
+import weka.core.Instance;
+import weka.core.Instances;
+
+/**
+ * Index of the instances of a dataset, es: a train set, to find the neighbours of a query instance without computing
+ * its distance from every instance.
+ * <p/>
+ * The neighbours are identified by their position in the dataset. An index may be approximate: in that case a query
+ * may miss some of the true neighbours, see {@link NeighbourIndexFactory}.
+ */
+public interface NeighbourIndex {
+
+    /**
+     * @return dataset whose instances are indexed
+     */
+    Instances getDataset();
+
+    /**
+     * @param query instance whose neighbours are searched, with the same attributes of the dataset
+     * @param k number of neighbours
+     * @return the positions in the dataset of the k nearest instances, from the nearest one. Fewer positions if the
+     * dataset contains less than k instances. If the query is an instance of the dataset, it is one of its neighbours
+     * @throws Exception if problems computing the distances
+     */
+    int[] kNearest(Instance query, int k) throws Exception;
+
+    /**
+     * @param query instance whose neighbours are searched, with the same attributes of the dataset
+     * @param radius maximum distance from the query
+     * @return the positions in the dataset of the instances with distance from the query not greater than the radius,
+     * from the nearest one
+     * @throws Exception if problems computing the distances
+     */
+    int[] withinRadius(Instance query, double radius) throws Exception;
+
+    /**
+     * @return true if the queries always return the exact neighbours
+     */
+    boolean isExact();
+}
@@ -0,0 +1,138 @@
+package disruptor.neighbours;
+
+import weka.core.DistanceFunction;
+import weka.core.EuclideanDistance;
+import weka.core.Instances;
+import weka.core.neighboursearch.BallTree;
+import weka.core.neighboursearch.KDTree;
+import weka.core.neighboursearch.LinearNNSearch;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Choose the neighbour index suitable for a dataset:
+ * <ul>
+ *     <li>a linear search for the small datasets, where an index is not worth it</li>
+ *     <li>a KDTree for the datasets with few attributes, all numeric, and the Euclidean distance</li>
+ *     <li>a BallTree for the other datasets with few attributes</li>
+ *     <li>a random-projection LSH for the datasets with many attributes, when the requested recall is lower than 1</li>
+ * </ul>
+ * The recall is the expected fraction of the true neighbours returned by a query. The number of hash tables of the LSH
+ * is chosen assuming that a true neighbour falls in the bucket of the query of a table at least half of the times,
+ * with a bucket width proportional to the typical distance of the neighbours in the dataset.
+ */
+public class NeighbourIndexFactory {
+
+    /**
+     * Datasets with fewer instances are searched linearly
+     */
+    public static final int MIN_INDEXED_INSTANCES = 256;
+
+    /**
+     * Datasets with more attributes are indexed by the LSH, if the recall is lower than 1
+     */
+    public static final int MAX_TREE_ATTRIBUTES = 16;
+
+    /**
+     * Number of projections of every hash table of the LSH
+     */
+    public static final int LSH_PROJECTIONS = 4;
+
+    /**
+     * Ratio between the bucket width of the LSH and the typical distance of the neighbours
+     */
+    private static final double LSH_WIDTH_FACTOR = 8;
+
+    /**
+     * Assumed probability that a true neighbour is in the bucket of the query of a hash table
+     */
+    private static final double LSH_TABLE_PROBABILITY = 0.5;
+
+    /**
+     * Number of instances used to estimate the typical distance of the neighbours
+     */
+    private static final int DISTANCE_SAMPLE = 64;
+
+    private static final int DISTANCE_SAMPLE_NEIGHBOURS = 10;
+
+    private NeighbourIndexFactory() {}
+
+    /**
+     * @param dataset dataset to index
+     * @param recall expected fraction of the true neighbours returned by a query, 1 for an exact index
+     * @return an index of the dataset with the Weka Euclidean distance
+     * @throws Exception if problems building the index
+     */
+    public static NeighbourIndex create(Instances dataset, double recall) throws Exception {
+        return create(dataset, new EuclideanDistance(dataset), recall, 1);
+    }
+
+    /**
+     * @param dataset dataset to index
+     * @param distanceFunction distance of the instances, set to the dataset by the index
+     * @param recall expected fraction of the true neighbours returned by a query, 1 for an exact index
+     * @param seed seed of the random choices of an approximate index
+     * @return an index of the dataset
+     * @throws IllegalArgumentException if the recall is not greater than 0 and not greater than 1
+     * @throws Exception if problems building the index
+     */
+    public static NeighbourIndex create(Instances dataset, DistanceFunction distanceFunction, double recall, long seed) throws Exception {
+        if (recall <= 0 || recall > 1) {
+            throw new IllegalArgumentException("The recall should be greater than 0 and not greater than 1");
+        }
+        int numAttributes = dataset.classIndex() >= 0 ? dataset.numAttributes() - 1 : dataset.numAttributes();
+
+        if (dataset.numInstances() < MIN_INDEXED_INSTANCES) {
+            LinearNNSearch search = new LinearNNSearch();
+            search.setDistanceFunction(distanceFunction);
+            return new WekaNeighbourIndex(dataset, search);
+        }
+        if (numAttributes <= MAX_TREE_ATTRIBUTES || recall >= 1) {
+            boolean isEuclidean = distanceFunction instanceof EuclideanDistance;
+            if (isEuclidean && allNumeric(dataset)) {
+                KDTree search = new KDTree();
+                search.setDistanceFunction(distanceFunction);
+                return new WekaNeighbourIndex(dataset, search);
+            }
+            BallTree search = new BallTree();
+            search.setDistanceFunction(distanceFunction);
+            return new WekaNeighbourIndex(dataset, search);
+        }
+
+        distanceFunction.setInstances(dataset);
+        int numTables = (int) Math.ceil( Math.log(1 - recall) / Math.log(1 - LSH_TABLE_PROBABILITY) );
+        double bucketWidth = LSH_WIDTH_FACTOR * neighboursDistance(dataset, distanceFunction, seed);
+        return new LshNeighbourIndex(dataset, distanceFunction, Math.max(1, numTables), LSH_PROJECTIONS, bucketWidth > 0 ? bucketWidth : 1, seed);
+    }
+
+    /**
+     * @return the median distance of a sample of instances from their DISTANCE_SAMPLE_NEIGHBOURS-th nearest instance
+     */
+    private static double neighboursDistance(Instances dataset, DistanceFunction distanceFunction, long seed) {
+        int numInstances = dataset.numInstances();
+        Random random = new Random(seed);
+        double[] sampleDistances = new double[Math.min(DISTANCE_SAMPLE, numInstances)];
+        double[] distances = new double[numInstances];
+        for (int s = 0; s < sampleDistances.length; s++) {
+            int query = random.nextInt(numInstances);
+            for (int i = 0; i < numInstances; i++) {
+                distances[i] = distanceFunction.distance(dataset.instance(query), dataset.instance(i));
+            }
+            Arrays.sort(distances);
+            // distances[0] is the query itself
+            sampleDistances[s] = distances[Math.min(DISTANCE_SAMPLE_NEIGHBOURS, numInstances - 1)];
+        }
+        Arrays.sort(sampleDistances);
+        return sampleDistances[sampleDistances.length / 2];
+    }
+
+    private static boolean allNumeric(Instances dataset) {
+        for (int a = 0; a < dataset.numAttributes(); a++) {
+            if (a != dataset.classIndex() && !dataset.attribute(a).isNumeric()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
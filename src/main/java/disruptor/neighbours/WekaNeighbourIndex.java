@@ -0,0 +1,89 @@
+package disruptor.neighbours;
+
+import lombok.Getter;
+import weka.core.DistanceFunction;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.neighboursearch.NearestNeighbourSearch;
+
+/**
+ * Exact neighbour index backed by a Weka {@link NearestNeighbourSearch}, es: a KDTree or a BallTree for the datasets
+ * with few attributes, or a LinearNNSearch.
+ * <p/>
+ * The Weka searches return copies of the instances, thus the search is built on a copy of the dataset whose instances
+ * have their position as weight. The weights are not used by the distances, thus the neighbours are the same of the
+ * dataset. The Weka searches are not thread safe: the queries of different threads are performed one at a time.
+ */
+public class WekaNeighbourIndex implements NeighbourIndex {
+
+    /**
+     * A kNearest query with this number of neighbours is the first attempt of a radius query
+     */
+    private static final int FIRST_RADIUS_NEIGHBOURS = 16;
+
+    @Getter
+    private final Instances dataset;
+
+    private final NearestNeighbourSearch search;
+
+    private final DistanceFunction distanceFunction;
+
+    /**
+     * @param dataset dataset to index
+     * @param search search to use. Its distance function is set to the dataset
+     * @throws Exception if problems building the search
+     */
+    public WekaNeighbourIndex(Instances dataset, NearestNeighbourSearch search) throws Exception {
+        this.dataset = dataset;
+        this.search = search;
+
+        Instances positions = new Instances(dataset);
+        for (int i = 0; i < positions.numInstances(); i++) {
+            positions.instance(i).setWeight(i);
+        }
+        search.setInstances(positions);
+        this.distanceFunction = search.getDistanceFunction();
+    }
+
+    @Override
+    public synchronized int[] kNearest(Instance query, int k) throws Exception {
+        int neighboursNumber = Math.min(k, dataset.numInstances());
+        if (neighboursNumber <= 0) {
+            return new int[0];
+        }
+        // In case of ties the Weka searches may return more than k neighbours
+        Instances neighbours = search.kNearestNeighbours(query, neighboursNumber);
+        int[] rows = new int[Math.min(neighboursNumber, neighbours.numInstances())];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = (int) neighbours.instance(i).weight();
+        }
+        return rows;
+    }
+
+    /**
+     * The search is repeated doubling the number of neighbours until the farthest one is out of the radius
+     */
+    @Override
+    public synchronized int[] withinRadius(Instance query, double radius) throws Exception {
+        int numInstances = dataset.numInstances();
+        int k = Math.min(FIRST_RADIUS_NEIGHBOURS, numInstances);
+        while (true) {
+            int[] rows = kNearest(query, k);
+            int inRadius = 0;
+            while (inRadius < rows.length && distanceFunction.distance(query, dataset.instance(rows[inRadius])) <= radius) {
+                inRadius++;
+            }
+            if (inRadius < rows.length || k >= numInstances) {
+                int[] result = new int[inRadius];
+                System.arraycopy(rows, 0, result, 0, inRadius);
+                return result;
+            }
+            k = (int) Math.min(2L * k, numInstances);
+        }
+    }
+
+    @Override
+    public boolean isExact() {
+        return true;
+    }
+}
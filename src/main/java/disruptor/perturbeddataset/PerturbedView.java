@@ -0,0 +1,337 @@
+package disruptor.perturbeddataset;
+
+import lombok.Getter;
+import weka.core.Attribute;
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copy-on-write perturbation of a base dataset.
+ * <p/>
+ * The view shares with the base dataset all the instances not changed by the attack, and stores its own copy only of
+ * the instances that are actually perturbed. Thus, creating a view costs a reference per instance instead of a
+ * full copy of the dataset.
+ * <p/>
+ * The shared instances belong to the base dataset and MUST NOT be modified: use {@link #writableInstance(int)} to
+ * fetch an instance that can be changed. The instances added to the view are always owned by the view.
+ * <p/>
+ * The view is an {@link Instances} object, thus it can be exported or used to train a classifier as it is.
+ * Use {@link #materialize()} to obtain a dataset independent of the base one.
+ */
+public class PerturbedView extends Instances {
+
+    /**
+     * @return dataset whose instances are shared with this view
+     */
+    @Getter
+    private final transient Instances base;
+
+    /**
+     * @return number of instances of the base dataset when the view was created
+     */
+    @Getter
+    private final int baseSize;
+
+    /**
+     * ownedRows[i] is true if the instance in position i is a copy owned by this view
+     */
+    private boolean[] ownedRows;
+
+    /**
+     * Create a view containing all the instances of the base dataset, without copying them
+     * @param base dataset to perturb
+     */
+    public PerturbedView(Instances base) {
+        this(base, base.numInstances());
+    }
+
+    private PerturbedView(Instances base, int baseSize) {
+        super(base, baseSize);
+        this.base = base;
+        this.baseSize = baseSize;
+        this.ownedRows = new boolean[baseSize];
+        for (int i = 0; i < baseSize; i++) {
+            m_Instances.add(base.instance(i));
+        }
+    }
+
+    /**
+     * Return the instance in the specified position making it safe to modify.
+     * <p/>
+     * The first time an instance shared with the base dataset is requested, it is replaced by a copy owned by the view.
+     * Different threads can request instances in different positions at the same time.
+     * @param index position of the instance
+     * @return the instance in that position, owned by this view
+     */
+    public Instance writableInstance(int index) {
+        if (!isOwned(index)) {
+            Instance instanceCopy = (Instance) m_Instances.get(index).copy();
+            instanceCopy.setDataset(this);
+            m_Instances.set(index, instanceCopy);
+            ownedRows[index] = true;
+        }
+        return m_Instances.get(index);
+    }
+
+    /**
+     * @param index position of the instance
+     * @return true if the instance in that position is owned by this view, false if it is shared with the base dataset
+     */
+    public boolean isOwned(int index) {
+        return index >= ownedRows.length || ownedRows[index];
+    }
+
+    /**
+     * @return number of instances of the base dataset replaced by a copy owned by this view
+     */
+    public int ownedRowsNumber() {
+        int counter = 0;
+        for (boolean owned : ownedRows) {
+            if (owned) {
+                counter++;
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * Change the order of the instances of the view without copying them
+     * @param order order[i] is the current position of the instance that will be moved to position i.
+     *              Must be a permutation of the positions of the view
+     * @throws IllegalArgumentException if order is not a permutation of the positions of the view
+     */
+    public void reorder(int[] order) {
+        int size = numInstances();
+        if (order.length != size) {
+            throw new IllegalArgumentException("The new order should contain every position of the view");
+        }
+        boolean[] moved = new boolean[size];
+        ArrayList<Instance> reorderedInstances = new ArrayList<>(size);
+        boolean[] reorderedOwnedRows = new boolean[baseSize];
+        for (int i = 0; i < size; i++) {
+            int position = order[i];
+            if (moved[position]) {
+                throw new IllegalArgumentException("The new order should contain every position of the view only once");
+            }
+            moved[position] = true;
+            if (i >= baseSize && !isOwned(position)) {
+                // Only owned instances can be moved after the base instances
+                writableInstance(position);
+            }
+            reorderedInstances.add(m_Instances.get(position));
+            if (i < baseSize) {
+                reorderedOwnedRows[i] = isOwned(position);
+            }
+        }
+        m_Instances = reorderedInstances;
+        ownedRows = reorderedOwnedRows;
+    }
+
+    /**
+     * Create a new view of the same base dataset containing the first instances of this view followed by the
+     * remaining instances of the base dataset.
+     * <p/>
+     * The instances are shared with this view, and the new view copies them before any change.
+     * @param rows number of instances of this view to keep
+     * @return the new view
+     * @throws IllegalArgumentException if rows is not between 0 and the number of instances of the base dataset
+     * @throws IllegalStateException if instances have been added to this view
+     */
+    public PerturbedView prefixView(int rows) {
+        if (rows < 0 || rows > baseSize) {
+            throw new IllegalArgumentException("The prefix should be between 0 and the number of instances of the base dataset");
+        }
+        if (numInstances() != baseSize) {
+            throw new IllegalStateException("Cannot create a prefix of a view with added instances");
+        }
+        PerturbedView prefixView = new PerturbedView(base, baseSize);
+        for (int i = 0; i < rows; i++) {
+            prefixView.m_Instances.set(i, m_Instances.get(i));
+        }
+        return prefixView;
+    }
+
+    /**
+     * Create a new view of the same base dataset where the first instances take the values of this view only for the
+     * specified attributes, while the other attributes keep the values of the base dataset.
+     * @param rows number of instances of this view to use
+     * @param attributes attributes whose values are taken from this view
+     * @return the new view
+     * @throws IllegalArgumentException if rows is not between 0 and the number of instances of the base dataset
+     * @throws IllegalStateException if instances have been added to this view
+     */
+    public PerturbedView derive(int rows, List<Attribute> attributes) {
+        PerturbedView derivedView = prefixView(0);
+        for (int i = 0; i < rows; i++) {
+            if (!isOwned(i)) {
+                // The instance is not perturbed in this view
+                continue;
+            }
+            Instance perturbedInstance = m_Instances.get(i);
+            Instance derivedInstance = derivedView.writableInstance(i);
+            for (Attribute attribute : attributes) {
+                derivedInstance.setValue(attribute, perturbedInstance.value(attribute));
+            }
+        }
+        return derivedView;
+    }
+
+    /**
+     * @return a new {@link Instances} object with a copy of every instance of the view, independent of the base dataset
+     */
+    public Instances materialize() {
+        return new Instances(this);
+    }
+
+    @Override
+    public Instance set(int index, Instance instance) {
+        // The parent implementation stores a copy of the instance, thus it is owned by the view
+        Instance oldInstance = super.set(index, instance);
+        if (index < ownedRows.length) {
+            ownedRows[index] = true;
+        }
+        return oldInstance;
+    }
+
+    @Override
+    public void swap(int i, int j) {
+        super.swap(i, j);
+        boolean ownedI = isOwned(i);
+        boolean ownedJ = isOwned(j);
+        if (i < ownedRows.length) {
+            ownedRows[i] = ownedJ;
+        }
+        if (j < ownedRows.length) {
+            ownedRows[j] = ownedI;
+        }
+        // A shared instance moved after the base instances must become owned
+        if (i >= ownedRows.length && !ownedJ) {
+            m_Instances.set(i, ownedCopy(m_Instances.get(i)));
+        }
+        if (j >= ownedRows.length && !ownedI) {
+            m_Instances.set(j, ownedCopy(m_Instances.get(j)));
+        }
+    }
+
+    /**
+     * Instances cannot be removed from a view because the positions of the shared instances must not change
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void delete(int index) {
+        throw new UnsupportedOperationException("Cannot delete instances from a PerturbedView. Materialize it first");
+    }
+
+    /**
+     * Instances cannot be removed from a view because the positions of the shared instances must not change
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public Instance remove(int index) {
+        throw new UnsupportedOperationException("Cannot remove instances from a PerturbedView. Materialize it first");
+    }
+
+    /**
+     * Sort the instances without copying them, moving their ownership with them
+     */
+    @Override
+    public void sort(int attIndex) {
+        permute( () -> super.sort(attIndex) );
+    }
+
+    /**
+     * Used by {@link #stratify(int)} to interleave the folds, moving the ownership of the instances with them
+     */
+    @Override
+    protected void stratStep(int numFolds) {
+        permute( () -> super.stratStep(numFolds) );
+    }
+
+    /**
+     * Instances cannot be inserted before the ones of the view because the positions of the shared instances must not change
+     * @throws UnsupportedOperationException if the index is not after the last instance of the view
+     */
+    @Override
+    public void add(int index, Instance instance) {
+        if (index < numInstances()) {
+            throw new UnsupportedOperationException("Cannot insert instances in a PerturbedView. Materialize it first");
+        }
+        super.add(index, instance);
+    }
+
+    /**
+     * Instances cannot be removed from a view because the positions of the shared instances must not change
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void delete() {
+        throw new UnsupportedOperationException("Cannot delete instances from a PerturbedView. Materialize it first");
+    }
+
+    /**
+     * Instances cannot be removed from a view because the positions of the shared instances must not change
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void deleteWithMissing(int attIndex) {
+        throw new UnsupportedOperationException("Cannot delete instances from a PerturbedView. Materialize it first");
+    }
+
+    /**
+     * The attributes cannot be changed because the shared instances belong to the base dataset
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void deleteAttributeAt(int position) {
+        throw new UnsupportedOperationException("Cannot change the attributes of a PerturbedView. Materialize it first");
+    }
+
+    /**
+     * The attributes cannot be changed because the shared instances belong to the base dataset
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void insertAttributeAt(Attribute att, int position) {
+        throw new UnsupportedOperationException("Cannot change the attributes of a PerturbedView. Materialize it first");
+    }
+
+    /**
+     * The attributes cannot be changed because the shared instances belong to the base dataset
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void replaceAttributeAt(Attribute att, int position) {
+        throw new UnsupportedOperationException("Cannot change the attributes of a PerturbedView. Materialize it first");
+    }
+
+    /**
+     * Run a permutation of m_Instances written by the parent implementation, then apply it through
+     * {@link #reorder(int[])} so that the ownership flags keep matching the instances
+     */
+    private void permute(Runnable permutation) {
+        ArrayList<Instance> instances = m_Instances;
+        Map<Instance, Integer> positions = new IdentityHashMap<>(instances.size());
+        for (int i = 0; i < instances.size(); i++) {
+            positions.put(instances.get(i), i);
+        }
+        m_Instances = new ArrayList<>(instances);
+        permutation.run();
+        int[] order = new int[instances.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = positions.get(m_Instances.get(i));
+        }
+        m_Instances = instances;
+        reorder(order);
+    }
+
+    private Instance ownedCopy(Instance instance) {
+        Instance instanceCopy = (Instance) instance.copy();
+        instanceCopy.setDataset(this);
+        return instanceCopy;
+    }
+}
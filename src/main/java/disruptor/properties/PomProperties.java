@@ -16,6 +16,7 @@ public class PomProperties extends PropertiesReader{
         private Properties(){}
         public static final String MERGE_EXPERIMENTER_ARFF_VERSION = "merge-experimenter-arff.version";
         public static final String DISRUPTOR_VERSION = "disruptor.version";
+        public static final String MATERIALIZE_PATCH_VERSION = "materialize-patch.version";
     }
 
     public PomProperties() throws IOException {
@@ -0,0 +1,12 @@
+package disruptor.properties.versionproviders;
+
+import disruptor.properties.PomProperties;
+import picocli.CommandLine;
+
+public class MaterializePatchVersionProvider implements CommandLine.IVersionProvider {
+    @Override
+    public String[] getVersion() throws Exception {
+        PomProperties pomProperties = new PomProperties();
+        return new String[] { pomProperties.getProperty(PomProperties.Properties.MATERIALIZE_PATCH_VERSION) };
+    }
+}
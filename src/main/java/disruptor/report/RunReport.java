@@ -0,0 +1,195 @@
+package disruptor.report;
+
+import disruptor.util.JsonUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Timing and resource report of a Disruptor execution.
+ * <p/>
+ * Every stage is measured by a {@link StageTimer} obtained with {@link #startStage(Stage)}. The timers can be used by
+ * different threads at the same time. At the end of the execution the report is written as JSON with
+ * {@link #writeJson(File)}.
+ */
+@Slf4j
+public class RunReport {
+
+    private final long startNanos = System.nanoTime();
+
+    private final Map<String, Object> properties = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    private final List<StageTimer> stages = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * Create a new report. The peak heap usage is measured from now on
+     */
+    public RunReport() {
+        heapPools().forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    /**
+     * Start the measure of a stage
+     * @param stage stage to measure
+     * @return the timer of the stage. Close it when the stage ends
+     */
+    public StageTimer startStage(Stage stage) {
+        return new StageTimer(this, stage, elapsedNanos());
+    }
+
+    /**
+     * Add a property of the whole execution to the report, es: the input file
+     * @param name name of the property
+     * @param value value of the property
+     */
+    public void setProperty(String name, Object value) {
+        properties.put(name, value);
+    }
+
+    /**
+     * @return the stopped timers, in the order they were stopped
+     */
+    public List<StageTimer> getStages() {
+        synchronized (stages) {
+            return new ArrayList<>(stages);
+        }
+    }
+
+    /**
+     * @return sum of the peak usage of the heap memory pools since the creation of the report
+     */
+    public long peakHeapBytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : heapPools()) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+
+    /**
+     * Write the report as JSON in the specified file, creating the parent folders if needed
+     * @param file destination file
+     * @throws IOException if problems writing the file
+     */
+    public void writeJson(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            Files.createDirectories(parent.toPath());
+        }
+        try (Writer writer = new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8)) {
+            writer.write(toJson());
+        }
+        log.info("Report written in {}", file.getPath());
+    }
+
+    /**
+     * @return the report in JSON format
+     */
+    public String toJson() {
+        List<StageTimer> sortedStages = getStages();
+        sortedStages.sort(Comparator.comparingLong(StageTimer::getStartNanos));
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        synchronized (properties) {
+            for (Map.Entry<String, Object> property : properties.entrySet()) {
+                json.append("  ").append(JsonUtil.quote(property.getKey())).append(": ").append(value(property.getValue())).append(",\n");
+            }
+        }
+        json.append("  \"elapsedMillis\": ").append(millis(elapsedNanos())).append(",\n");
+        json.append("  \"peakHeapBytes\": ").append(peakHeapBytes()).append(",\n");
+        json.append("  \"maxHeapBytes\": ").append(Runtime.getRuntime().maxMemory()).append(",\n");
+
+        // Total time of each stage
+        json.append("  \"summary\": [");
+        Map<Stage, long[]> summary = new EnumMap<>(Stage.class);
+        for (StageTimer timer : sortedStages) {
+            long[] stageSummary = summary.computeIfAbsent(timer.getStage(), stage -> new long[4]);
+            stageSummary[0]++;
+            stageSummary[1] += timer.getDurationNanos();
+            stageSummary[2] += timer.getRows();
+            stageSummary[3] += timer.getBytesWritten();
+        }
+        String separator = "\n";
+        for (Map.Entry<Stage, long[]> stageSummary : summary.entrySet()) {
+            long[] values = stageSummary.getValue();
+            json.append(separator).append("    {")
+                    .append("\"stage\": ").append(JsonUtil.quote(stageSummary.getKey().name()))
+                    .append(", \"count\": ").append(values[0])
+                    .append(", \"totalMillis\": ").append(millis(values[1]))
+                    .append(", \"rows\": ").append(values[2])
+                    .append(", \"bytesWritten\": ").append(values[3])
+                    .append("}");
+            separator = ",\n";
+        }
+        json.append("\n  ],\n");
+
+        // Every single stage
+        json.append("  \"stages\": [");
+        separator = "\n";
+        for (StageTimer timer : sortedStages) {
+            json.append(separator).append("    {")
+                    .append("\"stage\": ").append(JsonUtil.quote(timer.getStage().name()))
+                    .append(", \"labels\": {");
+            String labelSeparator = "";
+            for (Map.Entry<String, String> label : timer.getLabels().entrySet()) {
+                json.append(labelSeparator).append(JsonUtil.quote(label.getKey())).append(": ").append(JsonUtil.quote(label.getValue()));
+                labelSeparator = ", ";
+            }
+            json.append("}")
+                    .append(", \"thread\": ").append(JsonUtil.quote(timer.getThreadName()))
+                    .append(", \"startMillis\": ").append(millis(timer.getStartNanos()))
+                    .append(", \"durationMillis\": ").append(millis(timer.getDurationNanos()))
+                    .append(", \"rows\": ").append(timer.getRows())
+                    .append(", \"rowsPerSecond\": ").append(String.format(Locale.ROOT, "%.1f", timer.rowsPerSecond()))
+                    .append(", \"bytesWritten\": ").append(timer.getBytesWritten())
+                    .append("}");
+            separator = ",\n";
+        }
+        json.append("\n  ]\n");
+        json.append("}\n");
+        return json.toString();
+    }
+
+    long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    void record(StageTimer timer) {
+        stages.add(timer);
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                heapPools.add(pool);
+            }
+        }
+        return heapPools;
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static String value(Object value) {
+        // NaN and the infinities are not JSON numbers
+        if (value instanceof Double || value instanceof Float) {
+            return JsonUtil.number( ((Number) value).doubleValue() );
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        return JsonUtil.quote(String.valueOf(value));
+    }
+}
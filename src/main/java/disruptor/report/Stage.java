@@ -0,0 +1,25 @@
+package disruptor.report;
+
+/**
+ * Stages of a Disruptor execution measured by the {@link RunReport}
+ */
+public enum Stage {
+    /** Whole execution of the Disruptor */
+    TOTAL,
+    /** Reading of the input dataset */
+    READ_DATASET,
+    /** Ranking of the features by a feature selection algorithm */
+    FEATURE_SELECTION,
+    /** Single run of a feature selection algorithm, attacks and exports included */
+    RUN,
+    /** Attack of a single cell of the grid, or of the biggest cell of an incremental sweep */
+    ATTACK,
+    /** Dataset of a cell derived from the result of an incremental sweep */
+    DERIVE,
+    /** Export of a dataset in all the formats selected */
+    EXPORT,
+    /** Evaluation of the attacks of a feature selection algorithm */
+    EXPERIMENT,
+    /** Evaluation of the label flipping attacks of a run across the capacities with updateable classifiers */
+    LABEL_FLIPPING_CURVES
+}
@@ -0,0 +1,101 @@
+package disruptor.report;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Measure of a single execution of a {@link Stage}.
+ * <p/>
+ * The timer starts when it is created by {@link RunReport#startStage(Stage)} and stops when it is closed, thus it can
+ * be used in a try-with-resources block. A timer should be used only by the thread that created it.
+ */
+public class StageTimer implements AutoCloseable {
+
+    /**
+     * @return the measured stage
+     */
+    @Getter
+    private final Stage stage;
+
+    /**
+     * @return labels that identify this execution of the stage, es: run number or attack name
+     */
+    @Getter
+    private final Map<String, String> labels = new LinkedHashMap<>();
+
+    /**
+     * @return name of the thread that executed the stage
+     */
+    @Getter
+    private final String threadName;
+
+    /**
+     * @return start of the stage, in nanoseconds since the start of the report
+     */
+    @Getter
+    private final long startNanos;
+
+    /**
+     * @return duration of the stage in nanoseconds. -1 if the stage is still running
+     */
+    @Getter
+    private long durationNanos = -1;
+
+    /**
+     * @param rows number of instances processed by the stage
+     * @return number of instances processed by the stage
+     */
+    @Getter @Setter
+    private long rows = 0;
+
+    /**
+     * @param bytesWritten number of bytes written on disk by the stage
+     * @return number of bytes written on disk by the stage
+     */
+    @Getter @Setter
+    private long bytesWritten = 0;
+
+    private final RunReport report;
+
+    StageTimer(RunReport report, Stage stage, long startNanos) {
+        this.report = report;
+        this.stage = stage;
+        this.startNanos = startNanos;
+        this.threadName = Thread.currentThread().getName();
+    }
+
+    /**
+     * Add a label to the stage
+     * @param name name of the label
+     * @param value value of the label
+     * @return this timer
+     */
+    public StageTimer with(String name, Object value) {
+        labels.put(name, String.valueOf(value));
+        return this;
+    }
+
+    /**
+     * @return number of instances processed per second. 0 if the stage is still running or took no time
+     */
+    public double rowsPerSecond() {
+        if (durationNanos <= 0) {
+            return 0;
+        }
+        return rows / (durationNanos / 1e9);
+    }
+
+    /**
+     * Stop the timer and record the stage in the report. Further calls have no effect
+     */
+    @Override
+    public void close() {
+        if (durationNanos < 0) {
+            durationNanos = report.elapsedNanos() - startNanos;
+            report.record(this);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package disruptor.saver;
+
+import weka.core.Attribute;
+import weka.core.Instances;
+
+import java.io.IOException;
+
+/**
+ * Layout of the binary columnar format written by {@link ColumnarSaver} and read by {@link ColumnarLoader}.
+ * <p/>
+ * All the numbers are big-endian, as written by {@link java.io.DataOutputStream}:
+ * <pre>
+ * int     MAGIC
+ * short   VERSION
+ * int     length of the header in bytes, followed by the ARFF header (UTF-8) with the Weka attribute schema
+ * int     class index, -1 if not set
+ * int     number of rows
+ * column  one for each attribute, in the order of the header
+ * byte    WEIGHTS_UNIT if all the weights are 1, otherwise WEIGHTS_DOUBLE followed by a double for each row
+ * </pre>
+ * Every column starts with a byte with its encoding:
+ * <ul>
+ *     <li>numeric and date attributes are stored with the smallest encoding that keeps every value exact. If all the
+ *     values are integers they are stored as {@link #INT8}, {@link #INT16} or {@link #INT32}. If all the values have at
+ *     most {@link #MAX_DECIMALS} decimal digits, the column is {@link #DECIMAL}, followed by a byte with the number of
+ *     digits d and by an integer column with the values multiplied by 10^d. Otherwise the values are stored as
+ *     {@link #FLOAT32} or {@link #FLOAT64}. In the integer encodings the minimum value of the type marks a missing
+ *     value, in the floating point encodings a NaN</li>
+ *     <li>nominal attributes are dictionary encoded: the dictionary is the list of values in the header and the
+ *     column contains the index of each value with the smallest integer type that fits all of them, -1 if missing</li>
+ *     <li>string attributes contain for each row the length of the UTF-8 bytes of the value, followed by the bytes.
+ *     The length is -1 if the value is missing</li>
+ * </ul>
+ * Relational attributes are not supported.
+ */
+final class ColumnarFormat {
+
+    static final String FILE_EXTENSION = ".dcol";
+
+    static final int MAGIC = 0x44434F4C; // DCOL
+    static final short VERSION = 1;
+
+    // Column encodings
+    static final byte INT8 = 1;
+    static final byte INT16 = 2;
+    static final byte INT32 = 3;
+    static final byte FLOAT32 = 4;
+    static final byte FLOAT64 = 5;
+    static final byte STRING = 6;
+    static final byte DECIMAL = 7;
+
+    /**
+     * Maximum number of decimal digits of the {@link #DECIMAL} encoding
+     */
+    static final int MAX_DECIMALS = 9;
+
+    /**
+     * POWERS_OF_TEN[d] is 10^d, exact in double precision
+     */
+    static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9};
+
+    // Weights encodings
+    static final byte WEIGHTS_UNIT = 0;
+    static final byte WEIGHTS_DOUBLE = 1;
+
+    private ColumnarFormat() {}
+
+    /**
+     * @param numValues number of values of a nominal attribute
+     * @return the smallest integer encoding that fits the indexes of all the values and -1
+     */
+    static byte nominalEncoding(int numValues) {
+        if (numValues <= Byte.MAX_VALUE) {
+            return INT8;
+        }
+        if (numValues <= Short.MAX_VALUE) {
+            return INT16;
+        }
+        return INT32;
+    }
+
+    /**
+     * @param dataset dataset to check
+     * @throws IOException if the dataset contains an attribute that cannot be stored in the format
+     */
+    static void checkSupported(Instances dataset) throws IOException {
+        for (int a = 0; a < dataset.numAttributes(); a++) {
+            Attribute attribute = dataset.attribute(a);
+            if (attribute.isRelationValued()) {
+                throw new IOException("The columnar format does not support the relational attribute " + attribute.name());
+            }
+        }
+    }
+}
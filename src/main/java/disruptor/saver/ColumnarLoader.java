@@ -0,0 +1,233 @@
+package disruptor.saver;
+
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.RevisionUtils;
+import weka.core.Utils;
+import weka.core.converters.AbstractFileLoader;
+import weka.core.converters.BatchConverter;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static disruptor.saver.ColumnarFormat.*;
+
+/**
+ * Weka loader of the binary columnar format written by {@link ColumnarSaver}.
+ * <p/>
+ * The structure is read from the header when the source is set, the columns when {@link #getDataSet()} is called.
+ * The instances can be read only in batch.
+ */
+public class ColumnarLoader extends AbstractFileLoader implements BatchConverter {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient DataInputStream input;
+
+    private int numRows;
+
+    /**
+     * @return description of the loader
+     */
+    public String globalInfo() {
+        return "Reads the instances written in the binary columnar format of Disruptor.";
+    }
+
+    /**
+     * Read a dataset written by {@link ColumnarSaver}
+     * @param file the source file
+     * @return the dataset contained in the file, with the class set as when it was written
+     * @throws IOException if problems reading the file or if it is not in the columnar format
+     */
+    public static Instances read(File file) throws IOException {
+        ColumnarLoader loader = new ColumnarLoader();
+        loader.setSource(file);
+        return loader.getDataSet();
+    }
+
+    @Override
+    public String getFileExtension() {
+        return FILE_EXTENSION;
+    }
+
+    @Override
+    public String[] getFileExtensions() {
+        return new String[]{FILE_EXTENSION};
+    }
+
+    @Override
+    public String getFileDescription() {
+        return "Disruptor binary columnar data files";
+    }
+
+    @Override
+    public void reset() throws IOException {
+        m_structure = null;
+        closeInput();
+        setRetrieval(NONE);
+        if (m_File != null) {
+            setFile(new File(m_File));
+        }
+    }
+
+    @Override
+    public void setSource(InputStream inputStream) throws IOException {
+        closeInput();
+        input = new DataInputStream(new BufferedInputStream(inputStream));
+        if (input.readInt() != MAGIC) {
+            throw new IOException("The source is not in the Disruptor columnar format");
+        }
+        short version = input.readShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported version of the Disruptor columnar format: " + version);
+        }
+        m_structure = new Instances(new StringReader(readString()));
+        m_structure.setClassIndex(input.readInt());
+        numRows = input.readInt();
+    }
+
+    @Override
+    public Instances getStructure() throws IOException {
+        if (m_structure == null) {
+            throw new IOException("No source has been specified");
+        }
+        return new Instances(m_structure, 0);
+    }
+
+    @Override
+    public Instances getDataSet() throws IOException {
+        if (getRetrieval() == INCREMENTAL) {
+            throw new IOException("Cannot mix getting instances in both incremental and batch modes");
+        }
+        if (input == null) {
+            throw new IOException("No source has been specified");
+        }
+        setRetrieval(BATCH);
+
+        Instances dataset = getStructure();
+        int numAttributes = dataset.numAttributes();
+        double[][] rows = new double[numRows][numAttributes];
+        try {
+            for (int a = 0; a < numAttributes; a++) {
+                readColumn(dataset.attribute(a), rows);
+            }
+            double[] weights = readWeights();
+            for (int i = 0; i < numRows; i++) {
+                dataset.add(new DenseInstance(weights == null ? 1 : weights[i], rows[i]));
+            }
+        }
+        finally {
+            closeInput();
+        }
+        return dataset;
+    }
+
+    @Override
+    public Instance getNextInstance(Instances structure) throws IOException {
+        throw new IOException("The Disruptor columnar format can be read only in batch mode");
+    }
+
+
+
+    // --------------------------------------------------------------------------------------------------------
+    // -- Columns ----------------------------------------------------------------------------------
+    // --------------------------------------------------------------------------------------------------------
+
+    private void readColumn(Attribute attribute, double[][] rows) throws IOException {
+        int attributeIndex = attribute.index();
+        byte encoding = input.readByte();
+        double scale = 1;
+        if (encoding == DECIMAL) {
+            scale = POWERS_OF_TEN[input.readByte()];
+            encoding = input.readByte();
+        }
+        for (int i = 0; i < numRows; i++) {
+            double value;
+            switch (encoding) {
+                case FLOAT64:
+                    value = input.readDouble();
+                    break;
+                case FLOAT32:
+                    value = input.readFloat();
+                    break;
+                case STRING:
+                    value = readStringValue(attribute);
+                    break;
+                default:
+                    value = readIntegerValue(attribute, encoding) / scale;
+            }
+            rows[i][attributeIndex] = value;
+        }
+    }
+
+    private double readIntegerValue(Attribute attribute, byte encoding) throws IOException {
+        int value;
+        int missing;
+        switch (encoding) {
+            case INT8:
+                value = input.readByte();
+                missing = Byte.MIN_VALUE;
+                break;
+            case INT16:
+                value = input.readShort();
+                missing = Short.MIN_VALUE;
+                break;
+            case INT32:
+                value = input.readInt();
+                missing = Integer.MIN_VALUE;
+                break;
+            default:
+                throw new IOException("Unknown encoding " + encoding + " of the attribute " + attribute.name());
+        }
+        if (attribute.isNominal()) {
+            missing = -1;
+        }
+        return value == missing ? Utils.missingValue() : value;
+    }
+
+    private double readStringValue(Attribute attribute) throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            return Utils.missingValue();
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return attribute.addStringValue(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    private double[] readWeights() throws IOException {
+        if (input.readByte() == WEIGHTS_UNIT) {
+            return null;
+        }
+        double[] weights = new double[numRows];
+        for (int i = 0; i < numRows; i++) {
+            weights[i] = input.readDouble();
+        }
+        return weights;
+    }
+
+    private String readString() throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void closeInput() throws IOException {
+        if (input != null) {
+            input.close();
+            input = null;
+        }
+    }
+
+    @Override
+    public String getRevision() {
+        return RevisionUtils.extract("$Revision: 1 $");
+    }
+}
@@ -0,0 +1,303 @@
+package disruptor.saver;
+
+import weka.core.Attribute;
+import weka.core.Capabilities;
+import weka.core.Instances;
+import weka.core.RevisionUtils;
+import weka.core.Utils;
+import weka.core.WeightedInstancesHandler;
+import weka.core.converters.AbstractFileSaver;
+import weka.core.converters.BatchConverter;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static disruptor.saver.ColumnarFormat.*;
+
+/**
+ * Weka saver of the binary columnar format described in {@link ColumnarFormat}.
+ * <p/>
+ * Compared to ARFF and CSV the numbers are stored exactly and in their binary representation, so the files are
+ * smaller and can be read back by {@link ColumnarLoader} without parsing any text.
+ */
+public class ColumnarSaver extends AbstractFileSaver implements BatchConverter, WeightedInstancesHandler {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient DataOutputStream output;
+
+    public ColumnarSaver() {
+        resetOptions();
+    }
+
+    /**
+     * @return description of the saver
+     */
+    public String globalInfo() {
+        return "Writes the instances in the binary columnar format of Disruptor.";
+    }
+
+    @Override
+    public String getFileDescription() {
+        return "Disruptor binary columnar data files";
+    }
+
+    @Override
+    public void resetOptions() {
+        super.resetOptions();
+        setFileExtension(FILE_EXTENSION);
+    }
+
+    @Override
+    public Capabilities getCapabilities() {
+        Capabilities result = super.getCapabilities();
+        result.enableAllAttributes();
+        result.disable(Capabilities.Capability.RELATIONAL_ATTRIBUTES);
+        result.enable(Capabilities.Capability.MISSING_VALUES);
+        result.enableAllClasses();
+        result.disable(Capabilities.Capability.RELATIONAL_CLASS);
+        result.enable(Capabilities.Capability.MISSING_CLASS_VALUES);
+        result.enable(Capabilities.Capability.NO_CLASS);
+        return result;
+    }
+
+    @Override
+    public void resetWriter() {
+        super.resetWriter();
+        output = null;
+    }
+
+    @Override
+    public void setDestination(OutputStream outputStream) throws IOException {
+        super.setDestination(outputStream);
+        output = new DataOutputStream(new BufferedOutputStream(outputStream));
+    }
+
+    @Override
+    public void writeBatch() throws IOException {
+        if (getRetrieval() == INCREMENTAL) {
+            throw new IOException("Batch and incremental saving cannot be mixed.");
+        }
+        Instances instances = getInstances();
+        if (instances == null) {
+            throw new IOException("No instances to save");
+        }
+        if (output == null) {
+            throw new IOException("No destination has been specified");
+        }
+        checkSupported(instances);
+        setRetrieval(BATCH);
+        setWriteMode(WRITE);
+
+        output.writeInt(MAGIC);
+        output.writeShort(VERSION);
+        writeString(new Instances(instances, 0).toString());
+        output.writeInt(instances.classIndex());
+        output.writeInt(instances.numInstances());
+        for (int a = 0; a < instances.numAttributes(); a++) {
+            Attribute attribute = instances.attribute(a);
+            if (attribute.isNominal()) {
+                writeNominalColumn(instances, a);
+            }
+            else if (attribute.isString()) {
+                writeStringColumn(instances, a);
+            }
+            else {
+                writeNumericColumn(instances, a);
+            }
+        }
+        writeWeights(instances);
+        output.flush();
+        output.close();
+
+        setWriteMode(WAIT);
+        resetWriter();
+        setWriteMode(CANCEL);
+    }
+
+
+
+    // --------------------------------------------------------------------------------------------------------
+    // -- Columns ----------------------------------------------------------------------------------
+    // --------------------------------------------------------------------------------------------------------
+
+    private void writeNominalColumn(Instances instances, int attributeIndex) throws IOException {
+        byte encoding = nominalEncoding(instances.attribute(attributeIndex).numValues());
+        output.writeByte(encoding);
+        for (int i = 0; i < instances.numInstances(); i++) {
+            double value = instances.instance(i).value(attributeIndex);
+            writeInteger(encoding, Utils.isMissingValue(value) ? -1 : (int) value);
+        }
+    }
+
+    private void writeStringColumn(Instances instances, int attributeIndex) throws IOException {
+        output.writeByte(STRING);
+        for (int i = 0; i < instances.numInstances(); i++) {
+            if (instances.instance(i).isMissing(attributeIndex)) {
+                output.writeInt(-1);
+            }
+            else {
+                writeString(instances.instance(i).stringValue(attributeIndex));
+            }
+        }
+    }
+
+    private void writeNumericColumn(Instances instances, int attributeIndex) throws IOException {
+        int numRows = instances.numInstances();
+        double[] values = new double[numRows];
+        for (int i = 0; i < numRows; i++) {
+            values[i] = instances.instance(i).value(attributeIndex);
+        }
+
+        int decimals = decimals(values);
+        if (decimals < 0) {
+            // Not a decimal column: keep the floating point values
+            byte encoding = isFloat32(values) ? FLOAT32 : FLOAT64;
+            output.writeByte(encoding);
+            for (double value : values) {
+                if (encoding == FLOAT32) {
+                    output.writeFloat((float) value);
+                }
+                else {
+                    output.writeDouble(value);
+                }
+            }
+            return;
+        }
+
+        // Every value is stored as an integer number of units of 10^-decimals
+        double scale = POWERS_OF_TEN[decimals];
+        int[] units = new int[numRows];
+        int min = 0;
+        int max = 0;
+        for (int i = 0; i < numRows; i++) {
+            if (!Utils.isMissingValue(values[i])) {
+                units[i] = (int) Math.rint(values[i] * scale);
+                min = Math.min(min, units[i]);
+                max = Math.max(max, units[i]);
+            }
+        }
+        byte encoding = integerEncoding(min, max);
+        if (decimals > 0) {
+            output.writeByte(DECIMAL);
+            output.writeByte(decimals);
+        }
+        output.writeByte(encoding);
+        for (int i = 0; i < numRows; i++) {
+            writeInteger(encoding, Utils.isMissingValue(values[i]) ? missingInteger(encoding) : units[i]);
+        }
+    }
+
+    private void writeWeights(Instances instances) throws IOException {
+        boolean unitWeights = true;
+        for (int i = 0; i < instances.numInstances() && unitWeights; i++) {
+            unitWeights = instances.instance(i).weight() == 1;
+        }
+        if (unitWeights) {
+            output.writeByte(WEIGHTS_UNIT);
+            return;
+        }
+        output.writeByte(WEIGHTS_DOUBLE);
+        for (int i = 0; i < instances.numInstances(); i++) {
+            output.writeDouble(instances.instance(i).weight());
+        }
+    }
+
+    /**
+     * @param values values of a numeric column
+     * @return the smallest number of decimal digits that represents exactly all the values, -1 if there is none
+     * within {@link ColumnarFormat#MAX_DECIMALS} digits
+     */
+    private static int decimals(double[] values) {
+        int decimals = 0;
+        for (double value : values) {
+            if (Utils.isMissingValue(value)) {
+                continue;
+            }
+            while (!isDecimal(value, decimals)) {
+                decimals++;
+                if (decimals > MAX_DECIMALS) {
+                    return -1;
+                }
+            }
+        }
+        // The values exact with fewer digits could be not exact with more digits because of the rounding
+        for (double value : values) {
+            if (!Utils.isMissingValue(value) && !isDecimal(value, decimals)) {
+                return -1;
+            }
+        }
+        return decimals;
+    }
+
+    /**
+     * @return true if the value is exactly an int number of units of 10^-decimals
+     */
+    private static boolean isDecimal(double value, int decimals) {
+        double scale = POWERS_OF_TEN[decimals];
+        double units = Math.rint(value * scale);
+        // The minimum int is reserved for the missing values
+        return units > Integer.MIN_VALUE && units <= Integer.MAX_VALUE
+                && Double.doubleToLongBits((int) units / scale) == Double.doubleToLongBits(value);
+    }
+
+    private static boolean isFloat32(double[] values) {
+        for (double value : values) {
+            if (!Utils.isMissingValue(value) && Double.doubleToLongBits((float) value) != Double.doubleToLongBits(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the smallest integer encoding that fits the values between min and max and the missing value
+     */
+    private static byte integerEncoding(int min, int max) {
+        if (min > Byte.MIN_VALUE && max <= Byte.MAX_VALUE) {
+            return INT8;
+        }
+        if (min > Short.MIN_VALUE && max <= Short.MAX_VALUE) {
+            return INT16;
+        }
+        return INT32;
+    }
+
+    private static int missingInteger(byte encoding) {
+        switch (encoding) {
+            case INT8:
+                return Byte.MIN_VALUE;
+            case INT16:
+                return Short.MIN_VALUE;
+            default:
+                return Integer.MIN_VALUE;
+        }
+    }
+
+    private void writeInteger(byte encoding, int value) throws IOException {
+        switch (encoding) {
+            case INT8:
+                output.writeByte(value);
+                break;
+            case INT16:
+                output.writeShort(value);
+                break;
+            default:
+                output.writeInt(value);
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    @Override
+    public String getRevision() {
+        return RevisionUtils.extract("$Revision: 1 $");
+    }
+}
@@ -0,0 +1,412 @@
+package disruptor.saver;
+
+import lombok.Getter;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.Utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Differences of a perturbed dataset from the base dataset it was created from.
+ * <p/>
+ * The rows of the perturbed dataset are compared with the rows of the base dataset in the same position. The patch
+ * contains only the changed values, as (row index, attribute index, new value), and the rows added after the ones of
+ * the base dataset, es: the duplicates of {@link disruptor.attacks.custom.SideBySideDuplicate}. Thus, at low
+ * capacities a patch is a small fraction of the whole dataset.
+ * <p/>
+ * The base dataset is not contained in the patch: it is referenced by the name of its file, exported with
+ * {@link ColumnarSaver} in the same folder of the patch. Use {@link #materialize(File)} to rebuild the perturbed dataset.
+ */
+public class DatasetPatch {
+
+    public static final String FILE_EXTENSION = ".dpatch";
+
+    private static final int MAGIC = 0x44504154; // DPAT
+    private static final short VERSION = 1;
+
+    /**
+     * Attribute index of the changes of the weight of a row
+     */
+    private static final int WEIGHT = -1;
+
+    /**
+     * @return relation name of the perturbed dataset
+     */
+    @Getter
+    private final String relationName;
+
+    /**
+     * @return number of rows of the perturbed dataset
+     */
+    @Getter
+    private final int numRows;
+
+    /**
+     * stringAttributes[a] is true if the attribute with index a is a string attribute
+     */
+    private final boolean[] stringAttributes;
+
+    private final List<Change> changes;
+
+    /**
+     * Rows of the perturbed dataset after the rows of the base dataset
+     */
+    private final List<Row> addedRows;
+
+    /**
+     * @return name of the file of the base dataset, in the same folder of the patch. Null if the patch was not read from a file
+     */
+    @Getter
+    private String baseFileName;
+
+    private DatasetPatch(String relationName, int numRows, boolean[] stringAttributes, List<Change> changes, List<Row> addedRows) {
+        this.relationName = relationName;
+        this.numRows = numRows;
+        this.stringAttributes = stringAttributes;
+        this.changes = changes;
+        this.addedRows = addedRows;
+    }
+
+    /**
+     * Single value of the base dataset changed by the perturbation
+     */
+    private static class Change {
+        private final int row;
+        private final int attribute;
+        private final double value;
+        /**
+         * Value of a string attribute, null for the other attributes
+         */
+        private final String string;
+
+        private Change(int row, int attribute, double value, String string) {
+            this.row = row;
+            this.attribute = attribute;
+            this.value = value;
+            this.string = string;
+        }
+    }
+
+    /**
+     * Row of the perturbed dataset. The values of the string attributes are kept as strings, since the indexes of the
+     * values are different in every dataset
+     */
+    private static class Row {
+        private final double weight;
+        private final double[] values;
+        private final String[] strings;
+
+        private Row(double weight, double[] values, String[] strings) {
+            this.weight = weight;
+            this.values = values;
+            this.strings = strings;
+        }
+
+        private Row(Instance instance) {
+            this(instance.weight(), instance.toDoubleArray(), new String[instance.numAttributes()]);
+            for (int a = 0; a < strings.length; a++) {
+                strings[a] = stringValue(instance, a);
+            }
+        }
+    }
+
+
+
+    // --------------------------------------------------------------------------------------------------------
+    // -- Creation ----------------------------------------------------------------------------------
+    // --------------------------------------------------------------------------------------------------------
+
+    /**
+     * Compute the differences of the perturbed dataset from the base dataset
+     * @param base dataset that was perturbed
+     * @param perturbed perturbed dataset, with the same attributes of the base dataset
+     * @return the patch that transforms the base dataset into the perturbed one
+     * @throws IllegalArgumentException if the datasets have different attributes
+     */
+    public static DatasetPatch diff(Instances base, Instances perturbed) {
+        String headersMessage = base.equalHeadersMsg(perturbed);
+        if (headersMessage != null) {
+            throw new IllegalArgumentException("The perturbed dataset has different attributes from the base dataset: " + headersMessage);
+        }
+        int commonRows = Math.min(base.numInstances(), perturbed.numInstances());
+        List<Change> changes = new ArrayList<>();
+        for (int i = 0; i < commonRows; i++) {
+            Instance baseInstance = base.instance(i);
+            Instance perturbedInstance = perturbed.instance(i);
+            if (baseInstance == perturbedInstance) {
+                // Shared with the base dataset, es: by a PerturbedView
+                continue;
+            }
+            if (Double.doubleToLongBits(baseInstance.weight()) != Double.doubleToLongBits(perturbedInstance.weight())) {
+                changes.add(new Change(i, WEIGHT, perturbedInstance.weight(), null));
+            }
+            for (int a = 0; a < perturbed.numAttributes(); a++) {
+                double value = perturbedInstance.value(a);
+                if (Double.doubleToLongBits(baseInstance.value(a)) != Double.doubleToLongBits(value)) {
+                    changes.add(new Change(i, a, value, stringValue(perturbedInstance, a)));
+                }
+            }
+        }
+        List<Row> addedRows = new ArrayList<>();
+        for (int i = commonRows; i < perturbed.numInstances(); i++) {
+            addedRows.add(new Row(perturbed.instance(i)));
+        }
+        boolean[] stringAttributes = new boolean[perturbed.numAttributes()];
+        for (int a = 0; a < stringAttributes.length; a++) {
+            stringAttributes[a] = perturbed.attribute(a).isString();
+        }
+        return new DatasetPatch(perturbed.relationName(), perturbed.numInstances(), stringAttributes, changes, addedRows);
+    }
+
+    /**
+     * @return number of values changed in the rows of the base dataset, weights included
+     */
+    public int numChanges() {
+        return changes.size();
+    }
+
+    /**
+     * @return number of rows added after the rows of the base dataset
+     */
+    public int numAddedRows() {
+        return addedRows.size();
+    }
+
+    /**
+     * @return fraction of the values of the perturbed dataset contained in the patch, between 0 and 1
+     */
+    public double changedValuesRatio() {
+        double totalValues = (double) numRows * stringAttributes.length;
+        return totalValues == 0 ? 0 : (changes.size() + (double) addedRows.size() * stringAttributes.length) / totalValues;
+    }
+
+
+
+    // --------------------------------------------------------------------------------------------------------
+    // -- Application ----------------------------------------------------------------------------------
+    // --------------------------------------------------------------------------------------------------------
+
+    /**
+     * Rebuild the perturbed dataset
+     * @param base the dataset the patch was computed from
+     * @return a new dataset equal to the perturbed one
+     * @throws IllegalArgumentException if the base dataset has different attributes or fewer rows than the ones changed by the patch
+     */
+    public Instances apply(Instances base) {
+        if (base.numAttributes() != stringAttributes.length) {
+            throw new IllegalArgumentException("The base dataset has a different number of attributes from the patch");
+        }
+        Instances perturbed = new Instances(base, numRows);
+        perturbed.setRelationName(relationName);
+        int commonRows = numRows - addedRows.size();
+        if (commonRows > base.numInstances()) {
+            throw new IllegalArgumentException("The base dataset has fewer rows than the ones of the patch");
+        }
+        for (int i = 0; i < commonRows; i++) {
+            perturbed.add(base.instance(i));
+        }
+        for (Change change : changes) {
+            if (change.row >= commonRows) {
+                throw new IllegalArgumentException("The patch changes a value outside the base dataset");
+            }
+            Instance instance = perturbed.instance(change.row);
+            if (change.attribute == WEIGHT) {
+                instance.setWeight(change.value);
+            }
+            else if (change.string != null) {
+                instance.setValue(change.attribute, change.string);
+            }
+            else {
+                instance.setValue(change.attribute, change.value);
+            }
+        }
+        for (Row addedRow : addedRows) {
+            perturbed.add(new DenseInstance(addedRow.weight, addedRow.values.clone()));
+            Instance instance = perturbed.lastInstance();
+            for (int a = 0; a < stringAttributes.length; a++) {
+                if (!stringAttributes[a]) {
+                    continue;
+                }
+                if (addedRow.strings[a] == null) {
+                    instance.setMissing(a);
+                }
+                else {
+                    instance.setValue(a, addedRow.strings[a]);
+                }
+            }
+        }
+        return perturbed;
+    }
+
+    /**
+     * Read a patch and rebuild the perturbed dataset from the base dataset referenced by the patch
+     * @param patchFile file written by {@link #write(File, String)}
+     * @return the perturbed dataset
+     * @throws IOException if problems reading the patch or the base dataset
+     */
+    public static Instances materialize(File patchFile) throws IOException {
+        DatasetPatch patch = read(patchFile);
+        return patch.apply(ColumnarLoader.read(patch.baseFile(patchFile)));
+    }
+
+    /**
+     * @param patchFile file of this patch
+     * @return the file of the base dataset referenced by the patch
+     */
+    public File baseFile(File patchFile) {
+        return new File(patchFile.getAbsoluteFile().getParentFile(), baseFileName);
+    }
+
+
+
+    // --------------------------------------------------------------------------------------------------------
+    // -- Files ----------------------------------------------------------------------------------
+    // --------------------------------------------------------------------------------------------------------
+
+    /**
+     * Write the patch in a file, creating the parent folders if needed
+     * @param file destination file
+     * @param baseFileName name of the file of the base dataset, exported with {@link ColumnarSaver} in the same folder
+     * @throws IOException if problems writing the file
+     */
+    public void write(File file, String baseFileName) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            Files.createDirectories(parent.toPath());
+        }
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file.toPath())))) {
+            output.writeInt(MAGIC);
+            output.writeShort(VERSION);
+            writeString(output, relationName);
+            writeString(output, baseFileName);
+            output.writeInt(numRows);
+            output.writeInt(stringAttributes.length);
+            for (boolean stringAttribute : stringAttributes) {
+                output.writeBoolean(stringAttribute);
+            }
+
+            output.writeInt(changes.size());
+            for (Change change : changes) {
+                output.writeInt(change.row);
+                output.writeInt(change.attribute);
+                if (change.attribute != WEIGHT && stringAttributes[change.attribute]) {
+                    output.writeBoolean(change.string != null);
+                    if (change.string != null) {
+                        writeString(output, change.string);
+                    }
+                }
+                else {
+                    output.writeDouble(change.value);
+                }
+            }
+
+            output.writeInt(addedRows.size());
+            for (Row addedRow : addedRows) {
+                output.writeDouble(addedRow.weight);
+                for (int a = 0; a < stringAttributes.length; a++) {
+                    if (stringAttributes[a]) {
+                        output.writeBoolean(addedRow.strings[a] != null);
+                        if (addedRow.strings[a] != null) {
+                            writeString(output, addedRow.strings[a]);
+                        }
+                    }
+                    else {
+                        output.writeDouble(addedRow.values[a]);
+                    }
+                }
+            }
+        }
+        this.baseFileName = baseFileName;
+    }
+
+    /**
+     * Read a patch written by {@link #write(File, String)}
+     * @param file the patch file
+     * @return the patch, with the name of the file of its base dataset
+     * @throws IOException if problems reading the file or if it is not a patch
+     */
+    public static DatasetPatch read(File file) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (input.readInt() != MAGIC) {
+                throw new IOException("The file " + file.getPath() + " is not a dataset patch");
+            }
+            short version = input.readShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported version of the dataset patch: " + version);
+            }
+            String relationName = readString(input);
+            String baseFileName = readString(input);
+            int numRows = input.readInt();
+            boolean[] stringAttributes = new boolean[input.readInt()];
+            for (int a = 0; a < stringAttributes.length; a++) {
+                stringAttributes[a] = input.readBoolean();
+            }
+
+            int numChanges = input.readInt();
+            List<Change> changes = new ArrayList<>(numChanges);
+            for (int c = 0; c < numChanges; c++) {
+                int row = input.readInt();
+                int attribute = input.readInt();
+                if (attribute != WEIGHT && stringAttributes[attribute]) {
+                    String string = input.readBoolean() ? readString(input) : null;
+                    changes.add(new Change(row, attribute, Utils.missingValue(), string));
+                }
+                else {
+                    changes.add(new Change(row, attribute, input.readDouble(), null));
+                }
+            }
+
+            int numAddedRows = input.readInt();
+            List<Row> addedRows = new ArrayList<>(numAddedRows);
+            for (int r = 0; r < numAddedRows; r++) {
+                double weight = input.readDouble();
+                double[] values = new double[stringAttributes.length];
+                String[] strings = new String[stringAttributes.length];
+                for (int a = 0; a < values.length; a++) {
+                    if (stringAttributes[a]) {
+                        values[a] = Utils.missingValue();
+                        strings[a] = input.readBoolean() ? readString(input) : null;
+                    }
+                    else {
+                        values[a] = input.readDouble();
+                    }
+                }
+                addedRows.add(new Row(weight, values, strings));
+            }
+
+            DatasetPatch patch = new DatasetPatch(relationName, numRows, stringAttributes, changes, addedRows);
+            patch.baseFileName = baseFileName;
+            return patch;
+        }
+    }
+
+    private static String stringValue(Instance instance, int attributeIndex) {
+        if (!instance.attribute(attributeIndex).isString() || instance.isMissing(attributeIndex)) {
+            return null;
+        }
+        return instance.stringValue(attributeIndex);
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,178 @@
+package disruptor.saver;
+
+import disruptor.util.InstancesView;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import weka.core.Instances;
+import weka.core.converters.AbstractFileSaver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Content-addressed store of exported datasets.
+ * <p/>
+ * Every dataset is saved only once in the store folder, in a file named after the fingerprint of its content, with
+ * the fingerprint as relation name. The path where the dataset would have been exported becomes an entry of the index
+ * file, store/index.csv, pointing at the fingerprint and recording the original relation name, and a hard link to the
+ * stored file, or a copy of it when the file system does not support hard links. Thus, the exported datasets have the
+ * fingerprint as relation name, and the datasets produced again and again, es: the same test set for every feature
+ * selection algorithm or the cells with capacity 0, take the disk space and the write time of a single dataset.
+ * <p/>
+ * The store can be used by different threads at the same time. It must be closed to complete the index.
+ */
+@Slf4j
+public class DatasetStore implements AutoCloseable {
+
+    public static final String INDEX_FILE_NAME = "index.csv";
+
+    private static final String TEMPORARY_LINK_EXTENSION = ".link";
+
+    /**
+     * @return folder containing the stored datasets and the index
+     */
+    @Getter
+    private final File folder;
+
+    /**
+     * Files of the store, written or being written, by name
+     */
+    private final ConcurrentHashMap<String, FutureTask<Long>> storedFiles = new ConcurrentHashMap<>();
+
+    private final CSVPrinter index;
+
+    private final AtomicBoolean linksSupported = new AtomicBoolean(true);
+
+    /**
+     * Create the store and its index in the specified folder
+     * @param folder folder of the store, created if needed
+     * @throws IOException if problems creating the folder or the index
+     */
+    public DatasetStore(File folder) throws IOException {
+        this.folder = folder;
+        Files.createDirectories(folder.toPath());
+        CSVFormat csvFormat = CSVFormat.DEFAULT.builder()
+                .setHeader("file", "fingerprint", "relation")
+                .build();
+        this.index = new CSVPrinter(new OutputStreamWriter(Files.newOutputStream(new File(folder, INDEX_FILE_NAME).toPath()), StandardCharsets.UTF_8), csvFormat);
+    }
+
+    /**
+     * Export the dataset with the saver, writing it in the store only if no dataset with the same fingerprint has
+     * already been stored in the same format
+     * @param saver saver of the format of the export. Must not be shared with other threads
+     * @param instances dataset to export
+     * @param fingerprint fingerprint of the content of the dataset, see {@link disruptor.util.FingerprintUtil}
+     * @param destination file where the dataset would have been exported, without extension
+     * @return the bytes written in the store, 0 if the dataset was already stored
+     * @throws IOException if problems writing the dataset or its entry
+     */
+    public long export(AbstractFileSaver saver, Instances instances, String fingerprint, File destination) throws IOException {
+        String extension = saver.getFileExtension();
+        File storedFile = new File(folder, fingerprint + extension);
+
+        // Only the first export of a fingerprint writes the file, the others wait for it
+        FutureTask<Long> write = new FutureTask<>(() -> {
+            // The relation name is changed in a dataset sharing the instances, without copying them
+            Instances storedInstances = new InstancesView(instances).sharedInstances();
+            storedInstances.setRelationName(fingerprint);
+            saver.setInstances(storedInstances);
+            saver.setFile(storedFile);
+            saver.writeBatch();
+            return storedFile.length();
+        });
+        FutureTask<Long> storedWrite = storedFiles.putIfAbsent(storedFile.getName(), write);
+        long bytesWritten = 0;
+        if (storedWrite == null) {
+            write.run();
+            try {
+                bytesWritten = waitFor(write);
+            } catch (IOException e) {
+                // A failed write is forgotten, so that the next export of the same fingerprint tries again
+                storedFiles.remove(storedFile.getName(), write);
+                throw e;
+            }
+        }
+        else {
+            waitFor(storedWrite);
+        }
+
+        File destinationFile = new File(destination.getPath() + extension);
+        link(destinationFile, storedFile);
+        synchronized (index) {
+            index.printRecord(destinationFile.getPath(), fingerprint, instances.relationName());
+        }
+        return bytesWritten;
+    }
+
+    /**
+     * @return number of distinct files in the store
+     */
+    public int storedFilesNumber() {
+        return storedFiles.size();
+    }
+
+    /**
+     * Create a hard link to the stored file in the destination. The link is created aside and then moved over the
+     * destination, thus an existing destination is replaced only by a complete file. If the link fails, the stored
+     * file is copied in the destination and the following exports copy their files without trying to link them
+     */
+    private void link(File destinationFile, File storedFile) throws IOException {
+        File parent = destinationFile.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            Files.createDirectories(parent.toPath());
+        }
+        Path destination = destinationFile.toPath();
+        if (linksSupported.get()) {
+            Path temporaryLink = destination.resolveSibling(destination.getFileName() + TEMPORARY_LINK_EXTENSION);
+            try {
+                Files.deleteIfExists(temporaryLink);
+                Files.createLink(temporaryLink, storedFile.toPath());
+                Files.move(temporaryLink, destination, StandardCopyOption.REPLACE_EXISTING);
+                return;
+            } catch (UnsupportedOperationException | IOException e) {
+                Files.deleteIfExists(temporaryLink);
+                if (linksSupported.getAndSet(false)) {
+                    log.warn("Cannot create the hard link {} to the stored dataset, the exported datasets are copied from the store: {}", destinationFile.getPath(), e.toString());
+                }
+            }
+        }
+        Files.copy(storedFile.toPath(), destination, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static long waitFor(FutureTask<Long> write) throws IOException {
+        try {
+            return write.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the stored dataset", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Problem storing the dataset", e.getCause());
+        }
+    }
+
+    /**
+     * Complete the index
+     * @throws IOException if problems writing the index
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (index) {
+            index.close();
+        }
+    }
+}
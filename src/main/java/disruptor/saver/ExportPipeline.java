@@ -0,0 +1,169 @@
+package disruptor.saver;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous export stage.
+ * <p/>
+ * The exports are written by a pool of writer threads, so that the threads producing the datasets do not wait for the
+ * disk. At most queueSize exports can wait for a writer: when the queue is full {@link #submit(ExportTask)} blocks
+ * until a writer is free, so that the datasets waiting to be written cannot fill the memory.
+ * <p/>
+ * With 0 writers every export is written synchronously by the thread that submits it.
+ * <p/>
+ * The datasets submitted MUST NOT be modified until their export is completed: use {@link #await(List)} before changing them.
+ */
+@Slf4j
+public class ExportPipeline implements AutoCloseable {
+
+    /**
+     * Export of a single file
+     */
+    @FunctionalInterface
+    public interface ExportTask {
+        /**
+         * Write the file
+         * @throws IOException if problems during the export
+         */
+        void export() throws IOException;
+    }
+
+    /**
+     * @return number of threads writing the exports. 0 if the exports are synchronous
+     */
+    @Getter
+    private final int writers;
+
+    /**
+     * @return maximum number of exports waiting for a writer
+     */
+    @Getter
+    private final int queueSize;
+
+    private final ExecutorService executor;
+
+    /**
+     * Exports submitted and not completed yet, both waiting and running
+     */
+    private final Semaphore slots;
+
+    /**
+     * @param writers number of threads writing the exports. 0 to export synchronously
+     * @param queueSize maximum number of exports waiting for a writer. Should be greater than 0
+     * @throws IllegalArgumentException if writers is negative or queueSize is not greater than 0
+     */
+    public ExportPipeline(int writers, int queueSize) {
+        if(writers<0){
+            throw new IllegalArgumentException("The number of writers should not be negative");
+        }
+        if(queueSize<=0){
+            throw new IllegalArgumentException("The export queue size should be greater than 0");
+        }
+        this.writers = writers;
+        this.queueSize = queueSize;
+        this.slots = new Semaphore(writers + queueSize);
+        if(writers == 0){
+            this.executor = null;
+        }
+        else {
+            AtomicInteger threadCounter = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(writers, runnable -> {
+                Thread thread = new Thread(runnable, "disruptor-export-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Submit an export to the writers, waiting if the queue is full
+     * @param task export to perform
+     * @return the future completed when the export is written
+     * @throws InterruptedException if interrupted while waiting for a free place in the queue
+     */
+    public Future<Void> submit(ExportTask task) throws InterruptedException {
+        if(executor == null){
+            CompletableFuture<Void> export = new CompletableFuture<>();
+            try {
+                task.export();
+                export.complete(null);
+            } catch (IOException | RuntimeException e) {
+                export.completeExceptionally(e);
+            }
+            return export;
+        }
+
+        // Backpressure: wait until a writer or a place in the queue is free
+        slots.acquire();
+        Callable<Void> write = () -> {
+            try {
+                task.export();
+                return null;
+            }
+            finally {
+                slots.release();
+            }
+        };
+        try {
+            return executor.submit(write);
+        } catch (RejectedExecutionException e) {
+            slots.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Wait for the completion of the specified exports
+     * @param exports exports to wait for
+     * @throws IOException the first exception thrown by an export, after all the exports are completed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void await(List<Future<Void>> exports) throws IOException, InterruptedException {
+        Exception firstFailure = null;
+        for( Future<Void> export : new ArrayList<>(exports) ){
+            try {
+                export.get();
+            } catch (ExecutionException e) {
+                if(firstFailure == null){
+                    firstFailure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            }
+        }
+        if(firstFailure instanceof IOException){
+            throw (IOException) firstFailure;
+        }
+        if(firstFailure instanceof RuntimeException){
+            throw (RuntimeException) firstFailure;
+        }
+        if(firstFailure != null){
+            throw new IOException("Problem during the export", firstFailure);
+        }
+    }
+
+    /**
+     * Stop the writers after the completion of the exports already submitted
+     */
+    @Override
+    public void close() {
+        if(executor == null){
+            return;
+        }
+        executor.shutdown();
+        try {
+            if( !executor.awaitTermination(10, TimeUnit.MINUTES) ){
+                log.warn("Export pipeline terminated before all the exports were written");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package disruptor.scheduler;
+
+import disruptor.attacks.Attack;
+import disruptor.columnar.ColumnarDataset;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import weka.core.Instances;
+
+/**
+ * Context of a single cell of the attacks grid.
+ * <p/>
+ * Every cell owns its attack instance, so that different cells can be executed at the same time without sharing any
+ * mutable state. The target is shared between the cells since the attacks never modify it.
+ */
+@AllArgsConstructor
+public class GridCell {
+
+    /**
+     * @return attack instance used only by this cell, already configured with the capacities of the cell
+     */
+    @Getter
+    private final Attack attack;
+
+    /**
+     * @return instances target of the attack. Read only
+     */
+    @Getter
+    private final Instances target;
+
+    /**
+     * @return columnar representation of the target, shared between the cells. Null if the attacks are performed only
+     * on the instances
+     */
+    @Getter
+    private final ColumnarDataset columnarTarget;
+
+    /**
+     * @return String used to identify this particular attack execution. Used as relation name and file name
+     */
+    @Getter
+    private final String attackCode;
+
+    /**
+     * @return folder where the perturbed dataset of this cell is exported
+     */
+    @Getter
+    private final String exportFolder;
+
+    /**
+     * @return name of the feature selection algorithm used to rank the attacked features
+     */
+    @Getter
+    private final String featureSelectionAlgorithm;
+
+    /**
+     * @return knowledge of the feature selection algorithm
+     */
+    @Getter
+    private final double knowledge;
+
+    /**
+     * @return number of the run this cell belongs to
+     */
+    @Getter
+    private final int runNumber;
+
+    /**
+     * @return context of the run this cell belongs to
+     */
+    @Getter
+    private final RunContext runContext;
+
+}
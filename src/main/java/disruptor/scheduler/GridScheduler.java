@@ -0,0 +1,92 @@
+package disruptor.scheduler;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded executor used to run the cells of the attacks grid (attack × features capacity × capacity) concurrently.
+ * <p/>
+ * The tasks are executed in parallel, but their results are always returned in the same order they were submitted,
+ * so that the output of the grid is deterministic regardless of the number of threads.
+ */
+@Slf4j
+public class GridScheduler implements AutoCloseable {
+
+    /**
+     * @return number of threads used to execute the grid cells
+     */
+    @Getter
+    private final int threads;
+
+    private final ExecutorService executor;
+
+    /**
+     * @param threads number of grid cells executed at the same time. Should be greater than 0
+     * @param threadsName prefix of the name of the threads created by this scheduler
+     * @throws IllegalArgumentException if threads is not greater than 0
+     */
+    public GridScheduler(int threads, String threadsName) {
+        if(threads<=0){
+            throw new IllegalArgumentException("The number of threads should be greater than 0");
+        }
+        this.threads = threads;
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, threadsName + "-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Submit every task to the executor and wait for all of them to finish
+     * @param tasks tasks to execute
+     * @param <T> type of the result of the tasks
+     * @return the results of the tasks in the same order of the tasks list
+     * @throws Exception the first exception thrown by a task, in submission order
+     */
+    public <T> List<T> invokeAllInOrder(List<? extends Callable<T>> tasks) throws Exception {
+        List<Future<T>> futures = new ArrayList<>();
+        for( Callable<T> task : tasks ){
+            futures.add( executor.submit(task) );
+        }
+
+        List<T> results = new ArrayList<>();
+        try {
+            for( Future<T> future : futures ){
+                results.add( future.get() );
+            }
+        } catch (ExecutionException e) {
+            // Do not waste time on the remaining cells if one of them failed
+            futures.forEach( future -> future.cancel(true) );
+            Throwable cause = e.getCause();
+            if(cause instanceof Exception){
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    /**
+     * Stop the executor. The running tasks are completed but no new task is accepted.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if( !executor.awaitTermination(1, TimeUnit.MINUTES) ){
+                log.warn("Grid scheduler terminated before all the tasks were completed");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package disruptor.scheduler;
+
+import disruptor.attacks.Attack;
+import disruptor.perturbeddataset.PerturbedDataset;
+import lombok.Getter;
+import weka.classifiers.Classifier;
+import weka.core.Instances;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * Context of a single run of the disruptor.
+ * <p/>
+ * Contains all the state produced by a run, so that different runs can be executed at the same time.
+ */
+public class RunContext {
+
+    /**
+     * @return number of this run
+     */
+    @Getter
+    private final int runNumber;
+
+    /**
+     * @return folder where the outputs of this run are exported
+     */
+    @Getter
+    private final String runFolderName;
+
+    /**
+     * @return list of the attacks performed in this run
+     */
+    @Getter
+    private final ArrayList<Attack> attacksList = new ArrayList<>();
+
+    /**
+     * @return list of the classifiers used to evaluate the attacks of this run
+     */
+    @Getter
+    private final ArrayList<Classifier> classifiersList = new ArrayList<>();
+
+    /**
+     * @return list of the datasets produced by this run
+     */
+    @Getter
+    private final ArrayList<PerturbedDataset> perturbedDatasets = new ArrayList<>();
+
+    /**
+     * @return datasets of the cells with the biggest capacity and features capacity of the attacks of this run, kept
+     * only until the label flipping curves are evaluated
+     */
+    @Getter
+    private final Map<Attack, Instances> maxCapacityInstances = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    /**
+     * @return exports of this run submitted to the export pipeline and not awaited yet
+     */
+    @Getter
+    private final List<Future<Void>> pendingExports = Collections.synchronizedList(new ArrayList<>());
+
+    public RunContext(int runNumber, String runFolderName) {
+        this.runNumber = runNumber;
+        this.runFolderName = runFolderName;
+    }
+}
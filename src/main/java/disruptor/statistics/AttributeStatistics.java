@@ -0,0 +1,207 @@
+package disruptor.statistics;
+
+import lombok.Getter;
+import weka.core.Attribute;
+import weka.core.Instances;
+import weka.core.Utils;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Summary of the values assumed by an attribute in a group of instances.
+ * <p/>
+ * The missing values are counted separately and are not considered in any other statistic.
+ * <p/>
+ * The counters and the sums are computed with the statistics, while the distinct values, that take memory for every
+ * value, are collected from the dataset only the first time they are requested.
+ */
+public class AttributeStatistics {
+
+    /**
+     * @return number of instances with a value for the attribute
+     */
+    @Getter
+    private int count = 0;
+
+    /**
+     * @return number of instances with a missing value for the attribute
+     */
+    @Getter
+    private int missingCount = 0;
+
+    /**
+     * @return sum of the values of the attribute
+     */
+    @Getter
+    private double sum = 0;
+
+    /**
+     * @return sum of the weights of the instances with a value for the attribute
+     */
+    @Getter
+    private double weightSum = 0;
+
+    /**
+     * @return sum of the values of the attribute multiplied by the weight of their instance
+     */
+    @Getter
+    private double weightedSum = 0;
+
+    /**
+     * @return minimum value of the attribute. NaN if there are no values
+     */
+    @Getter
+    private double min = Double.NaN;
+
+    /**
+     * @return maximum value of the attribute. NaN if there are no values
+     */
+    @Getter
+    private double max = Double.NaN;
+
+    private final boolean numeric;
+
+    /**
+     * Weighted counter of each value of a nominal attribute. Null if the attribute is not nominal
+     */
+    private final int[] nominalCounts;
+
+    private final Attribute attribute;
+
+    private final Instances dataset;
+
+    /**
+     * instancesClass[i] is the class value of the instance i of the dataset, -1 if missing
+     */
+    private final int[] instancesClass;
+
+    /**
+     * Class value of the instances of the group, -1 if the group is the whole dataset
+     */
+    private final int classValue;
+
+    /**
+     * Values assumed by the attribute in the group, collected at the first request
+     */
+    private volatile Set<Double> distinctValues;
+
+    /**
+     * @param attribute attribute described by the statistics
+     * @param dataset dataset containing the instances of the group
+     * @param instancesClass class value of every instance of the dataset, -1 if missing
+     * @param classValue class value of the instances of the group, -1 if the group is the whole dataset
+     */
+    AttributeStatistics(Attribute attribute, Instances dataset, int[] instancesClass, int classValue) {
+        this.numeric = attribute.isNumeric();
+        this.nominalCounts = attribute.isNominal() ? new int[attribute.numValues()] : null;
+        this.attribute = attribute;
+        this.dataset = dataset;
+        this.instancesClass = instancesClass;
+        this.classValue = classValue;
+    }
+
+    /**
+     * Add a value of the attribute to the statistics
+     * @param value value of the attribute. NaN if missing
+     * @param weight weight of the instance
+     */
+    void add(double value, double weight) {
+        if (Utils.isMissingValue(value)) {
+            missingCount++;
+            return;
+        }
+        if (count == 0 || value < min) {
+            min = value;
+        }
+        if (count == 0 || value > max) {
+            max = value;
+        }
+        count++;
+        sum += value;
+        weightSum += weight;
+        weightedSum += weight * value;
+        if (nominalCounts != null) {
+            // Same truncation of Instances.meanOrMode
+            nominalCounts[(int) value] += weight;
+        }
+    }
+
+    /**
+     * @return mean of the values of the attribute, without considering the weights. NaN if there are no values
+     */
+    public double getMean() {
+        return sum / count;
+    }
+
+    /**
+     * @return mean of the values of the attribute weighted by the instances weights. 0 if there are no values
+     */
+    public double getWeightedMean() {
+        if (weightSum <= 0) {
+            return 0;
+        }
+        return weightedSum / weightSum;
+    }
+
+    /**
+     * @return index of the most frequent value of a nominal attribute. 0 if the attribute is not nominal
+     */
+    public double getMode() {
+        if (nominalCounts == null) {
+            return 0;
+        }
+        return Utils.maxIndex(nominalCounts);
+    }
+
+    /**
+     * Same result of {@link weka.core.Instances#meanOrMode(weka.core.Attribute)} on the instances of the group
+     * @return the weighted mean for a numeric attribute, the mode for a nominal attribute, 0 otherwise
+     */
+    public double getMeanOrMode() {
+        if (numeric) {
+            return getWeightedMean();
+        }
+        return getMode();
+    }
+
+    /**
+     * The values are collected from the dataset the first time they are requested
+     * @return the values assumed by the attribute, missing value excluded. Read only
+     */
+    public Set<Double> getDistinctValues() {
+        Set<Double> values = distinctValues;
+        if (values == null) {
+            synchronized (this) {
+                values = distinctValues;
+                if (values == null) {
+                    values = Collections.unmodifiableSet( collectDistinctValues() );
+                    distinctValues = values;
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return number of different values assumed by the attribute, missing value excluded
+     */
+    public int getDistinctCount() {
+        return getDistinctValues().size();
+    }
+
+    private Set<Double> collectDistinctValues() {
+        Set<Double> values = new HashSet<>();
+        int attributeIndex = attribute.index();
+        for (int i = 0; i < dataset.numInstances(); i++) {
+            if (classValue < 0 || instancesClass[i] == classValue) {
+                double value = dataset.instance(i).value(attributeIndex);
+                if (!Utils.isMissingValue(value)) {
+                    values.add(value);
+                }
+            }
+        }
+        return values;
+    }
+}
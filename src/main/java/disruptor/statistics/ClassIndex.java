@@ -0,0 +1,132 @@
+package disruptor.statistics;
+
+import lombok.Getter;
+import weka.core.Instance;
+import weka.core.Instances;
+
+/**
+ * Positions of the instances of a dataset grouped by class value, with the number of instances of every class.
+ * <p/>
+ * The index is computed once in a single pass over the instances and then it is read only, thus it can be shared
+ * between all the attacks with the same target. The classes are identified by the index of their value, thus every
+ * lookup is an array access: the rows of a class, the class following another one in the order of the class values,
+ * the class with the most instances.
+ */
+public class ClassIndex {
+
+    /**
+     * @return dataset described by the index
+     */
+    @Getter
+    private final Instances dataset;
+
+    /**
+     * rows[c] contains the positions of the instances with class value c, in the order of the dataset
+     */
+    private final int[][] rows;
+
+    /**
+     * nextClass[c] is the class value following c, the first one after the last one
+     */
+    private final int[] nextClass;
+
+    /**
+     * @return the index of the class value with the most instances, the first class value in case of ties
+     */
+    @Getter
+    private final int biggestClass;
+
+    /**
+     * Compute the index of the dataset. The instances with a missing class are not in any class
+     * @param dataset dataset to describe. Its class must be set and nominal
+     * @throws IllegalArgumentException if the class of the dataset is not set or not nominal
+     */
+    public ClassIndex(Instances dataset) {
+        if (dataset.classIndex() < 0 || !dataset.classAttribute().isNominal()) {
+            throw new IllegalArgumentException("The class of the dataset should be set and nominal");
+        }
+        this.dataset = dataset;
+        int numClasses = dataset.numClasses();
+        int numInstances = dataset.numInstances();
+
+        // Read the class of each instance only once
+        int[] instancesClass = new int[numInstances];
+        int[] counts = new int[numClasses];
+        for (int i = 0; i < numInstances; i++) {
+            Instance instance = dataset.instance(i);
+            instancesClass[i] = instance.classIsMissing() ? -1 : (int) instance.classValue();
+            if (instancesClass[i] >= 0) {
+                counts[instancesClass[i]]++;
+            }
+        }
+
+        this.rows = new int[numClasses][];
+        this.nextClass = new int[numClasses];
+        int biggest = 0;
+        for (int c = 0; c < numClasses; c++) {
+            rows[c] = new int[counts[c]];
+            nextClass[c] = (c + 1) % numClasses;
+            if (counts[c] > counts[biggest]) {
+                biggest = c;
+            }
+            counts[c] = 0;
+        }
+        this.biggestClass = biggest;
+
+        for (int i = 0; i < numInstances; i++) {
+            int classValue = instancesClass[i];
+            if (classValue >= 0) {
+                rows[classValue][counts[classValue]++] = i;
+            }
+        }
+    }
+
+    /**
+     * @return number of class values
+     */
+    public int numClasses() {
+        return rows.length;
+    }
+
+    /**
+     * @param classValue index of the class value
+     * @return number of instances with the class value
+     */
+    public int count(int classValue) {
+        return rows[classValue].length;
+    }
+
+    /**
+     * The array is shared and MUST NOT be modified
+     * @param classValue index of the class value
+     * @return the positions of the instances with the class value, in the order of the dataset
+     */
+    public int[] rows(int classValue) {
+        return rows[classValue];
+    }
+
+    /**
+     * @param classValue index of the class value
+     * @param index position of the instance among the instances of the class
+     * @return the position in the dataset of the instance
+     */
+    public int row(int classValue, int index) {
+        return rows[classValue][index];
+    }
+
+    /**
+     * @param classValue index of the class value
+     * @return the index of the class value following classValue, the first class value after the last one
+     */
+    public int nextClass(int classValue) {
+        return nextClass[classValue];
+    }
+
+    /**
+     * @param instances dataset to check
+     * @return true if the index describes exactly that dataset
+     */
+    public boolean describes(Instances instances) {
+        return instances == dataset;
+    }
+}
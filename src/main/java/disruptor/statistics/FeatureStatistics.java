@@ -0,0 +1,118 @@
+package disruptor.statistics;
+
+import lombok.Getter;
+import weka.core.Attribute;
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.util.stream.IntStream;
+
+/**
+ * Statistics of every attribute of a dataset, both on the whole dataset and on the instances of each class.
+ * <p/>
+ * The statistics are computed once in a single pass over the instances, processing the attributes in parallel,
+ * and then they are read only, except the distinct values of the attributes collected when first requested. Thus, they can be shared between all the attacks with the same target.
+ */
+public class FeatureStatistics {
+
+    /**
+     * @return dataset described by the statistics
+     */
+    @Getter
+    private final Instances dataset;
+
+    /**
+     * globalStatistics[a] contains the statistics of the attribute with index a
+     */
+    private final AttributeStatistics[] globalStatistics;
+
+    /**
+     * classStatistics[a][c] contains the statistics of the attribute with index a on the instances with class value c
+     */
+    private final AttributeStatistics[][] classStatistics;
+
+    /**
+     * Compute the statistics of the dataset
+     * @param dataset dataset to describe. If the class is not set, only the global statistics are available
+     */
+    public FeatureStatistics(Instances dataset) {
+        this.dataset = dataset;
+        int numAttributes = dataset.numAttributes();
+        int numClasses = dataset.classIndex() >= 0 ? dataset.numClasses() : 0;
+        this.globalStatistics = new AttributeStatistics[numAttributes];
+        this.classStatistics = new AttributeStatistics[numAttributes][numClasses];
+
+        // Read the class of each instance only once
+        int numInstances = dataset.numInstances();
+        int[] instancesClass = new int[numInstances];
+        for (int i = 0; i < numInstances; i++) {
+            Instance instance = dataset.instance(i);
+            boolean hasClass = numClasses > 0 && !instance.classIsMissing();
+            instancesClass[i] = hasClass ? (int) instance.classValue() : -1;
+        }
+
+        IntStream.range(0, numAttributes).parallel().forEach(attributeIndex -> {
+            Attribute attribute = dataset.attribute(attributeIndex);
+            AttributeStatistics global = new AttributeStatistics(attribute, dataset, instancesClass, -1);
+            AttributeStatistics[] perClass = classStatistics[attributeIndex];
+            for (int c = 0; c < numClasses; c++) {
+                perClass[c] = new AttributeStatistics(attribute, dataset, instancesClass, c);
+            }
+
+            for (int i = 0; i < numInstances; i++) {
+                Instance instance = dataset.instance(i);
+                double value = instance.value(attributeIndex);
+                double weight = instance.weight();
+                global.add(value, weight);
+                if (instancesClass[i] >= 0) {
+                    perClass[instancesClass[i]].add(value, weight);
+                }
+            }
+            globalStatistics[attributeIndex] = global;
+        });
+    }
+
+    /**
+     * @param attribute attribute of the dataset
+     * @return the statistics of the attribute on the whole dataset
+     */
+    public AttributeStatistics global(Attribute attribute) {
+        return globalStatistics[attribute.index()];
+    }
+
+    /**
+     * @param attribute attribute of the dataset
+     * @param classValue index of the class value
+     * @return the statistics of the attribute on the instances with the specified class value
+     */
+    public AttributeStatistics perClass(Attribute attribute, int classValue) {
+        return classStatistics[attribute.index()][classValue];
+    }
+
+    /**
+     * Same result of {@link Instances#meanOrMode(Attribute)} on the dataset
+     * @param attribute attribute of the dataset
+     * @return the weighted mean for a numeric attribute, the mode for a nominal attribute
+     */
+    public double meanOrMode(Attribute attribute) {
+        return global(attribute).getMeanOrMode();
+    }
+
+    /**
+     * Same result of {@link Instances#meanOrMode(Attribute)} on the instances with the specified class value
+     * @param attribute attribute of the dataset
+     * @param classValue index of the class value
+     * @return the weighted mean for a numeric attribute, the mode for a nominal attribute
+     */
+    public double meanOrMode(Attribute attribute, int classValue) {
+        return perClass(attribute, classValue).getMeanOrMode();
+    }
+
+    /**
+     * @param instances dataset to check
+     * @return true if the statistics describe exactly that dataset
+     */
+    public boolean describes(Instances instances) {
+        return instances == dataset;
+    }
+}
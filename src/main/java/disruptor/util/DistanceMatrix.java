@@ -0,0 +1,230 @@
+package disruptor.util;
+
+import weka.core.matrix.Matrix;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+
+/**
+ * Symmetric matrix of the distances between the instances of a dataset, computed by {@link DistanceMatrixUtil}.
+ * <p/>
+ * Only the upper triangle without the diagonal is stored, packed row by row, thus the matrix takes n·(n-1)/2 values
+ * instead of n². The values are stored as doubles or as floats, in the heap or in a memory-mapped file that the
+ * operating system keeps on disk when the heap is not enough. The diagonal is always 0.
+ * <p/>
+ * Different threads can set different distances at the same time.
+ */
+public abstract class DistanceMatrix implements AutoCloseable {
+
+    private final int size;
+
+    protected DistanceMatrix(int size) {
+        this.size = size;
+    }
+
+    /**
+     * @param size number of instances
+     * @param floatStorage true to store the distances as floats, false as doubles
+     * @return a matrix stored in the heap
+     * @throws IllegalArgumentException if the upper triangle does not fit in a Java array
+     */
+    public static DistanceMatrix inHeap(int size, boolean floatStorage) {
+        long values = numValues(size);
+        if (values > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("The distance matrix of " + size + " instances does not fit in the heap, use a memory-mapped file");
+        }
+        return floatStorage ? new FloatMatrix(size, (int) values) : new DoubleMatrix(size, (int) values);
+    }
+
+    /**
+     * @param size number of instances
+     * @param floatStorage true to store the distances as floats, false as doubles
+     * @param folder folder of the file, created if needed. The file is deleted when the matrix is closed
+     * @return a matrix stored in a memory-mapped temporary file
+     * @throws IOException if problems creating or mapping the file
+     */
+    public static DistanceMatrix memoryMapped(int size, boolean floatStorage, File folder) throws IOException {
+        Files.createDirectories(folder.toPath());
+        File file = File.createTempFile("distances", ".bin", folder);
+        file.deleteOnExit();
+        return new MappedMatrix(size, floatStorage, file);
+    }
+
+    /**
+     * @return number of instances, thus of rows and columns
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param i position of the first instance
+     * @param j position of the second instance
+     * @return the distance between the two instances
+     */
+    public double get(int i, int j) {
+        if (i == j) {
+            return 0;
+        }
+        return i < j ? getValue(index(i, j)) : getValue(index(j, i));
+    }
+
+    /**
+     * @param i position of the first instance
+     * @param j position of the second instance, different from i
+     * @param distance distance between the two instances
+     */
+    public void set(int i, int j, double distance) {
+        if (i == j) {
+            throw new IllegalArgumentException("The diagonal of the distance matrix is always 0");
+        }
+        setValue(i < j ? index(i, j) : index(j, i), distance);
+    }
+
+    /**
+     * @return the full n×n matrix in the heap. Use it only for small datasets
+     */
+    public Matrix toMatrix() {
+        Matrix matrix = new Matrix(size, size);
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                double distance = getValue(index(i, j));
+                matrix.set(i, j, distance);
+                matrix.set(j, i, distance);
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Release the storage of the matrix
+     */
+    @Override
+    public void close() {
+        // Nothing to release for the matrices in the heap
+    }
+
+    protected abstract double getValue(long index);
+
+    protected abstract void setValue(long index, double distance);
+
+    /**
+     * @return position of the distance (i, j), with i &lt; j, in the upper triangle packed row by row
+     */
+    private long index(int i, int j) {
+        return (long) i * size - (long) i * (i + 1) / 2 + (j - i - 1);
+    }
+
+    private static long numValues(int size) {
+        return (long) size * (size - 1) / 2;
+    }
+
+    private static class DoubleMatrix extends DistanceMatrix {
+
+        private final double[] values;
+
+        private DoubleMatrix(int size, int numValues) {
+            super(size);
+            this.values = new double[numValues];
+        }
+
+        @Override
+        protected double getValue(long index) {
+            return values[(int) index];
+        }
+
+        @Override
+        protected void setValue(long index, double distance) {
+            values[(int) index] = distance;
+        }
+    }
+
+    private static class FloatMatrix extends DistanceMatrix {
+
+        private final float[] values;
+
+        private FloatMatrix(int size, int numValues) {
+            super(size);
+            this.values = new float[numValues];
+        }
+
+        @Override
+        protected double getValue(long index) {
+            return values[(int) index];
+        }
+
+        @Override
+        protected void setValue(long index, double distance) {
+            values[(int) index] = (float) distance;
+        }
+    }
+
+    /**
+     * The file is mapped in regions of at most 1 GB, because a single mapping cannot exceed 2 GB
+     */
+    private static class MappedMatrix extends DistanceMatrix {
+
+        private static final int REGION_BITS = 30;
+        private static final long REGION_MASK = (1L << REGION_BITS) - 1;
+
+        private final File file;
+        private final boolean floatStorage;
+        private final int valueBytes;
+        private MappedByteBuffer[] regions;
+
+        private MappedMatrix(int size, boolean floatStorage, File file) throws IOException {
+            super(size);
+            this.file = file;
+            this.floatStorage = floatStorage;
+            this.valueBytes = floatStorage ? Float.BYTES : Double.BYTES;
+            long bytes = numValues(size) * valueBytes;
+            int numRegions = (int) ((bytes + REGION_MASK) >>> REGION_BITS);
+            this.regions = new MappedByteBuffer[numRegions];
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+                 FileChannel channel = randomAccessFile.getChannel()) {
+                randomAccessFile.setLength(bytes);
+                for (int r = 0; r < numRegions; r++) {
+                    long start = (long) r << REGION_BITS;
+                    regions[r] = channel.map(FileChannel.MapMode.READ_WRITE, start, Math.min(REGION_MASK + 1, bytes - start));
+                }
+            }
+        }
+
+        @Override
+        protected double getValue(long index) {
+            long offset = index * valueBytes;
+            // The values never cross the regions: the region size is a multiple of the value size
+            MappedByteBuffer region = regions[(int) (offset >>> REGION_BITS)];
+            int position = (int) (offset & REGION_MASK);
+            return floatStorage ? region.getFloat(position) : region.getDouble(position);
+        }
+
+        @Override
+        protected void setValue(long index, double distance) {
+            long offset = index * valueBytes;
+            MappedByteBuffer region = regions[(int) (offset >>> REGION_BITS)];
+            int position = (int) (offset & REGION_MASK);
+            if (floatStorage) {
+                region.putFloat(position, (float) distance);
+            }
+            else {
+                region.putDouble(position, distance);
+            }
+        }
+
+        /**
+         * The mappings are released by the garbage collector, the file is deleted immediately
+         */
+        @Override
+        public void close() {
+            regions = new MappedByteBuffer[0];
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+}
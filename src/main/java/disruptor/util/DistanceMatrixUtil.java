@@ -1,30 +1,137 @@
 package disruptor.util;
 
+import disruptor.scheduler.GridScheduler;
+import lombok.Getter;
+import lombok.Setter;
 import weka.core.DistanceFunction;
 import weka.core.Instance;
 import weka.core.Instances;
 import weka.core.matrix.Matrix;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Computation of the distances between all the instances of a dataset.
+ * <p/>
+ * Every distance is computed only once, because the matrix is symmetric. The upper triangle is divided in square
+ * blocks of blockSize×blockSize instances, computed in parallel, so that the instances of a block are reused while
+ * they are in the cache of the processor.
+ */
 public class DistanceMatrixUtil {
 
+    /**
+     * @param threads number of blocks computed at the same time
+     * @return number of blocks computed at the same time
+     */
+    @Getter @Setter
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * @return number of rows and columns of a block
+     */
+    @Getter
+    private int blockSize = 256;
+
+    /**
+     * @param floatStorage true to store the distances as floats, halving the memory, false as doubles
+     * @return true if the distances are stored as floats
+     */
+    @Getter @Setter
+    private boolean floatStorage = false;
+
+    /**
+     * @param spillFolder folder of the memory-mapped file of the matrix, null to keep the matrix in the heap
+     * @return folder of the memory-mapped file of the matrix, null if the matrix is kept in the heap
+     */
+    @Getter @Setter
+    private File spillFolder;
+
+    /**
+     * @param blockSize number of rows and columns of a block
+     * @throws IllegalArgumentException if the block size is not greater than 0
+     */
+    public void setBlockSize(int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("The block size should be greater than 0");
+        }
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Compute the full matrix of the distances in the heap, in double precision
+     * @param dataset instances whose distances are computed
+     * @param distanceFunction distance to use, see {@link #computeSymmetricDistanceMatrix(Instances, DistanceFunction)}
+     * @return the n×n matrix of the distances
+     * @throws IllegalStateException if problems computing the distances
+     */
     public Matrix computeDistanceMatrix(Instances dataset, DistanceFunction distanceFunction ){
+        try (DistanceMatrix distanceMatrix = computeDistances(dataset, distanceFunction, DistanceMatrix.inHeap(dataset.numInstances(), false))) {
+            return distanceMatrix.toMatrix();
+        } catch (Exception e) {
+            throw new IllegalStateException("Problem computing the distance matrix", e);
+        }
+    }
 
+    /**
+     * Compute the distances between the instances, stored as defined by floatStorage and spillFolder
+     * @param dataset instances whose distances are computed
+     * @param distanceFunction distance to use. It must be symmetric and it is used by different threads at the same
+     *                         time, thus after the first distance it must be read only, as the Weka distances
+     * @return the matrix of the distances. Close it to release its file
+     * @throws Exception if problems computing a distance or creating the memory-mapped file
+     */
+    public DistanceMatrix computeSymmetricDistanceMatrix(Instances dataset, DistanceFunction distanceFunction) throws Exception {
         int numInstances = dataset.numInstances();
+        DistanceMatrix distanceMatrix = spillFolder != null
+                ? DistanceMatrix.memoryMapped(numInstances, floatStorage, spillFolder)
+                : DistanceMatrix.inHeap(numInstances, floatStorage);
+        try {
+            return computeDistances(dataset, distanceFunction, distanceMatrix);
+        } catch (Exception e) {
+            distanceMatrix.close();
+            throw e;
+        }
+    }
+
+    private DistanceMatrix computeDistances(Instances dataset, DistanceFunction distanceFunction, DistanceMatrix distanceMatrix) throws Exception {
+        int numInstances = dataset.numInstances();
+        if (numInstances < 2) {
+            return distanceMatrix;
+        }
+        // The Weka distances initialize their ranges at the first use: not in the threads
+        distanceFunction.distance(dataset.instance(0), dataset.instance(0));
 
-        Matrix matrix = new Matrix(numInstances,numInstances);
-
-        Instance instance1;
-        Instance instance2;
-        for( int i=0; i<numInstances; i++ ){
-            // For each instance:
-            instance1 = dataset.instance(i);
-            for( int j=0; j<numInstances; j++ ){
-                // Compute distance with any other instance :
-                instance2 = dataset.instance(j);
-                matrix.set( i, j, distanceFunction.distance(instance1, instance2) );
+        // A task for every block of the upper triangle
+        List<Callable<Void>> blocks = new ArrayList<>();
+        for (int rowStart = 0; rowStart < numInstances; rowStart += blockSize) {
+            for (int columnStart = rowStart; columnStart < numInstances; columnStart += blockSize) {
+                int firstRow = rowStart;
+                int firstColumn = columnStart;
+                blocks.add( () -> {
+                    computeBlock(dataset, distanceFunction, distanceMatrix, firstRow, firstColumn);
+                    return null;
+                } );
             }
         }
+        try (GridScheduler scheduler = new GridScheduler(Math.max(1, Math.min(threads, blocks.size())), "disruptor-distances")) {
+            scheduler.invokeAllInOrder(blocks);
+        }
+        return distanceMatrix;
+    }
 
-        return matrix;
+    private void computeBlock(Instances dataset, DistanceFunction distanceFunction, DistanceMatrix distanceMatrix, int firstRow, int firstColumn) {
+        int numInstances = dataset.numInstances();
+        int lastRow = Math.min(firstRow + blockSize, numInstances);
+        int lastColumn = Math.min(firstColumn + blockSize, numInstances);
+        for( int i=firstRow; i<lastRow; i++ ){
+            Instance instance1 = dataset.instance(i);
+            // Only the upper triangle: on the diagonal blocks the columns start after the row
+            for( int j=Math.max(firstColumn, i+1); j<lastColumn; j++ ){
+                distanceMatrix.set( i, j, distanceFunction.distance(instance1, dataset.instance(j)) );
+            }
+        }
     }
 }
@@ -0,0 +1,92 @@
+package disruptor.util;
+
+import weka.core.Attribute;
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public class FingerprintUtil {
+
+    private static final String ALGORITHM = "SHA-256";
+
+    /**
+     * Compute a fingerprint of the content of the dataset: the attributes, the class index, the values and the
+     * weights of the instances in their order. The relation name is not part of the content.
+     * <p/>
+     * Two datasets have the same fingerprint only if they contain exactly the same instances, thus the fingerprint
+     * can be used to recognise the same dataset produced more than once, es: by different cells of the grid.
+     * @param dataset dataset to fingerprint
+     * @return the SHA-256 fingerprint of the dataset as a lowercase hexadecimal string
+     */
+    public static String fingerprint(Instances dataset) {
+        MessageDigest digest = newDigest();
+
+        // Header: the declaration of every attribute and the class
+        for (int a = 0; a < dataset.numAttributes(); a++) {
+            digest.update(dataset.attribute(a).toString().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(Double.BYTES * (dataset.numAttributes() + 1));
+        buffer.putInt(dataset.classIndex()).putInt(dataset.numInstances());
+        digest.update(buffer.array(), 0, buffer.position());
+
+        // Instances: a buffer of values for each row
+        for (int i = 0; i < dataset.numInstances(); i++) {
+            Instance instance = dataset.instance(i);
+            buffer.clear();
+            buffer.putDouble(instance.weight());
+            for (int a = 0; a < dataset.numAttributes(); a++) {
+                double value = instance.value(a);
+                // The strings are added after the row
+                buffer.putDouble(dataset.attribute(a).isString() && !instance.isMissing(a) ? 0 : value);
+            }
+            digest.update(buffer.array(), 0, buffer.position());
+            updateStrings(digest, instance);
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Compute the fingerprint of a text, es: a key composed by other fingerprints
+     * @param text text to fingerprint
+     * @return the SHA-256 fingerprint of the UTF-8 bytes of the text as a lowercase hexadecimal string
+     */
+    public static String fingerprint(String text) {
+        return toHex(newDigest().digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * The values of the string attributes are indexes in the values of the attribute, that change between datasets.
+     * Thus, the strings themselves are added to the fingerprint
+     */
+    private static void updateStrings(MessageDigest digest, Instance instance) {
+        for (int a = 0; a < instance.numAttributes(); a++) {
+            Attribute attribute = instance.attribute(a);
+            if (attribute.isString() && !instance.isMissing(a)) {
+                digest.update(instance.stringValue(a).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform supports SHA-256
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
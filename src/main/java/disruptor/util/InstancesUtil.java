@@ -177,7 +177,6 @@ public class InstancesUtil {
      * @param toRandomize true if the dataset should be randomized
      * @param seed seed used to randomize
      * @return The first element of the array is the TRAIN set. The second element of the array is the TEST set
-     * @throws Exception if problems applying the RemovePercentage weka filter
      * @throws IllegalArgumentException if trainPercentage is not between 0 and 1
      */
     public static Instances[] splitTrainTest( Instances dataset,  double trainPercentage, int seed ) throws Exception {
@@ -186,19 +185,11 @@ public class InstancesUtil {
             throw new IllegalArgumentException("The train percentage should be a double between 0 and 1");
         }
 
-        Instances instances = new Instances(dataset);
-
-        // Save the relation name
-        String relationName = dataset.relationName();
+        // Split Train and Test set as the Resample filter, copying each instance only once
+        InstancesView[] splitViews = new InstancesView(dataset).resampleWithoutReplacement(trainPercentage*100, seed);
         Instances[] result = new Instances[2];
-
-        // Split train and test
-        Instances trainSet = ApplyFilter.resampleWithoutReplacement(instances, trainPercentage*100, false, seed);
-        Instances testSet = ApplyFilter.resampleWithoutReplacement(instances, trainPercentage*100, true, seed);
-
-        // Maintain the start relation name even after the filter
-        trainSet.setRelationName(relationName);
-        testSet.setRelationName(relationName);
+        Instances trainSet = splitViews[0].toInstances();
+        Instances testSet = splitViews[1].toInstances();
 
         result[0] = trainSet;
         result[1] = testSet;
@@ -0,0 +1,189 @@
+package disruptor.util;
+
+import lombok.Getter;
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Lightweight view of a subset of the rows of a base dataset, es: a train or test split or the part of a dataset known
+ * with a knowledge.
+ * <p/>
+ * The view is only the base dataset and the positions of its rows, thus splitting, shuffling or reducing a view costs
+ * an int per row instead of a copy of the dataset. The instances are copied only when the view is materialized with
+ * {@link #toInstances()}, or shared with the base dataset by {@link #sharedInstances()}.
+ * <p/>
+ * The operations reproduce the order of the rows of the corresponding Weka filters with the same seed, thus replacing
+ * a filter with a view does not change the results.
+ */
+public class InstancesView {
+
+    /**
+     * @return dataset whose rows are viewed
+     */
+    @Getter
+    private final Instances base;
+
+    /**
+     * Positions in the base dataset of the rows of the view, in the order of the view
+     */
+    private final int[] rows;
+
+    /**
+     * Create a view containing all the rows of the base dataset, in their order
+     * @param base dataset to view
+     */
+    public InstancesView(Instances base) {
+        this.base = base;
+        this.rows = new int[base.numInstances()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = i;
+        }
+    }
+
+    /**
+     * @param base dataset to view
+     * @param rows positions in the base dataset of the rows of the view, in the order of the view. The array is copied
+     * @throws IndexOutOfBoundsException if a position is not a row of the base dataset
+     */
+    public InstancesView(Instances base, int[] rows) {
+        this(rows.clone(), base);
+        for (int row : rows) {
+            if (row < 0 || row >= base.numInstances()) {
+                throw new IndexOutOfBoundsException("Row " + row + " is not in the base dataset");
+            }
+        }
+    }
+
+    /**
+     * The rows are owned by the view, thus they are not copied
+     */
+    private InstancesView(int[] rows, Instances base) {
+        this.base = base;
+        this.rows = rows;
+    }
+
+    /**
+     * @return number of rows of the view
+     */
+    public int numInstances() {
+        return rows.length;
+    }
+
+    /**
+     * @param index position of the row in the view
+     * @return the position of the row in the base dataset
+     */
+    public int baseRow(int index) {
+        return rows[index];
+    }
+
+    /**
+     * @return the positions in the base dataset of the rows of the view, in the order of the view
+     */
+    public int[] baseRows() {
+        return rows.clone();
+    }
+
+    /**
+     * @param index position of the row in the view
+     * @return the instance of the base dataset in that position of the view. It belongs to the base dataset
+     */
+    public Instance instance(int index) {
+        return base.instance(rows[index]);
+    }
+
+    /**
+     * @param numInstances number of rows to keep
+     * @return a view of the first numInstances rows of this view
+     * @throws IllegalArgumentException if numInstances is negative or greater than the rows of the view
+     */
+    public InstancesView head(int numInstances) {
+        if (numInstances < 0 || numInstances > rows.length) {
+            throw new IllegalArgumentException("The view has " + rows.length + " rows, cannot keep " + numInstances);
+        }
+        return new InstancesView(Arrays.copyOf(rows, numInstances), base);
+    }
+
+    /**
+     * Shuffle the rows in the same order of the Weka Randomize filter
+     * @param seed the seed used for the randomization
+     * @return a view of the rows of this view in a random order
+     */
+    public InstancesView randomize(int seed) {
+        int[] randomized = rows.clone();
+        // As Instances.randomize
+        Random random = new Random(seed);
+        for (int j = randomized.length - 1; j > 0; j--) {
+            swap(randomized, j, random.nextInt(j + 1));
+        }
+        return new InstancesView(randomized, base);
+    }
+
+    /**
+     * Draw a random subsample without replacement, selecting the same rows in the same order of the Weka Resample
+     * filter with noReplacement
+     * @param sampleSizePercent the subsample size, between 0 and 100
+     * @param seed the seed for the random selection
+     * @return the first element of the array is the subsample, the second one contains the other rows, as the Resample
+     * filter with invertSelection
+     */
+    public InstancesView[] resampleWithoutReplacement(double sampleSizePercent, int seed) {
+        int[] positions = rows.clone();
+        int remaining = positions.length;
+        int sampleSize = (int) (positions.length * sampleSizePercent / 100);
+        // As Resample.createSubsample: every drawn row is moved after the rows still to draw
+        Random random = new Random(seed);
+        for (int i = 0; i < sampleSize; i++) {
+            swap(positions, random.nextInt(remaining), --remaining);
+        }
+        return new InstancesView[]{
+                new InstancesView(Arrays.copyOfRange(positions, remaining, positions.length), base),
+                new InstancesView(Arrays.copyOf(positions, remaining), base)
+        };
+    }
+
+    /**
+     * @return a new dataset with the header of the base dataset and a copy of the rows of the view, independent of the
+     * base dataset
+     */
+    public Instances toInstances() {
+        Instances instances = new Instances(base, rows.length);
+        for (int row : rows) {
+            instances.add( base.instance(row) );
+        }
+        return instances;
+    }
+
+    /**
+     * The instances of the returned dataset belong to the base dataset and MUST NOT be modified. Use it to read the
+     * rows with the API of {@link Instances}, es: to perform a feature selection, without copying them
+     * @return a dataset with the header of the base dataset containing the instances of the view
+     */
+    public Instances sharedInstances() {
+        return new SharedInstances(base, rows);
+    }
+
+    private static void swap(int[] array, int i, int j) {
+        int value = array[i];
+        array[i] = array[j];
+        array[j] = value;
+    }
+
+    /**
+     * Dataset containing the same instance objects of another dataset
+     */
+    private static class SharedInstances extends Instances {
+
+        private static final long serialVersionUID = 1L;
+
+        private SharedInstances(Instances base, int[] rows) {
+            super(base, rows.length);
+            for (int row : rows) {
+                m_Instances.add( base.instance(row) );
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package disruptor.util;
+
+/**
+ * Formatting of the values written in the JSON outputs, es: report.json and results.jsonl
+ */
+public class JsonUtil {
+    private JsonUtil(){}
+
+    /**
+     * @param text text to write
+     * @return the text as a JSON string, quoted and escaped
+     */
+    public static String quote(String text) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : text.toCharArray()) {
+            switch (c) {
+                case '"':
+                    quoted.append("\\\"");
+                    break;
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                case '\r':
+                    quoted.append("\\r");
+                    break;
+                case '\t':
+                    quoted.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    }
+                    else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * @param value number to write
+     * @return the number as a JSON number, null if it is NaN or infinite
+     */
+    public static String number(double value) {
+        return Double.isNaN(value) || Double.isInfinite(value) ? "null" : Double.toString(value);
+    }
+}
@@ -0,0 +1,95 @@
+package disruptor.attributeselection;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import weka.core.Instances;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RankingCacheTest {
+
+    @TempDir
+    File folder;
+
+    @Test
+    void cachedRankingIsTheComputedOne() throws Exception {
+        Instances iris = iris();
+        RankingCache cache = new RankingCache();
+
+        double[][] ranking = eval(new InfoGainEval(iris), cache);
+        double[][] cachedRanking = eval(new InfoGainEval(iris), cache);
+
+        assertEquals(1, cache.getHits());
+        assertNotSame(ranking, cachedRanking);
+        assertArrayEquals(ranking, cachedRanking);
+        assertArrayEquals(eval(new InfoGainEval(iris), null), cachedRanking);
+
+        // Another knowledge is another ranking, shared by the copies with the same knowledge
+        AbstractAttributeSelector selector = new InfoGainEval(iris);
+        selector.setKnowledge(0.5);
+        selector.setRankingCache(cache);
+        AbstractAttributeSelector copy = selector.copy();
+        AbstractAttributeSelector otherCopy = selector.copy();
+        AbstractAttributeSelector uncachedCopy = selector.copy();
+        double[][] halfKnowledgeRanking = eval(copy, cache);
+        assertEquals(1, cache.getHits());
+        otherCopy.eval();
+        assertEquals(2, cache.getHits());
+        assertArrayEquals(halfKnowledgeRanking, otherCopy.getRankedAttributes());
+        assertArrayEquals(eval(uncachedCopy, null), halfKnowledgeRanking);
+    }
+
+    @Test
+    void rankingIsReadFromTheFolder() throws Exception {
+        Instances iris = iris();
+        double[][] ranking = eval(new InfoGainEval(iris), new RankingCache(folder));
+        assertEquals(1, folder.listFiles( (dir, name) -> name.endsWith(RankingCache.FILE_EXTENSION) ).length);
+
+        RankingCache cache = new RankingCache(folder);
+        double[][] readRanking = eval(new InfoGainEval(iris), cache);
+
+        assertEquals(1, cache.getHits());
+        assertArrayEquals(ranking, readRanking);
+    }
+
+    @Test
+    void randomRankingsAreNotCached() throws Exception {
+        RankingCache cache = new RankingCache(folder);
+        RandomSelector selector = new RandomSelector(iris());
+
+        eval(selector, cache);
+        eval(selector.copy(), cache);
+
+        assertEquals(0, cache.getHits());
+        assertEquals(0, folder.listFiles().length);
+    }
+
+    @Test
+    void missingRankingIsNull() {
+        assertNull(new RankingCache().get("missing"));
+    }
+
+    private static double[][] eval(AbstractAttributeSelector selector, RankingCache cache) {
+        selector.setRankingCache(cache);
+        selector.eval();
+        return selector.getRankedAttributes();
+    }
+
+    private static Instances iris() throws Exception {
+        Instances iris;
+        try (InputStream stream = RankingCacheTest.class.getResourceAsStream("/iris.arff");
+             Reader reader = new InputStreamReader(stream)) {
+            iris = new Instances(reader);
+        }
+        iris.setClassIndex(iris.numAttributes() - 1);
+        return iris;
+    }
+}
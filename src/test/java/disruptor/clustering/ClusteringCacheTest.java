@@ -0,0 +1,106 @@
+package disruptor.clustering;
+
+import org.junit.jupiter.api.Test;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ClusteringCacheTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    void concurrentRequestsClusterOnce() throws Exception {
+        Instances dataset = dataset();
+        ClusteringCache cache = new ClusteringCache();
+        AtomicInteger clusterings = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<Clustering>> results = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                results.add(executor.submit( () -> {
+                    start.await();
+                    return cache.get(dataset, 2, clusterer(dataset, 2, clusterings));
+                } ));
+            }
+            start.countDown();
+            Clustering clustering = results.get(0).get();
+            for (Future<Clustering> result : results) {
+                assertSame(clustering, result.get());
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, clusterings.get());
+        assertEquals(THREADS - 1, cache.getHits());
+    }
+
+    @Test
+    void otherClustersNumbersAndDatasetsAreClusteredAgain() throws Exception {
+        Instances dataset = dataset();
+        Instances sameContent = new Instances(dataset);
+        ClusteringCache cache = new ClusteringCache();
+        AtomicInteger clusterings = new AtomicInteger();
+
+        Clustering clustering = cache.get(dataset, 2, clusterer(dataset, 2, clusterings));
+        assertSame(clustering, cache.get(dataset, 2, clusterer(dataset, 2, clusterings)));
+        assertNotSame(clustering, cache.get(dataset, 3, clusterer(dataset, 3, clusterings)));
+        // The datasets are identified by the instance, not by the content
+        assertNotSame(clustering, cache.get(sameContent, 2, clusterer(sameContent, 2, clusterings)));
+
+        assertEquals(3, clusterings.get());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void failedClusteringIsThrownToEveryRequest() {
+        Instances dataset = dataset();
+        ClusteringCache cache = new ClusteringCache();
+        Callable<Clustering> failingClusterer = () -> {
+            throw new IllegalStateException("Clustering failed");
+        };
+
+        assertThrows(IllegalStateException.class, () -> cache.get(dataset, 2, failingClusterer));
+        assertThrows(IllegalStateException.class, () -> cache.get(dataset, 2, failingClusterer));
+    }
+
+    /**
+     * @return a clusterer that counts its executions and lasts long enough for the other requests to arrive
+     */
+    private static Callable<Clustering> clusterer(Instances dataset, int clustersNumber, AtomicInteger clusterings) {
+        return () -> {
+            clusterings.incrementAndGet();
+            Thread.sleep(100);
+            return Clustering.simpleKMeans(dataset, clustersNumber);
+        };
+    }
+
+    private static Instances dataset() {
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        attributes.add(new Attribute("x"));
+        attributes.add(new Attribute("y"));
+        Instances dataset = new Instances("dataset", attributes, 20);
+        for (int i = 0; i < 20; i++) {
+            dataset.add(new DenseInstance(1, new double[]{i % 2 * 10 + i * 0.1, i % 2 * 10}));
+        }
+        return dataset;
+    }
+}
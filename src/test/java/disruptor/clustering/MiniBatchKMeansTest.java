@@ -0,0 +1,115 @@
+package disruptor.clustering;
+
+import org.junit.jupiter.api.Test;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MiniBatchKMeansTest {
+
+    private static final double[][] CENTRES = {{0, 0}, {10, 10}, {0, 10}};
+
+    private static final int INSTANCES = 3000;
+
+    @Test
+    void separatedClustersAreFound() {
+        Instances dataset = clusters();
+        MiniBatchKMeans miniBatchKMeans = new MiniBatchKMeans();
+        miniBatchKMeans.setNumClusters(CENTRES.length);
+        miniBatchKMeans.setBatchSize(256);
+
+        Clustering clustering = miniBatchKMeans.cluster(dataset);
+
+        assertEquals(CENTRES.length, clustering.numClusters());
+        // Every true cluster is a different cluster, with all its instances
+        int[] clusterOfCentre = new int[CENTRES.length];
+        Arrays.fill(clusterOfCentre, -1);
+        for (int i = 0; i < dataset.numInstances(); i++) {
+            int centre = (int) dataset.instance(i).classValue();
+            if (clusterOfCentre[centre] < 0) {
+                clusterOfCentre[centre] = clustering.cluster(i);
+            }
+            assertEquals(clusterOfCentre[centre], clustering.cluster(i), "instance " + i);
+        }
+        Set<Integer> clusters = new HashSet<>();
+        for (int cluster : clusterOfCentre) {
+            clusters.add(cluster);
+        }
+        assertEquals(CENTRES.length, clusters.size());
+
+        // The centroids are the means of the clusters and, as the ones of the SimpleKMeans, they have no class
+        Instances centroids = clustering.getCentroids();
+        assertEquals(-1, centroids.classIndex());
+        for (int c = 0; c < CENTRES.length; c++) {
+            Instance centroid = centroids.instance(clusterOfCentre[c]);
+            assertEquals(CENTRES[c][0], centroid.value(0), 0.1);
+            assertEquals(CENTRES[c][1], centroid.value(1), 0.1);
+            assertEquals(c, centroid.value(2));
+        }
+    }
+
+    @Test
+    void sameSeedIsTheSameClustering() {
+        Instances dataset = clusters();
+        Clustering clustering = cluster(dataset, 3);
+        Clustering sameClustering = cluster(dataset, 3);
+
+        for (int c = 0; c < clustering.numClusters(); c++) {
+            assertArrayEquals(clustering.getCentroids().instance(c).toDoubleArray(), sameClustering.getCentroids().instance(c).toDoubleArray());
+        }
+        for (int i = 0; i < dataset.numInstances(); i++) {
+            assertEquals(clustering.cluster(i), sameClustering.cluster(i));
+        }
+    }
+
+    @Test
+    void invalidDatasetsAreRejected() {
+        Instances dataset = clusters();
+        assertThrows(IllegalArgumentException.class, () -> new MiniBatchKMeans().cluster(new Instances(dataset, 0)));
+
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        attributes.add(new Attribute("string", (ArrayList<String>) null));
+        Instances strings = new Instances("strings", attributes, 1);
+        strings.add(new DenseInstance(1, new double[]{0}));
+        assertThrows(IllegalArgumentException.class, () -> new MiniBatchKMeans().cluster(strings));
+    }
+
+    private static Clustering cluster(Instances dataset, long seed) {
+        MiniBatchKMeans miniBatchKMeans = new MiniBatchKMeans();
+        // Also more clusters than the true ones
+        miniBatchKMeans.setNumClusters(5);
+        miniBatchKMeans.setBatchSize(128);
+        miniBatchKMeans.setSeed(seed);
+        return miniBatchKMeans.cluster(dataset);
+    }
+
+    /**
+     * @return instances around the centres, with the centre as class
+     */
+    private static Instances clusters() {
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        attributes.add(new Attribute("x"));
+        attributes.add(new Attribute("y"));
+        attributes.add(new Attribute("centre", Arrays.asList("a", "b", "c")));
+        Instances dataset = new Instances("clusters", attributes, INSTANCES);
+        dataset.setClassIndex(2);
+        Random random = new Random(1);
+        for (int i = 0; i < INSTANCES; i++) {
+            int centre = i % CENTRES.length;
+            double[] values = {CENTRES[centre][0] + random.nextGaussian() * 0.5, CENTRES[centre][1] + random.nextGaussian() * 0.5, centre};
+            dataset.add(new DenseInstance(1, values));
+        }
+        return dataset;
+    }
+}
@@ -0,0 +1,188 @@
+package disruptor.experiment;
+
+import disruptor.perturbeddataset.PerturbedDataset;
+import disruptor.perturbeddataset.PerturbedDatasetParams;
+import disruptor.scheduler.GridScheduler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import weka.classifiers.Classifier;
+import weka.classifiers.bayes.NaiveBayes;
+import weka.classifiers.lazy.IBk;
+import weka.classifiers.trees.J48;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.Range;
+import weka.experiment.PairedCorrectedTTester;
+import weka.experiment.PairedTTester;
+import weka.experiment.ResultMatrix;
+import weka.experiment.ResultMatrixPlainText;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static disruptor.experiment.InMemoryEvaluator.KEY_DATASET;
+import static disruptor.experiment.InMemoryEvaluator.KEY_RUN;
+import static disruptor.experiment.InMemoryEvaluator.KEY_SCHEME;
+import static disruptor.experiment.InMemoryEvaluator.KEY_SCHEME_OPTIONS;
+import static disruptor.experiment.InMemoryEvaluator.KEY_SCHEME_VERSION_ID;
+import static disruptor.experiment.InMemoryEvaluator.NUMBER_OF_TESTING_INSTANCES;
+import static disruptor.experiment.InMemoryEvaluator.NUMBER_OF_TRAINING_INSTANCES;
+import static disruptor.experiment.InMemoryEvaluator.PERCENT_CORRECT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class InMemoryEvaluatorTest {
+
+    private static final String[] KEYS = {KEY_DATASET, KEY_RUN, KEY_SCHEME, KEY_SCHEME_OPTIONS, KEY_SCHEME_VERSION_ID};
+
+    private static final int TRAIN_SIZE = 100;
+
+    @TempDir
+    File folder;
+
+    @Test
+    void sameResultsOfTheExperimenter() throws Exception {
+        Instances iris = iris();
+        Instances trainSet = new Instances(iris, 0, TRAIN_SIZE);
+        Instances testSet = new Instances(iris, TRAIN_SIZE, iris.numInstances() - TRAIN_SIZE);
+        List<Instances> trainSets = Arrays.asList(trainSet, flipped(trainSet), noisy(trainSet));
+        List<Classifier> classifiers = Arrays.asList(new J48(), new NaiveBayes(), new IBk(3));
+
+        Instances experimenterResult = experimenter(trainSets, testSet, classifiers);
+        Instances inMemoryResult;
+        try (GridScheduler scheduler = new GridScheduler(2, "test-evaluator")) {
+            ArrayList<PerturbedDataset> perturbedDatasets = new ArrayList<>();
+            for (Instances train : trainSets) {
+                perturbedDatasets.add(new PerturbedDataset(new Instances(train), testSet, new PerturbedDatasetParams("test", 1)));
+            }
+            inMemoryResult = new InMemoryEvaluator(scheduler).evaluate(classifiers, perturbedDatasets, true);
+        }
+
+        assertEquals(trainSets.size() * classifiers.size(), inMemoryResult.numInstances());
+        assertEquals(experimenterResult.numInstances(), inMemoryResult.numInstances());
+        Map<String, Instance> experimenterRows = new HashMap<>();
+        for (Instance row : experimenterResult) {
+            experimenterRows.put(key(row), row);
+        }
+        for (Instance row : inMemoryResult) {
+            Instance experimenterRow = experimenterRows.get(key(row));
+            assertNotNull(experimenterRow, "Row missing in the Experimenter output: " + key(row));
+            assertEquals(value(experimenterRow, NUMBER_OF_TRAINING_INSTANCES), value(row, NUMBER_OF_TRAINING_INSTANCES));
+            assertEquals(value(experimenterRow, NUMBER_OF_TESTING_INSTANCES), value(row, NUMBER_OF_TESTING_INSTANCES));
+            assertEquals(value(experimenterRow, PERCENT_CORRECT), value(row, PERCENT_CORRECT), 1e-9, key(row));
+        }
+
+        ResultMatrix experimenterMatrix = analyse(experimenterResult);
+        ResultMatrix inMemoryMatrix = analyse(inMemoryResult);
+        assertEquals(experimenterMatrix.getColCount(), inMemoryMatrix.getColCount());
+        assertEquals(experimenterMatrix.getRowCount(), inMemoryMatrix.getRowCount());
+        for (int c = 0; c < experimenterMatrix.getColCount(); c++) {
+            assertEquals(experimenterMatrix.getColName(c), inMemoryMatrix.getColName(c));
+            for (int r = 0; r < experimenterMatrix.getRowCount(); r++) {
+                assertEquals(experimenterMatrix.getRowName(r), inMemoryMatrix.getRowName(r));
+                assertEquals(experimenterMatrix.getMean(c, r), inMemoryMatrix.getMean(c, r), 1e-9);
+                assertEquals(experimenterMatrix.getStdDev(c, r), inMemoryMatrix.getStdDev(c, r), 1e-9);
+                assertEquals(experimenterMatrix.getSignificance(c, r), inMemoryMatrix.getSignificance(c, r));
+            }
+        }
+    }
+
+    /**
+     * Evaluate the train sets with the Weka Experimenter, as the Disruptor does: the test set is appended to every
+     * train set and the split keeps the order
+     */
+    private Instances experimenter(List<Instances> trainSets, Instances testSet, List<Classifier> classifiers) throws Exception {
+        ArrayList<PerturbedDataset> perturbedDatasets = new ArrayList<>();
+        for (Instances train : trainSets) {
+            Instances dataset = new Instances(train);
+            testSet.forEach(dataset::add);
+            perturbedDatasets.add(new PerturbedDataset(dataset, testSet, new PerturbedDatasetParams("test", 1)));
+        }
+        double trainPercentage = (double) TRAIN_SIZE / perturbedDatasets.get(0).getDataset().numInstances();
+        DisruptorExperiment experiment = new DisruptorExperiment(perturbedDatasets, trainPercentage, folder.getPath());
+        experiment.setClassifiersList(new ArrayList<>(classifiers));
+        experiment.start();
+        return experiment.getResultListener().toInstances();
+    }
+
+    /**
+     * Analyse the results with the same tester and options of {@link DisruptorExperiment}
+     */
+    private static ResultMatrix analyse(Instances result) throws Exception {
+        PairedTTester tester = new PairedCorrectedTTester();
+        tester.setInstances(result);
+        tester.setSortColumn(-1);
+        tester.setRunColumn(result.attribute(KEY_RUN).index());
+        tester.setResultsetKeyColumns(new Range("" + (result.attribute(KEY_DATASET).index() + 1)));
+        tester.setDatasetKeyColumns(new Range(
+                (result.attribute(KEY_SCHEME).index() + 1) + ","
+                        + (result.attribute(KEY_SCHEME_OPTIONS).index() + 1) + ","
+                        + (result.attribute(KEY_SCHEME_VERSION_ID).index() + 1)));
+        tester.setResultMatrix(new ResultMatrixPlainText());
+        tester.setDisplayedResultsets(null);
+        tester.setSignificanceLevel(0.05);
+        tester.setShowStdDevs(true);
+        tester.multiResultsetFull(result.attribute(KEY_DATASET).index(), result.attribute(PERCENT_CORRECT).index());
+        return tester.getResultMatrix();
+    }
+
+    private static String key(Instance row) {
+        StringBuilder key = new StringBuilder();
+        for (String column : KEYS) {
+            key.append(row.stringValue(row.dataset().attribute(column))).append('|');
+        }
+        return key.toString();
+    }
+
+    private static double value(Instance row, String column) {
+        return row.value(row.dataset().attribute(column));
+    }
+
+    /**
+     * @return iris shuffled, so that the test set contains all the classes
+     */
+    private static Instances iris() throws Exception {
+        Instances iris;
+        try (InputStream stream = InMemoryEvaluatorTest.class.getResourceAsStream("/iris.arff");
+             Reader reader = new InputStreamReader(stream)) {
+            iris = new Instances(reader);
+        }
+        iris.setClassIndex(iris.numAttributes() - 1);
+        iris.randomize(new Random(1));
+        return iris;
+    }
+
+    /**
+     * @return a copy of the train set with the class of the first instances changed
+     */
+    private static Instances flipped(Instances trainSet) {
+        Instances flipped = new Instances(trainSet);
+        flipped.setRelationName("flipped");
+        for (int i = 0; i < 30; i++) {
+            Instance instance = flipped.instance(i);
+            instance.setClassValue((instance.classValue() + 1) % flipped.numClasses());
+        }
+        return flipped;
+    }
+
+    /**
+     * @return a copy of the train set with a feature of the first instances shifted
+     */
+    private static Instances noisy(Instances trainSet) {
+        Instances noisy = new Instances(trainSet);
+        noisy.setRelationName("noisy");
+        for (int i = 0; i < 50; i++) {
+            Instance instance = noisy.instance(i);
+            instance.setValue(2, instance.value(2) + 2);
+        }
+        return noisy;
+    }
+}
@@ -0,0 +1,98 @@
+package disruptor.experiment;
+
+import org.junit.jupiter.api.Test;
+import weka.classifiers.AbstractClassifier;
+import weka.classifiers.Classifier;
+import weka.classifiers.Evaluation;
+import weka.classifiers.lazy.IBk;
+import weka.classifiers.trees.J48;
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IncrementalCurveEvaluatorTest {
+
+    private static final int TRAIN_SIZE = 100;
+
+    private static final int[] ATTACK_SIZES = {0, 10, 25, 40, 60};
+
+    @Test
+    void ibkCurveIsTheOneOfTheRetrainedModels() throws Exception {
+        Instances iris = iris();
+        Instances trainSet = new Instances(iris, 0, TRAIN_SIZE);
+        Instances testSet = new Instances(iris, TRAIN_SIZE, iris.numInstances() - TRAIN_SIZE);
+        Instances maxCapacityInstances = flipped(trainSet, ATTACK_SIZES[ATTACK_SIZES.length - 1]);
+
+        for (IBk template : new IBk[]{new IBk(), new IBk(3)}) {
+            double[] curve = IncrementalCurveEvaluator.evaluate(template, trainSet, maxCapacityInstances, ATTACK_SIZES, testSet);
+
+            double[] retrainedCurve = new double[ATTACK_SIZES.length];
+            for (int c = 0; c < ATTACK_SIZES.length; c++) {
+                retrainedCurve[c] = retrained(template, prefixPerturbed(trainSet, maxCapacityInstances, ATTACK_SIZES[c]), testSet);
+            }
+            assertArrayEquals(retrainedCurve, curve, "k = " + template.getKNN());
+        }
+    }
+
+    @Test
+    void invalidArgumentsAreRejected() throws Exception {
+        Instances iris = iris();
+        Instances trainSet = new Instances(iris, 0, TRAIN_SIZE);
+        Instances testSet = new Instances(iris, TRAIN_SIZE, iris.numInstances() - TRAIN_SIZE);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> IncrementalCurveEvaluator.evaluate(new J48(), trainSet, trainSet, ATTACK_SIZES, testSet));
+        assertThrows(IllegalArgumentException.class,
+                () -> IncrementalCurveEvaluator.evaluate(new IBk(), trainSet, trainSet, new int[]{10, 5}, testSet));
+    }
+
+    /**
+     * @return the train set of a capacity: the first attackSize rows of the dataset attacked with the biggest capacity,
+     * followed by the clean rows
+     */
+    private static Instances prefixPerturbed(Instances trainSet, Instances maxCapacityInstances, int attackSize) {
+        Instances perturbed = new Instances(trainSet, trainSet.numInstances());
+        for (int i = 0; i < trainSet.numInstances(); i++) {
+            perturbed.add(i < attackSize ? maxCapacityInstances.instance(i) : trainSet.instance(i));
+        }
+        return perturbed;
+    }
+
+    private static double retrained(Classifier template, Instances trainSet, Instances testSet) throws Exception {
+        Classifier classifier = AbstractClassifier.makeCopy(template);
+        classifier.buildClassifier(trainSet);
+        Evaluation evaluation = new Evaluation(trainSet);
+        evaluation.evaluateModel(classifier, testSet);
+        return evaluation.pctCorrect();
+    }
+
+    /**
+     * @return a copy of the train set with the class of the first rows changed
+     */
+    private static Instances flipped(Instances trainSet, int rows) {
+        Instances flipped = new Instances(trainSet);
+        for (int i = 0; i < rows; i++) {
+            Instance instance = flipped.instance(i);
+            instance.setClassValue((instance.classValue() + 1) % flipped.numClasses());
+        }
+        return flipped;
+    }
+
+    private static Instances iris() throws Exception {
+        Instances iris;
+        try (InputStream stream = IncrementalCurveEvaluatorTest.class.getResourceAsStream("/iris.arff");
+             Reader reader = new InputStreamReader(stream)) {
+            iris = new Instances(reader);
+        }
+        iris.setClassIndex(iris.numAttributes() - 1);
+        iris.randomize(new Random(1));
+        return iris;
+    }
+}
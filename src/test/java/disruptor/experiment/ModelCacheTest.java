@@ -0,0 +1,135 @@
+package disruptor.experiment;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import weka.classifiers.AbstractClassifier;
+import weka.classifiers.Classifier;
+import weka.classifiers.lazy.IBk;
+import weka.classifiers.trees.J48;
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ModelCacheTest {
+
+    private static final int TRAIN_SIZE = 100;
+
+    @TempDir
+    File folder;
+
+    @Test
+    void sameModelIsTrainedOnce() throws Exception {
+        Instances iris = iris();
+        Instances trainSet = new Instances(iris, 0, TRAIN_SIZE);
+        Instances testSet = new Instances(iris, TRAIN_SIZE, iris.numInstances() - TRAIN_SIZE);
+        ModelCache cache = new ModelCache(null);
+
+        double[][] predictions = cache.predictions(new J48(), trainSet, testSet);
+        // Same train set in a different object, same classifier and options
+        double[][] cachedPredictions = cache.predictions(new J48(), new Instances(trainSet), testSet);
+
+        assertEquals(1, cache.getTrainedModels());
+        assertEquals(1, cache.getHits());
+        assertArrayEquals(predictions, cachedPredictions);
+        assertArrayEquals(retrained(new J48(), trainSet, testSet), predictions);
+
+        // Other test sets are predicted by the same model
+        cache.predictions(new J48(), trainSet, new Instances(testSet, 0, 10));
+        assertEquals(1, cache.getTrainedModels());
+
+        // Other options, other classifiers and other train sets are different models
+        J48 unpruned = new J48();
+        unpruned.setUnpruned(true);
+        cache.predictions(unpruned, trainSet, testSet);
+        cache.predictions(new IBk(), trainSet, testSet);
+        cache.predictions(new J48(), flipped(trainSet, 1), testSet);
+        assertEquals(4, cache.getTrainedModels());
+    }
+
+    @Test
+    void modelsAreLoadedFromTheFolder() throws Exception {
+        Instances iris = iris();
+        Instances trainSet = new Instances(iris, 0, TRAIN_SIZE);
+        Instances testSet = new Instances(iris, TRAIN_SIZE, iris.numInstances() - TRAIN_SIZE);
+        Instances otherTestSet = new Instances(iris, 0, 20);
+
+        double[][] predictions = new ModelCache(folder).predictions(new J48(), trainSet, testSet);
+        assertEquals(1, folder.listFiles( (dir, name) -> name.endsWith(ModelCache.FILE_EXTENSION) ).length);
+
+        ModelCache cache = new ModelCache(folder);
+        assertArrayEquals(predictions, cache.predictions(new J48(), trainSet, testSet));
+        assertEquals(1, cache.getHits());
+        // The loaded classifier predicts also the test sets never seen
+        assertArrayEquals(retrained(new J48(), trainSet, otherTestSet), cache.predictions(new J48(), trainSet, otherTestSet));
+        assertEquals(0, cache.getTrainedModels());
+    }
+
+    @Test
+    void leastRecentlyUsedModelsAreDiscarded() throws Exception {
+        Instances iris = iris();
+        Instances testSet = new Instances(iris, TRAIN_SIZE, iris.numInstances() - TRAIN_SIZE);
+        Instances first = new Instances(iris, 0, TRAIN_SIZE);
+        Instances second = flipped(first, 1);
+        Instances third = flipped(first, 2);
+        ModelCache cache = new ModelCache(null, 2);
+
+        cache.predictions(new J48(), first, testSet);
+        cache.predictions(new J48(), second, testSet);
+        // The first model becomes the most recently used, thus the second one is discarded by the third
+        cache.predictions(new J48(), first, testSet);
+        cache.predictions(new J48(), third, testSet);
+        assertEquals(3, cache.getTrainedModels());
+
+        cache.predictions(new J48(), first, testSet);
+        assertEquals(3, cache.getTrainedModels());
+        cache.predictions(new J48(), second, testSet);
+        assertEquals(4, cache.getTrainedModels());
+    }
+
+    @Test
+    void invalidMaximumIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ModelCache(null, 0));
+    }
+
+    private static double[][] retrained(Classifier template, Instances trainSet, Instances testSet) throws Exception {
+        Classifier classifier = AbstractClassifier.makeCopy(template);
+        classifier.buildClassifier(new Instances(trainSet));
+        double[][] predictions = new double[testSet.numInstances()][];
+        for (int i = 0; i < testSet.numInstances(); i++) {
+            predictions[i] = classifier.distributionForInstance(testSet.instance(i));
+        }
+        return predictions;
+    }
+
+    /**
+     * @return a copy of the train set with the class of the first rows changed
+     */
+    private static Instances flipped(Instances trainSet, int rows) {
+        Instances flipped = new Instances(trainSet);
+        for (int i = 0; i < rows; i++) {
+            Instance instance = flipped.instance(i);
+            instance.setClassValue((instance.classValue() + 1) % flipped.numClasses());
+        }
+        return flipped;
+    }
+
+    private static Instances iris() throws Exception {
+        Instances iris;
+        try (InputStream stream = ModelCacheTest.class.getResourceAsStream("/iris.arff");
+             Reader reader = new InputStreamReader(stream)) {
+            iris = new Instances(reader);
+        }
+        iris.setClassIndex(iris.numAttributes() - 1);
+        iris.randomize(new Random(1));
+        return iris;
+    }
+}
@@ -0,0 +1,161 @@
+package disruptor.neighbours;
+
+import org.junit.jupiter.api.Test;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.DistanceFunction;
+import weka.core.EuclideanDistance;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.neighboursearch.BallTree;
+import weka.core.neighboursearch.KDTree;
+import weka.core.neighboursearch.LinearNNSearch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NeighbourIndexTest {
+
+    private static final int QUERIES = 200;
+
+    private static final int NEIGHBOURS = 10;
+
+    @Test
+    void lshFindsTheRequestedRecall() throws Exception {
+        Instances dataset = clusters(2000, 48, 20, false, 1);
+        Instances queries = clusters(QUERIES, 48, 20, false, 1);
+        WekaNeighbourIndex linearIndex = new WekaNeighbourIndex(dataset, new LinearNNSearch());
+
+        for (double recall : new double[]{0.8, 0.9, 0.95}) {
+            NeighbourIndex index = NeighbourIndexFactory.create(dataset, recall);
+            assertFalse(index.isExact());
+
+            int found = 0;
+            for (int q = 0; q < QUERIES; q++) {
+                // Both the instances of the dataset and new instances of the same distribution
+                Instance query = q % 2 == 0 ? dataset.instance(q) : queries.instance(q);
+                Set<Integer> neighbours = new HashSet<>();
+                for (int row : index.kNearest(query, NEIGHBOURS)) {
+                    neighbours.add(row);
+                }
+                for (int row : linearIndex.kNearest(query, NEIGHBOURS)) {
+                    found += neighbours.contains(row) ? 1 : 0;
+                }
+            }
+            double measuredRecall = (double) found / (QUERIES * NEIGHBOURS);
+            assertTrue(measuredRecall >= recall, "Requested recall " + recall + ", measured " + measuredRecall);
+        }
+    }
+
+    @Test
+    void kdTreeFindsTheExactNeighbours() throws Exception {
+        Instances dataset = clusters(1000, 4, 5, false, 2);
+        assertExactNeighbours(dataset, new WekaNeighbourIndex(dataset, new KDTree()));
+        assertTrue(NeighbourIndexFactory.create(dataset, 0.9).isExact());
+    }
+
+    @Test
+    void ballTreeFindsTheExactNeighbours() throws Exception {
+        Instances dataset = clusters(1000, 4, 5, true, 3);
+        assertExactNeighbours(dataset, new WekaNeighbourIndex(dataset, new BallTree()));
+        assertTrue(NeighbourIndexFactory.create(dataset, 0.9).isExact());
+    }
+
+    @Test
+    void invalidRecallIsRejected() {
+        Instances dataset = clusters(10, 2, 1, false, 4);
+        assertThrows(IllegalArgumentException.class, () -> NeighbourIndexFactory.create(dataset, 0));
+        assertThrows(IllegalArgumentException.class, () -> NeighbourIndexFactory.create(dataset, 1.5));
+    }
+
+    /**
+     * Compare the neighbours found by the index with the ones of a linear scan of the dataset, for radii with fewer,
+     * about 100 and all the instances, thus with none, some and all the doublings of the radius search
+     */
+    private static void assertExactNeighbours(Instances dataset, NeighbourIndex index) throws Exception {
+        assertTrue(index.isExact());
+        DistanceFunction distanceFunction = new EuclideanDistance(dataset);
+        Random random = new Random(5);
+        for (int q = 0; q < 50; q++) {
+            Instance query = dataset.instance(random.nextInt(dataset.numInstances()));
+            Integer[] order = sortedByDistance(dataset, distanceFunction, query);
+            double[] distances = new double[order.length];
+            for (int i = 0; i < order.length; i++) {
+                distances[i] = distanceFunction.distance(query, dataset.instance(order[i]));
+            }
+
+            assertArrayEquals(prefix(order, NEIGHBOURS), index.kNearest(query, NEIGHBOURS));
+            assertArrayEquals(prefix(order, order.length), index.kNearest(query, order.length + 1));
+            for (int radiusNeighbours : new int[]{5, 100, order.length}) {
+                double radius = distances[radiusNeighbours - 1];
+                int inRadius = radiusNeighbours;
+                while (inRadius < order.length && distances[inRadius] <= radius) {
+                    inRadius++;
+                }
+                assertArrayEquals(prefix(order, inRadius), index.withinRadius(query, radius), "radius " + radius);
+            }
+        }
+    }
+
+    private static Integer[] sortedByDistance(Instances dataset, DistanceFunction distanceFunction, Instance query) {
+        Integer[] order = new Integer[dataset.numInstances()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (i, j) -> Double.compare(
+                distanceFunction.distance(query, dataset.instance(i)), distanceFunction.distance(query, dataset.instance(j))));
+        return order;
+    }
+
+    private static int[] prefix(Integer[] order, int length) {
+        int[] rows = new int[length];
+        for (int i = 0; i < length; i++) {
+            rows[i] = order[i];
+        }
+        return rows;
+    }
+
+    /**
+     * @return instances around random centres, with gaussian noise on every attribute. The centres depend only on the
+     * seed, the instances also on the number of instances
+     */
+    private static Instances clusters(int numInstances, int numAttributes, int numClusters, boolean withNominal, long seed) {
+        Random centresRandom = new Random(seed);
+        double[][] centres = new double[numClusters][numAttributes];
+        for (double[] centre : centres) {
+            for (int a = 0; a < numAttributes; a++) {
+                centre[a] = centresRandom.nextDouble() * 10;
+            }
+        }
+
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        for (int a = 0; a < numAttributes; a++) {
+            attributes.add(new Attribute("a" + a));
+        }
+        if (withNominal) {
+            attributes.add(new Attribute("nominal", Arrays.asList("x", "y", "z")));
+        }
+        Instances dataset = new Instances("clusters", attributes, numInstances);
+        Random random = new Random(seed + numInstances);
+        for (int i = 0; i < numInstances; i++) {
+            double[] centre = centres[random.nextInt(numClusters)];
+            double[] values = new double[attributes.size()];
+            for (int a = 0; a < numAttributes; a++) {
+                values[a] = centre[a] + random.nextGaussian();
+            }
+            if (withNominal) {
+                values[numAttributes] = random.nextInt(3);
+            }
+            dataset.add(new DenseInstance(1, values));
+        }
+        return dataset;
+    }
+}
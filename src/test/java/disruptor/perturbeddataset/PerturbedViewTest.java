@@ -0,0 +1,274 @@
+package disruptor.perturbeddataset;
+
+import org.junit.jupiter.api.Test;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PerturbedViewTest {
+
+    private static final int ROWS = 5;
+
+    @Test
+    void viewSharesTheBaseInstances() {
+        Instances base = dataset();
+        PerturbedView view = new PerturbedView(base);
+
+        assertEquals(ROWS, view.numInstances());
+        assertEquals(0, view.ownedRowsNumber());
+        for (int i = 0; i < ROWS; i++) {
+            assertFalse(view.isOwned(i));
+            assertSame(base.instance(i), view.instance(i));
+        }
+    }
+
+    @Test
+    void writableInstanceCopiesOnlyOnce() {
+        Instances base = dataset();
+        PerturbedView view = new PerturbedView(base);
+
+        Instance writable = view.writableInstance(2);
+        writable.setValue(0, -1);
+
+        assertTrue(view.isOwned(2));
+        assertEquals(1, view.ownedRowsNumber());
+        assertSame(writable, view.writableInstance(2));
+        assertEquals(-1, view.instance(2).value(0));
+        assertBaseUnchanged(base);
+    }
+
+    @Test
+    void addedInstancesAreOwned() {
+        Instances base = dataset();
+        PerturbedView view = new PerturbedView(base);
+
+        view.add(base.instance(0));
+
+        assertEquals(ROWS + 1, view.numInstances());
+        assertTrue(view.isOwned(ROWS));
+        assertNotSame(base.instance(0), view.instance(ROWS));
+        // Only the instances of the base dataset are counted
+        assertEquals(0, view.ownedRowsNumber());
+        assertThrows(UnsupportedOperationException.class, () -> view.delete(ROWS));
+        assertThrows(UnsupportedOperationException.class, () -> view.remove(ROWS));
+    }
+
+    @Test
+    void reorderMovesTheOwnership() {
+        Instances base = dataset();
+        PerturbedView view = new PerturbedView(base);
+        view.writableInstance(1).setValue(0, -1);
+
+        view.reorder(new int[]{1, 0, 4, 3, 2});
+
+        assertTrue(view.isOwned(0));
+        assertFalse(view.isOwned(1));
+        assertEquals(1, view.ownedRowsNumber());
+        assertEquals(-1, view.instance(0).value(0));
+        assertSame(base.instance(0), view.instance(1));
+        assertSame(base.instance(4), view.instance(2));
+        assertSame(base.instance(2), view.instance(4));
+        assertBaseUnchanged(base);
+    }
+
+    @Test
+    void reorderCopiesTheSharedInstancesMovedAfterTheBase() {
+        Instances base = dataset();
+        PerturbedView view = new PerturbedView(base);
+        view.add(new DenseInstance(1, new double[]{100, 0}));
+
+        // The shared instance 0 is moved after the base instances, the added one at the start
+        view.reorder(new int[]{5, 1, 2, 3, 4, 0});
+
+        assertTrue(view.isOwned(0));
+        assertEquals(100, view.instance(0).value(0));
+        assertNotSame(base.instance(0), view.instance(ROWS));
+        view.instance(ROWS).setValue(0, -1);
+        assertBaseUnchanged(base);
+    }
+
+    @Test
+    void reorderRejectsAnInvalidOrder() {
+        PerturbedView view = new PerturbedView(dataset());
+
+        assertThrows(IllegalArgumentException.class, () -> view.reorder(new int[]{0, 1, 2, 3}));
+        assertThrows(IllegalArgumentException.class, () -> view.reorder(new int[]{0, 1, 2, 3, 3}));
+    }
+
+    @Test
+    void sortMovesTheOwnership() {
+        Instances base = dataset();
+        PerturbedView view = new PerturbedView(base);
+        view.writableInstance(1).setValue(0, 10);
+        view.add(new DenseInstance(1, new double[]{-1, 0}));
+
+        view.sort(0);
+
+        assertArrayEquals(new double[]{-1, 0, 2, 3, 4, 10}, view.attributeToDoubleArray(0));
+        assertTrue(view.isOwned(0));
+        assertSame(base.instance(0), view.instance(1));
+        assertSame(base.instance(4), view.instance(4));
+        assertTrue(view.isOwned(ROWS));
+        assertOwnershipMatches(base, view);
+        for (int i = 0; i < view.numInstances(); i++) {
+            view.writableInstance(i).setValue(0, 100);
+        }
+        assertBaseUnchanged(base);
+    }
+
+    @Test
+    void stratifyMovesTheOwnership() {
+        Instances base = dataset();
+        PerturbedView view = new PerturbedView(base);
+        view.writableInstance(0).setValue(0, -1);
+        view.writableInstance(3).setValue(0, -3);
+
+        view.stratify(2);
+
+        assertEquals(2, view.ownedRowsNumber());
+        assertOwnershipMatches(base, view);
+        for (int i = 0; i < view.numInstances(); i++) {
+            view.writableInstance(i).setValue(0, 100);
+        }
+        assertBaseUnchanged(base);
+    }
+
+    @Test
+    void changesOfThePositionsAndOfTheAttributesAreRejected() {
+        Instances base = dataset();
+        PerturbedView view = new PerturbedView(base);
+        Instance instance = new DenseInstance(1, new double[]{100, 0});
+
+        assertThrows(UnsupportedOperationException.class, () -> view.add(0, instance));
+        assertThrows(UnsupportedOperationException.class, view::delete);
+        assertThrows(UnsupportedOperationException.class, () -> view.deleteWithMissing(0));
+        assertThrows(UnsupportedOperationException.class, view::deleteWithMissingClass);
+        assertThrows(UnsupportedOperationException.class, () -> view.deleteAttributeAt(0));
+        assertThrows(UnsupportedOperationException.class, () -> view.insertAttributeAt(new Attribute("other"), 0));
+        assertThrows(UnsupportedOperationException.class, () -> view.replaceAttributeAt(new Attribute("other"), 0));
+        view.add(ROWS, instance);
+        assertTrue(view.isOwned(ROWS));
+        assertEquals(ROWS + 1, view.numInstances());
+        assertBaseUnchanged(base);
+    }
+
+    @Test
+    void prefixViewSharesThePrefixWithoutOwningIt() {
+        Instances base = dataset();
+        PerturbedView view = new PerturbedView(base);
+        view.writableInstance(0).setValue(0, -1);
+        view.writableInstance(3).setValue(0, -3);
+
+        PerturbedView prefixView = view.prefixView(2);
+
+        assertSame(base, prefixView.getBase());
+        assertEquals(ROWS, prefixView.numInstances());
+        assertEquals(0, prefixView.ownedRowsNumber());
+        assertSame(view.instance(0), prefixView.instance(0));
+        assertSame(base.instance(3), prefixView.instance(3));
+
+        // A change of the prefix view copies the instance shared with the first view
+        prefixView.writableInstance(0).setValue(0, -10);
+        assertEquals(-1, view.instance(0).value(0));
+        assertEquals(-10, prefixView.instance(0).value(0));
+        assertBaseUnchanged(base);
+    }
+
+    @Test
+    void prefixViewRejectsInvalidPrefixes() {
+        PerturbedView view = new PerturbedView(dataset());
+
+        assertThrows(IllegalArgumentException.class, () -> view.prefixView(-1));
+        assertThrows(IllegalArgumentException.class, () -> view.prefixView(ROWS + 1));
+        view.add(new DenseInstance(1, new double[]{0, 0}));
+        assertThrows(IllegalStateException.class, () -> view.prefixView(1));
+    }
+
+    @Test
+    void deriveTakesOnlyTheSelectedAttributes() {
+        Instances base = dataset();
+        PerturbedView view = new PerturbedView(base);
+        for (int i = 0; i < ROWS; i += 2) {
+            Instance instance = view.writableInstance(i);
+            instance.setValue(0, -i);
+            instance.setValue(1, 1 - instance.value(1));
+        }
+
+        PerturbedView derivedView = view.derive(3, Collections.singletonList(base.attribute(0)));
+
+        assertEquals(2, derivedView.ownedRowsNumber());
+        assertTrue(derivedView.isOwned(0));
+        assertTrue(derivedView.isOwned(2));
+        assertFalse(derivedView.isOwned(4));
+        assertSame(base.instance(1), derivedView.instance(1));
+        assertSame(base.instance(4), derivedView.instance(4));
+        assertArrayEquals(new double[]{0, base.instance(0).value(1)}, derivedView.instance(0).toDoubleArray());
+        assertArrayEquals(new double[]{-2, base.instance(2).value(1)}, derivedView.instance(2).toDoubleArray());
+        assertBaseUnchanged(base);
+    }
+
+    @Test
+    void materializeIsIndependentOfTheBase() {
+        Instances base = dataset();
+        PerturbedView view = new PerturbedView(base);
+        view.writableInstance(1).setValue(0, -1);
+
+        Instances materialized = view.materialize();
+        for (int i = 0; i < ROWS; i++) {
+            assertNotSame(base.instance(i), materialized.instance(i));
+            materialized.instance(i).setValue(0, 1000);
+        }
+
+        assertEquals(-1, view.instance(1).value(0));
+        assertBaseUnchanged(base);
+    }
+
+    /**
+     * Check that the instances not owned by the view are the ones of the base dataset, and the owned ones are copies
+     */
+    private static void assertOwnershipMatches(Instances base, PerturbedView view) {
+        Set<Instance> baseInstances = Collections.newSetFromMap(new IdentityHashMap<>());
+        baseInstances.addAll(base);
+        for (int i = 0; i < view.numInstances(); i++) {
+            assertEquals(!view.isOwned(i), baseInstances.contains(view.instance(i)), "instance " + i);
+        }
+    }
+
+    private static void assertBaseUnchanged(Instances base) {
+        Instances expected = dataset();
+        assertEquals(expected.numInstances(), base.numInstances());
+        for (int i = 0; i < expected.numInstances(); i++) {
+            assertArrayEquals(expected.instance(i).toDoubleArray(), base.instance(i).toDoubleArray());
+        }
+    }
+
+    /**
+     * @return a dataset with a numeric attribute and a nominal class
+     */
+    private static Instances dataset() {
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        attributes.add(new Attribute("numeric"));
+        attributes.add(new Attribute("class", Arrays.asList("a", "b")));
+        Instances dataset = new Instances("base", attributes, ROWS);
+        dataset.setClassIndex(1);
+        for (int i = 0; i < ROWS; i++) {
+            dataset.add(new DenseInstance(1, new double[]{i, i % 2}));
+        }
+        return dataset;
+    }
+}
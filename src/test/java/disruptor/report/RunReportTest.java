@@ -0,0 +1,33 @@
+package disruptor.report;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RunReportTest {
+
+    @Test
+    void propertiesAreJsonValues() {
+        RunReport report = new RunReport();
+        report.setProperty("nan", Double.NaN);
+        report.setProperty("infinity", Double.POSITIVE_INFINITY);
+        report.setProperty("floatNan", Float.NaN);
+        report.setProperty("double", 1.5);
+        report.setProperty("long", 3L);
+        report.setProperty("boolean", true);
+        report.setProperty("text", "a \"quoted\" text");
+
+        String json = report.toJson();
+
+        assertTrue(json.contains("\"nan\": null,"), json);
+        assertTrue(json.contains("\"infinity\": null,"), json);
+        assertTrue(json.contains("\"floatNan\": null,"), json);
+        assertTrue(json.contains("\"double\": 1.5,"), json);
+        assertTrue(json.contains("\"long\": 3,"), json);
+        assertTrue(json.contains("\"boolean\": true,"), json);
+        assertTrue(json.contains("\"text\": \"a \\\"quoted\\\" text\","), json);
+        assertFalse(json.contains("NaN"), json);
+        assertFalse(json.contains("Infinity"), json);
+    }
+}
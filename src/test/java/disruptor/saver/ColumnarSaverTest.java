@@ -0,0 +1,192 @@
+package disruptor.saver;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+import weka.core.Utils;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColumnarSaverTest {
+
+    @TempDir
+    File folder;
+
+    @Test
+    void irisRoundTrip() throws Exception {
+        Instances iris;
+        try (InputStream stream = getClass().getResourceAsStream("/iris.arff");
+             Reader reader = new InputStreamReader(stream)) {
+            iris = new Instances(reader);
+        }
+        iris.setClassIndex(iris.numAttributes() - 1);
+
+        Instances loaded = roundTrip(iris);
+
+        assertSameDataset(iris, loaded);
+        assertEquals(iris.classIndex(), loaded.classIndex());
+    }
+
+    /**
+     * A -0.0 is not exact in the integer encodings, thus it is tested only in the floating point ones
+     */
+    @Test
+    void numericEncodingsRoundTrip() throws Exception {
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        attributes.add(new Attribute("decimal"));
+        attributes.add(new Attribute("float32"));
+        attributes.add(new Attribute("float64"));
+        attributes.add(new Attribute("integer"));
+        attributes.add(new Attribute("nominal", Arrays.asList("a", "b", "c")));
+        attributes.add(new Attribute("string", (ArrayList<String>) null));
+        Instances dataset = new Instances("encodings", attributes, 4);
+        dataset.setClassIndex(4);
+        addRow(dataset, 1, new double[]{1.25, 0.5f, Math.E, 7, 0}, "first");
+        addRow(dataset, 1, new double[]{0.75, -0.0, -0.0, 0, 2}, "");
+        addRow(dataset, 1, new double[]{Utils.missingValue(), Utils.missingValue(), Utils.missingValue(), Utils.missingValue(), Utils.missingValue()}, null);
+        addRow(dataset, 2.5, new double[]{-3.125, 1e-3f, Math.PI, -120, 1}, "àèì");
+
+        File file = new File(folder, "encodings" + ColumnarFormat.FILE_EXTENSION);
+        save(dataset, file);
+        Instances loaded = ColumnarLoader.read(file);
+
+        assertSameDataset(dataset, loaded);
+        assertEquals(dataset.classIndex(), loaded.classIndex());
+        assertEquals(
+                Arrays.asList(ColumnarFormat.DECIMAL, ColumnarFormat.FLOAT32, ColumnarFormat.FLOAT64, ColumnarFormat.INT8),
+                numericEncodings(file, dataset.numInstances())
+        );
+    }
+
+    @Test
+    void emptyDatasetRoundTrip() throws Exception {
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        attributes.add(new Attribute("numeric"));
+        attributes.add(new Attribute("nominal", Arrays.asList("yes", "no")));
+        Instances dataset = new Instances("empty", attributes, 0);
+
+        Instances loaded = roundTrip(dataset);
+
+        assertSameDataset(dataset, loaded);
+        assertEquals(-1, loaded.classIndex());
+    }
+
+    private Instances roundTrip(Instances dataset) throws IOException {
+        File file = new File(folder, dataset.relationName() + ColumnarFormat.FILE_EXTENSION);
+        save(dataset, file);
+        return ColumnarLoader.read(file);
+    }
+
+    private static void save(Instances dataset, File file) throws IOException {
+        ColumnarSaver saver = new ColumnarSaver();
+        saver.setInstances(dataset);
+        saver.setFile(file);
+        saver.writeBatch();
+    }
+
+    private static void addRow(Instances dataset, double weight, double[] numericValues, String string) {
+        double[] values = Arrays.copyOf(numericValues, dataset.numAttributes());
+        dataset.add(new DenseInstance(weight, values));
+        if (string == null) {
+            dataset.lastInstance().setMissing(dataset.numAttributes() - 1);
+        }
+        else {
+            dataset.lastInstance().setValue(dataset.numAttributes() - 1, string);
+        }
+    }
+
+    /**
+     * Compare the datasets bit by bit, so that -0.0 and 0.0 are different
+     */
+    static void assertSameDataset(Instances expected, Instances actual) {
+        assertEquals(expected.relationName(), actual.relationName());
+        assertEquals(expected.numAttributes(), actual.numAttributes());
+        for (int a = 0; a < expected.numAttributes(); a++) {
+            assertEquals(expected.attribute(a).name(), actual.attribute(a).name());
+            assertEquals(expected.attribute(a).type(), actual.attribute(a).type());
+        }
+        assertEquals(expected.numInstances(), actual.numInstances());
+        for (int i = 0; i < expected.numInstances(); i++) {
+            assertEquals(expected.instance(i).weight(), actual.instance(i).weight(), "weight of row " + i);
+            for (int a = 0; a < expected.numAttributes(); a++) {
+                String cell = "row " + i + ", attribute " + expected.attribute(a).name();
+                assertEquals(expected.instance(i).isMissing(a), actual.instance(i).isMissing(a), cell);
+                if (expected.instance(i).isMissing(a)) {
+                    continue;
+                }
+                if (expected.attribute(a).isString() || expected.attribute(a).isNominal()) {
+                    assertEquals(expected.instance(i).stringValue(a), actual.instance(i).stringValue(a), cell);
+                }
+                else {
+                    assertEquals(
+                            Double.doubleToLongBits(expected.instance(i).value(a)),
+                            Double.doubleToLongBits(actual.instance(i).value(a)),
+                            cell
+                    );
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the encodings of the first numeric columns of the file, until the first nominal column
+     */
+    private static ArrayList<Byte> numericEncodings(File file, int numRows) throws IOException {
+        ArrayList<Byte> encodings = new ArrayList<>();
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(file.toPath()))) {
+            assertEquals(ColumnarFormat.MAGIC, input.readInt());
+            assertEquals(ColumnarFormat.VERSION, input.readShort());
+            input.skipBytes(input.readInt());
+            input.readInt();
+            assertEquals(numRows, input.readInt());
+            for (int c = 0; c < 4; c++) {
+                byte encoding = input.readByte();
+                encodings.add(encoding);
+                int valueBytes;
+                switch (encoding) {
+                    case ColumnarFormat.DECIMAL:
+                        input.readByte();
+                        valueBytes = integerBytes(input.readByte());
+                        break;
+                    case ColumnarFormat.FLOAT32:
+                        valueBytes = Float.BYTES;
+                        break;
+                    case ColumnarFormat.FLOAT64:
+                        valueBytes = Double.BYTES;
+                        break;
+                    default:
+                        valueBytes = integerBytes(encoding);
+                }
+                assertTrue(valueBytes > 0);
+                input.skipBytes(valueBytes * numRows);
+            }
+        }
+        return encodings;
+    }
+
+    private static int integerBytes(byte encoding) {
+        switch (encoding) {
+            case ColumnarFormat.INT8:
+                return Byte.BYTES;
+            case ColumnarFormat.INT16:
+                return Short.BYTES;
+            case ColumnarFormat.INT32:
+                return Integer.BYTES;
+            default:
+                return -1;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package disruptor.saver;
+
+import disruptor.perturbeddataset.PerturbedView;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static disruptor.saver.ColumnarSaverTest.assertSameDataset;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DatasetPatchTest {
+
+    @TempDir
+    File folder;
+
+    @Test
+    void applyRebuildsThePerturbedView() {
+        Instances base = dataset();
+        PerturbedView perturbed = new PerturbedView(base);
+        perturbed.setRelationName("perturbed");
+        perturbed.writableInstance(1).setValue(0, -0.0);
+        perturbed.writableInstance(1).setValue(1, "c");
+        perturbed.writableInstance(3).setMissing(0);
+        perturbed.writableInstance(3).setValue(2, "changed");
+        perturbed.writableInstance(4).setWeight(3);
+        // A copied instance with the same values is not a change
+        perturbed.writableInstance(5);
+        perturbed.add(perturbed.instance(0));
+        perturbed.add(new DenseInstance(0.5, new double[]{42, 0, 0}));
+        perturbed.lastInstance().setValue(2, "added");
+
+        DatasetPatch patch = DatasetPatch.diff(base, perturbed);
+
+        assertEquals(5, patch.numChanges());
+        assertEquals(2, patch.numAddedRows());
+        assertSameDataset(perturbed, patch.apply(base));
+        assertSameDataset(dataset(), base);
+    }
+
+    @Test
+    void applyRebuildsACopy() {
+        Instances base = dataset();
+        Instances perturbed = new Instances(base);
+        perturbed.instance(0).setValue(0, 0.1);
+        perturbed.instance(2).setMissing(1);
+        perturbed.instance(2).setMissing(2);
+
+        DatasetPatch patch = DatasetPatch.diff(base, perturbed);
+
+        assertEquals(3, patch.numChanges());
+        assertEquals(0, patch.numAddedRows());
+        assertSameDataset(perturbed, patch.apply(base));
+    }
+
+    @Test
+    void unchangedDatasetHasAnEmptyPatch() {
+        Instances base = dataset();
+
+        DatasetPatch patch = DatasetPatch.diff(base, new Instances(base));
+
+        assertEquals(0, patch.numChanges());
+        assertEquals(0, patch.numAddedRows());
+        assertEquals(0, patch.changedValuesRatio());
+        assertSameDataset(base, patch.apply(base));
+    }
+
+    @Test
+    void materializeRebuildsThePerturbedDatasetFromTheFiles() throws Exception {
+        Instances base = dataset();
+        PerturbedView perturbed = new PerturbedView(base);
+        perturbed.writableInstance(0).setValue(0, 1e-3);
+        perturbed.writableInstance(2).setValue(2, "changed");
+        perturbed.writableInstance(4).setWeight(2);
+        perturbed.add(new DenseInstance(1, new double[]{-7, 2, 0}));
+        perturbed.lastInstance().setMissing(2);
+
+        File baseFile = new File(folder, "base" + ColumnarFormat.FILE_EXTENSION);
+        ColumnarSaver saver = new ColumnarSaver();
+        saver.setInstances(base);
+        saver.setFile(baseFile);
+        saver.writeBatch();
+        File patchFile = new File(folder, "perturbed" + DatasetPatch.FILE_EXTENSION);
+        DatasetPatch.diff(base, perturbed).write(patchFile, baseFile.getName());
+
+        assertSameDataset(perturbed, DatasetPatch.materialize(patchFile));
+    }
+
+    @Test
+    void applyRejectsADifferentBase() {
+        Instances base = dataset();
+        Instances perturbed = new Instances(base);
+        perturbed.instance(5).setValue(0, 100);
+        DatasetPatch patch = DatasetPatch.diff(base, perturbed);
+
+        Instances shorterBase = new Instances(base, 0, 3);
+        assertThrows(IllegalArgumentException.class, () -> patch.apply(shorterBase));
+
+        Instances otherAttributes = new Instances(base);
+        otherAttributes.deleteAttributeAt(2);
+        assertThrows(IllegalArgumentException.class, () -> DatasetPatch.diff(base, otherAttributes));
+    }
+
+    /**
+     * @return a dataset with a numeric, a nominal and a string attribute
+     */
+    private static Instances dataset() {
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        attributes.add(new Attribute("numeric"));
+        attributes.add(new Attribute("nominal", Arrays.asList("a", "b", "c")));
+        attributes.add(new Attribute("string", (ArrayList<String>) null));
+        Instances dataset = new Instances("base", attributes, 6);
+        dataset.setClassIndex(1);
+        for (int i = 0; i < 6; i++) {
+            Instance instance = new DenseInstance(1, new double[]{i * 1.5, i % 3, 0});
+            dataset.add(instance);
+            dataset.lastInstance().setValue(2, "row " + i);
+        }
+        return dataset;
+    }
+}
@@ -0,0 +1,155 @@
+package disruptor.saver;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static disruptor.saver.ColumnarSaverTest.assertSameDataset;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class DatasetStoreTest {
+
+    private static final String FINGERPRINT = "0123456789abcdef";
+
+    @TempDir
+    File folder;
+
+    @Test
+    void sameFingerprintIsStoredOnceAndLinked() throws Exception {
+        Instances dataset = dataset();
+        File storeFolder = new File(folder, "store");
+        try (DatasetStore store = new DatasetStore(storeFolder)) {
+            long firstBytes = store.export(new ColumnarSaver(), dataset, FINGERPRINT, new File(folder, "run1/train"));
+            long secondBytes = store.export(new ColumnarSaver(), dataset, FINGERPRINT, new File(folder, "run2/train"));
+
+            assertTrue(firstBytes > 0);
+            assertEquals(0, secondBytes);
+            assertEquals(1, store.storedFilesNumber());
+        }
+
+        Path storedFile = new File(storeFolder, FINGERPRINT + ColumnarFormat.FILE_EXTENSION).toPath();
+        Path firstDestination = new File(folder, "run1/train" + ColumnarFormat.FILE_EXTENSION).toPath();
+        Path secondDestination = new File(folder, "run2/train" + ColumnarFormat.FILE_EXTENSION).toPath();
+        assertTrue(Files.isSameFile(storedFile, firstDestination));
+        assertTrue(Files.isSameFile(storedFile, secondDestination));
+        assertNoTemporaryLinks(folder.toPath());
+
+        Instances exported = ColumnarLoader.read(firstDestination.toFile());
+        exported.setRelationName(dataset.relationName());
+        assertSameDataset(dataset, exported);
+        assertEquals(FINGERPRINT, ColumnarLoader.read(secondDestination.toFile()).relationName());
+        // The relation name of the exported dataset is not changed
+        assertEquals("dataset", dataset.relationName());
+
+        List<String> index = Files.readAllLines(new File(storeFolder, DatasetStore.INDEX_FILE_NAME).toPath());
+        assertEquals(3, index.size());
+        assertEquals("file,fingerprint,relation", index.get(0));
+        assertTrue(index.get(1).endsWith("," + FINGERPRINT + ",dataset"));
+    }
+
+    @Test
+    void existingDestinationIsReplaced() throws Exception {
+        File destination = new File(folder, "train");
+        Path destinationFile = new File(destination.getPath() + ColumnarFormat.FILE_EXTENSION).toPath();
+        Files.write(destinationFile, new byte[]{1, 2, 3});
+
+        try (DatasetStore store = new DatasetStore(new File(folder, "store"))) {
+            store.export(new ColumnarSaver(), dataset(), FINGERPRINT, destination);
+        }
+
+        assertTrue(Files.size(destinationFile) > 3);
+        assertNoTemporaryLinks(folder.toPath());
+    }
+
+    @Test
+    void datasetsAreCopiedWhenTheLinksFail() throws Exception {
+        // A hard link cannot cross file systems: /dev/shm is a memory file system on Linux
+        Path sharedMemory = Paths.get("/dev/shm");
+        assumeTrue(Files.isDirectory(sharedMemory) && Files.isWritable(sharedMemory));
+        assumeTrue(!Files.getFileStore(sharedMemory).equals(Files.getFileStore(folder.toPath())));
+        Path otherFileSystem = Files.createTempDirectory(sharedMemory, "dataset-store-test");
+        try {
+            File storeFolder = new File(folder, "store");
+            try (DatasetStore store = new DatasetStore(storeFolder)) {
+                store.export(new ColumnarSaver(), dataset(), FINGERPRINT, otherFileSystem.resolve("run1/train").toFile());
+                store.export(new ColumnarSaver(), dataset(), FINGERPRINT, otherFileSystem.resolve("run2/train").toFile());
+            }
+
+            byte[] stored = Files.readAllBytes(new File(storeFolder, FINGERPRINT + ColumnarFormat.FILE_EXTENSION).toPath());
+            for (String run : Arrays.asList("run1", "run2")) {
+                Path copy = otherFileSystem.resolve(run + "/train" + ColumnarFormat.FILE_EXTENSION);
+                assertArrayEquals(stored, Files.readAllBytes(copy));
+            }
+            assertNoTemporaryLinks(otherFileSystem);
+        }
+        finally {
+            delete(otherFileSystem);
+        }
+    }
+
+    @Test
+    void failedWriteIsRetried() throws Exception {
+        ColumnarSaver failingSaver = new ColumnarSaver() {
+            @Override
+            public void writeBatch() throws IOException {
+                throw new IOException("Disk full");
+            }
+        };
+        try (DatasetStore store = new DatasetStore(new File(folder, "store"))) {
+            IOException exception = assertThrows(IOException.class,
+                    () -> store.export(failingSaver, dataset(), FINGERPRINT, new File(folder, "run1/train")));
+            assertEquals("Disk full", exception.getMessage());
+            assertEquals(0, store.storedFilesNumber());
+
+            long bytes = store.export(new ColumnarSaver(), dataset(), FINGERPRINT, new File(folder, "run1/train"));
+
+            assertTrue(bytes > 0);
+            assertEquals(1, store.storedFilesNumber());
+        }
+        assertTrue(new File(folder, "run1/train" + ColumnarFormat.FILE_EXTENSION).isFile());
+    }
+
+    private static void assertNoTemporaryLinks(Path root) throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            assertFalse(files.anyMatch( file -> file.getFileName().toString().endsWith(".link") ));
+        }
+    }
+
+    private static void delete(Path root) throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static Instances dataset() {
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        attributes.add(new Attribute("numeric"));
+        attributes.add(new Attribute("class", Arrays.asList("yes", "no")));
+        Instances dataset = new Instances("dataset", attributes, 10);
+        dataset.setClassIndex(1);
+        for (int i = 0; i < 10; i++) {
+            dataset.add(new DenseInstance(1, new double[]{i * 0.5, i % 2}));
+        }
+        return dataset;
+    }
+}
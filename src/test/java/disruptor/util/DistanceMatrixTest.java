@@ -0,0 +1,129 @@
+package disruptor.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import weka.core.DistanceFunction;
+import weka.core.EuclideanDistance;
+import weka.core.Instances;
+import weka.core.ManhattanDistance;
+import weka.core.matrix.Matrix;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DistanceMatrixTest {
+
+    /**
+     * Does not divide the 150 instances of iris
+     */
+    private static final int BLOCK_SIZE = 7;
+
+    @TempDir
+    File folder;
+
+    @Test
+    void storagesHaveTheDistancesOfTheFullMatrix() throws Exception {
+        Instances iris = iris();
+        for (DistanceFunction distanceFunction : new DistanceFunction[]{new EuclideanDistance(iris), new ManhattanDistance(iris)}) {
+            double[][] expected = fullMatrix(iris, distanceFunction);
+            for (boolean floatStorage : new boolean[]{false, true}) {
+                for (File spillFolder : new File[]{null, new File(folder, "spill")}) {
+                    DistanceMatrixUtil util = new DistanceMatrixUtil();
+                    util.setBlockSize(BLOCK_SIZE);
+                    util.setThreads(3);
+                    util.setFloatStorage(floatStorage);
+                    util.setSpillFolder(spillFolder);
+                    String storage = (floatStorage ? "float" : "double") + (spillFolder != null ? " memory-mapped" : " heap");
+
+                    try (DistanceMatrix distanceMatrix = util.computeSymmetricDistanceMatrix(iris, distanceFunction)) {
+                        assertEquals(iris.numInstances(), distanceMatrix.size());
+                        for (int i = 0; i < expected.length; i++) {
+                            for (int j = 0; j < expected.length; j++) {
+                                double distance = floatStorage ? (float) expected[i][j] : expected[i][j];
+                                assertEquals(distance, distanceMatrix.get(i, j), storage + " (" + i + ", " + j + ")");
+                            }
+                        }
+                    }
+                }
+            }
+            assertEquals(new Matrix(expected).minus(new DistanceMatrixUtil().computeDistanceMatrix(iris, distanceFunction)).normInf(), 0);
+        }
+        // The files are deleted when the matrices are closed
+        assertEquals(0, new File(folder, "spill").listFiles().length);
+    }
+
+    @Test
+    void mappedValuesCrossTheRegions() throws Exception {
+        // The first region contains 2^27 doubles: 16400 instances need a second one
+        int size = 16400;
+        long regionValues = 1L << 27;
+        try (DistanceMatrix distanceMatrix = DistanceMatrix.memoryMapped(size, false, folder)) {
+            // Row of the first value of the second region
+            int boundaryRow = 0;
+            while (rowStart(size, boundaryRow + 1) <= regionValues) {
+                boundaryRow++;
+            }
+            int[] rows = {0, boundaryRow - 1, boundaryRow, boundaryRow + 1, size - 2};
+            for (int i : rows) {
+                for (int j = i + 1; j < size; j++) {
+                    distanceMatrix.set(j, i, value(i, j));
+                }
+            }
+            for (int i : rows) {
+                for (int j = i + 1; j < size; j++) {
+                    assertEquals(value(i, j), distanceMatrix.get(i, j), "(" + i + ", " + j + ")");
+                    assertEquals(value(i, j), distanceMatrix.get(j, i), "(" + j + ", " + i + ")");
+                }
+            }
+        }
+        assertEquals(0, folder.listFiles().length);
+    }
+
+    @Test
+    void invalidArgumentsAreRejected() {
+        DistanceMatrixUtil util = new DistanceMatrixUtil();
+        assertThrows(IllegalArgumentException.class, () -> util.setBlockSize(0));
+        assertThrows(IllegalArgumentException.class, () -> util.setBlockSize(-1));
+        assertThrows(IllegalArgumentException.class, () -> DistanceMatrix.inHeap(100, false).set(3, 3, 1));
+        assertThrows(IllegalArgumentException.class, () -> DistanceMatrix.inHeap(70000, false));
+    }
+
+    /**
+     * @return the distances computed as before the blocks: every pair of instances, in both the orders
+     */
+    private static double[][] fullMatrix(Instances dataset, DistanceFunction distanceFunction) {
+        double[][] distances = new double[dataset.numInstances()][dataset.numInstances()];
+        for (int i = 0; i < dataset.numInstances(); i++) {
+            for (int j = 0; j < dataset.numInstances(); j++) {
+                distances[i][j] = distanceFunction.distance(dataset.instance(i), dataset.instance(j));
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * @return position of the first value of the row in the packed upper triangle
+     */
+    private static long rowStart(int size, int row) {
+        return (long) row * size - (long) row * (row + 1) / 2;
+    }
+
+    private static double value(int i, int j) {
+        return i * 100000.0 + j;
+    }
+
+    private static Instances iris() throws Exception {
+        Instances iris;
+        try (InputStream stream = DistanceMatrixTest.class.getResourceAsStream("/iris.arff");
+             Reader reader = new InputStreamReader(stream)) {
+            iris = new Instances(reader);
+        }
+        iris.setClassIndex(iris.numAttributes() - 1);
+        return iris;
+    }
+}